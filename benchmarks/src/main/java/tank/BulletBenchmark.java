@@ -0,0 +1,64 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 子弹池的移动/回收和碰撞检测开销
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulletBenchmark {
+    private static final int BULLET_SIZE = 15;
+
+    @Param({"100", "1000", "10000"})
+    public int bullets;
+
+    private BulletPool pool;
+    private TankStore target; // 只有槽位0的一辆坦克
+    private int[] spawnX, spawnY;
+    private int spawnIndex;
+
+    @Setup
+    public void setup() {
+        pool = new BulletPool(BULLET_SIZE, bullets);
+        target = new TankStore(1);
+        target.addPlayer(400, 300, Direction.UP, 1, 31, 31);
+        Random rand = new Random(1);
+        spawnX = new int[4096];
+        spawnY = new int[4096];
+        for (int i = 0; i < spawnX.length; i++) {
+            spawnX[i] = rand.nextInt(GameWorld.MAP_WIDTH);
+            spawnY[i] = rand.nextInt(GameWorld.MAP_HEIGHT);
+        }
+        refill();
+    }
+
+    // 补满被回收的子弹，模拟持续开火的稳定状态
+    private void refill() {
+        while (pool.size() < bullets) {
+            int i = spawnIndex++ & (spawnX.length - 1);
+            pool.add(spawnX[i], spawnY[i], Direction.values()[i & 3], BulletPool.OWNER_PLAYER);
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        pool.update();
+        refill();
+        return pool.size();
+    }
+
+    @Benchmark
+    public int checkCollision() {
+        int hits = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            if (pool.checkCollision(i, target, TankStore.PLAYER)) hits++;
+        }
+        return hits;
+    }
+}
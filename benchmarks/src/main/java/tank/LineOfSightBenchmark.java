@@ -0,0 +1,100 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 伏击的射击通道查询：视线缓存（O(1)查表）对比每次沿行/列逐格扫描瓦片，以及砖墙被摧毁时重建一行一列和整张地图的开销
+// 查询都取与玩家同行或同列的位置，两种方法都要走到判断墙体那一步；20列为关卡地图大小，250列为压测用的大地图
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineOfSightBenchmark {
+    private static final int QUERIES = 1024;
+    private static final int CELL = TileMap.TILE_SIZE;
+    private static final int SIZE = GameWorld.DEFAULT_TANK_SIZE;
+
+    @Param({"20", "250"})
+    public int cols;
+
+    private TileMap map;
+    private LineOfSight lineOfSight;
+    private final int[] fromX = new int[QUERIES], fromY = new int[QUERIES];
+    private final int[] targetX = new int[QUERIES], targetY = new int[QUERIES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        map = TileMap.generate(cols, cols * 3 / 4, 1);
+        lineOfSight = new LineOfSight(map);
+        Random rand = new Random(cols);
+        for (int i = 0; i < QUERIES; i++) {
+            targetX[i] = rand.nextInt(map.getWidth() - SIZE);
+            targetY[i] = rand.nextInt(map.getHeight() - SIZE);
+            if (rand.nextBoolean()) {
+                fromX[i] = targetX[i] + rand.nextInt(SIZE);
+                fromY[i] = rand.nextInt(map.getHeight());
+            } else {
+                fromX[i] = rand.nextInt(map.getWidth());
+                fromY[i] = targetY[i] + rand.nextInt(SIZE);
+            }
+            if (lineOfSight.firingLane(fromX[i], fromY[i], targetX[i], targetY[i], SIZE, SIZE) != raycast(i)) {
+                throw new IllegalStateException("Cached and raycast line of sight disagree at query " + i);
+            }
+        }
+    }
+
+    // 对照组：与LineOfSight.firingLane()相同的判定，逐格查瓦片
+    private Direction raycast(int i) {
+        int x = fromX[i], y = fromY[i], tx = targetX[i], ty = targetY[i];
+        if (x >= tx && x < tx + SIZE) {
+            int col = x / CELL, row0 = y / CELL, row1 = (ty + SIZE / 2) / CELL;
+            for (int row = Math.min(row0, row1); row <= Math.max(row0, row1); row++) {
+                if (map.isSolidTile(col, row)) return null;
+            }
+            return ty + SIZE / 2 < y ? Direction.UP : Direction.DOWN;
+        } else if (y >= ty && y < ty + SIZE) {
+            int row = y / CELL, col0 = x / CELL, col1 = (tx + SIZE / 2) / CELL;
+            for (int col = Math.min(col0, col1); col <= Math.max(col0, col1); col++) {
+                if (map.isSolidTile(col, row)) return null;
+            }
+            return tx + SIZE / 2 < x ? Direction.LEFT : Direction.RIGHT;
+        }
+        return null;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void cached(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(lineOfSight.firingLane(fromX[i], fromY[i], targetX[i], targetY[i], SIZE, SIZE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void raycast(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(raycast(i));
+        }
+    }
+
+    // 一块砖墙被摧毁后的失效：只重建所在的行和列（瓦片状态不变，开销相同）
+    @Benchmark
+    public LineOfSight tileCleared() {
+        int cell = next++ % (map.getCols() * map.getRows());
+        lineOfSight.tileCleared(cell % map.getCols(), cell / map.getCols());
+        return lineOfSight;
+    }
+
+    @Benchmark
+    public LineOfSight rebuild() {
+        lineOfSight.rebuild();
+        return lineOfSight;
+    }
+}
@@ -0,0 +1,173 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 追踪玩家的寻路开销：共享流场（每tick重建一次 + 每个敌人查表）对比每个敌人各自做A*
+// 地图上放几道墙，保证路径需要绕行
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+    private static final int CELL = Navigation.CELL_SIZE;
+    private static final int COLS = GameWorld.MAP_WIDTH / CELL;
+    private static final int ROWS = GameWorld.MAP_HEIGHT / CELL;
+    private static final int CELLS = COLS * ROWS;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int enemies;
+
+    private final TileMap map = new TileMap(COLS, ROWS);
+    private final FlowField field = new FlowField(COLS, ROWS, CELL);
+    private final int[] queue = new int[CELLS];
+    private int[] enemyX, enemyY;
+    private int playerCell;
+
+    // A*的工作数组，用代数标记代替每次清零
+    private final int[] g = new int[CELLS];
+    private final int[] parent = new int[CELLS];
+    private final int[] stamp = new int[CELLS];
+    private final boolean[] closed = new boolean[CELLS];
+    private final int[] heap = new int[CELLS * 4];
+    private final int[] heapKey = new int[CELLS * 4];
+    private int generation;
+
+    @Setup
+    public void setup() {
+        // 三道竖墙，交替留出上下缺口
+        for (int row = 0; row < ROWS - 3; row++) {
+            map.setTile(5, row, TileMap.STEEL);
+            map.setTile(10, row + 3, TileMap.STEEL);
+            map.setTile(15, row, TileMap.STEEL);
+        }
+        playerCell = (ROWS - 1) * COLS + COLS - 1;
+
+        Random rand = new Random(enemies);
+        enemyX = new int[enemies];
+        enemyY = new int[enemies];
+        for (int i = 0; i < enemies; i++) {
+            int cell;
+            do {
+                cell = rand.nextInt(CELLS);
+            } while (map.isSolidCell(cell));
+            enemyX[i] = (cell % COLS) * CELL + rand.nextInt(CELL);
+            enemyY[i] = (cell / COLS) * CELL + rand.nextInt(CELL);
+        }
+
+        // 两种方法的第一步都必须沿最短路径
+        field.build(playerCell, map, queue);
+        for (int i = 0; i < enemies; i++) {
+            Direction next = field.directionAt(enemyX[i], enemyY[i]);
+            int start = cellOf(enemyX[i], enemyY[i]);
+            int step = aStar(start);
+            if ((next == null) != (step < 0) || (step >= 0 && field.distanceAt(step) != field.distanceAt(start) - 1)) {
+                throw new IllegalStateException("Flow field and A* disagree at cell " + start);
+            }
+        }
+    }
+
+    private static int cellOf(int x, int y) {
+        return (y / CELL) * COLS + x / CELL;
+    }
+
+    @Benchmark
+    public void flowField(Blackhole bh) {
+        field.build(playerCell, map, queue);
+        for (int i = 0; i < enemies; i++) {
+            bh.consume(field.directionAt(enemyX[i], enemyY[i]));
+        }
+    }
+
+    @Benchmark
+    public void aStarPerEnemy(Blackhole bh) {
+        for (int i = 0; i < enemies; i++) {
+            bh.consume(aStar(cellOf(enemyX[i], enemyY[i])));
+        }
+    }
+
+    // 曼哈顿启发的A*，返回路径上的第一步格子（起点即终点或不可达时返回-1）
+    private int aStar(int start) {
+        generation++;
+        int size;
+        int targetCol = playerCell % COLS, targetRow = playerCell / COLS;
+        stamp[start] = generation;
+        g[start] = 0;
+        parent[start] = -1;
+        closed[start] = false;
+        size = push(0, start, manhattan(start, targetCol, targetRow));
+        while (size > 0) {
+            int cell = heap[0];
+            size = pop(size);
+            if (closed[cell]) continue;
+            closed[cell] = true;
+            if (cell == playerCell) {
+                while (parent[cell] != start && parent[cell] >= 0) {
+                    cell = parent[cell];
+                }
+                return cell == start ? -1 : cell;
+            }
+            int col = cell % COLS, row = cell / COLS;
+            if (col > 0) size = relax(size, cell, cell - 1, targetCol, targetRow);
+            if (col < COLS - 1) size = relax(size, cell, cell + 1, targetCol, targetRow);
+            if (row > 0) size = relax(size, cell, cell - COLS, targetCol, targetRow);
+            if (row < ROWS - 1) size = relax(size, cell, cell + COLS, targetCol, targetRow);
+        }
+        return -1;
+    }
+
+    private int relax(int size, int from, int to, int targetCol, int targetRow) {
+        if (map.isSolidCell(to)) return size;
+        int cost = g[from] + 1;
+        if (stamp[to] != generation) {
+            stamp[to] = generation;
+            closed[to] = false;
+        } else if (cost >= g[to]) {
+            return size;
+        }
+        g[to] = cost;
+        parent[to] = from;
+        return push(size, to, cost + manhattan(to, targetCol, targetRow));
+    }
+
+    private static int manhattan(int cell, int targetCol, int targetRow) {
+        return Math.abs(cell % COLS - targetCol) + Math.abs(cell / COLS - targetRow);
+    }
+
+    private int push(int size, int cell, int key) {
+        int i = size++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heapKey[p] <= key) break;
+            heap[i] = heap[p];
+            heapKey[i] = heapKey[p];
+            i = p;
+        }
+        heap[i] = cell;
+        heapKey[i] = key;
+        return size;
+    }
+
+    private int pop(int size) {
+        size--;
+        int cell = heap[size], key = heapKey[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heapKey[child + 1] < heapKey[child]) child++;
+            if (heapKey[child] >= key) break;
+            heap[i] = heap[child];
+            heapKey[i] = heapKey[child];
+            i = child;
+        }
+        heap[i] = cell;
+        heapKey[i] = key;
+        return size;
+    }
+}
@@ -0,0 +1,104 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// 绘制开销：整屏重画（原paintComponent的绘制内容）与增量渲染，目标为离屏BufferedImage
+// 两个基准都先推进一个tick让画面发生变化，这部分开销可参照WorldTickBenchmark扣除
+// worldSize为10000时敌人散布在10000x10000的地图上，摄像机跟随玩家，绘制开销只与视口内的实体有关
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    @Param({"10", "100", "1000"})
+    public int enemies;
+
+    @Param({"800", "10000"})
+    public int worldSize;
+
+    private GameWorld world;
+    private GameRenderer renderer;
+    private IncrementalRenderer incrementalRenderer;
+    private BufferedImage target;
+    private final Camera camera = new Camera(GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT);
+    private final TickInput input = new TickInput();
+    private PlayerController controller;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        BufferedImage player = ImageIO.read(getClass().getResource("/zhutanke.png"));
+        BufferedImage enemy = ImageIO.read(getClass().getResource("/ai.png"));
+        BufferedImage bullet = new BufferedImage(15, 15, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = bullet.createGraphics();
+        g2d.drawImage(ImageIO.read(getClass().getResource("/bullet.png")), 0, 0, 15, 15, null);
+        g2d.dispose();
+
+        // 基准只关心绘制开销，各方向使用同一帧
+        BufferedImage[] frames = new BufferedImage[GameRenderer.SPRITE_COUNT];
+        for (int i = 0; i < 4; i++) {
+            frames[GameRenderer.PLAYER_SPRITES + i] = player;
+            frames[GameRenderer.ENEMY_SPRITES + i] = enemy;
+        }
+        frames[GameRenderer.BULLET_SPRITE] = bullet;
+        renderer = new GameRenderer(new SpriteAtlas(null, frames));
+        incrementalRenderer = new IncrementalRenderer(renderer, null, GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT);
+        target = new BufferedImage(GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+        if (worldSize > GameWorld.MAP_WIDTH) {
+            int cols = worldSize / TileMap.TILE_SIZE;
+            world = new GameWorld(3, 1, player.getWidth(), enemy.getWidth(), 15, TileMap.generate(cols, cols, 1));
+            GameRandom rand = new GameRandom(enemies);
+            while (world.getEnemyCount() < enemies) {
+                int x = rand.nextInt(worldSize - enemy.getWidth()), y = rand.nextInt(worldSize - enemy.getHeight());
+                if (!world.getMap().isBlocked(x, y, enemy.getWidth(), enemy.getHeight())) {
+                    world.addEnemy(x, y);
+                }
+            }
+        } else {
+            world = new GameWorld(3, 1, player.getWidth(), enemy.getWidth(), 15);
+        }
+        controller = new RandomPlayerController(1);
+        world.getTanks().setPlayerInvulnerable(true);
+        while (world.getEnemyCount() < enemies) {
+            world.spawnEnemy();
+        }
+        for (int i = 0; i < 200; i++) { // 先跑一段让子弹铺开
+            advance();
+        }
+    }
+
+    private void advance() {
+        controller.update(world, input);
+        world.step(input);
+        while (world.getEnemyCount() < enemies) {
+            world.spawnEnemy();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage fullRedraw() {
+        advance();
+        Graphics2D g = target.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT);
+        camera.follow(world.getTanks(), TankStore.PLAYER, world.getMap(), 1);
+        renderer.render(g, world, camera);
+        g.dispose();
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage incremental() {
+        advance();
+        incrementalRenderer.update(world);
+        return incrementalRenderer.getFrame();
+    }
+}
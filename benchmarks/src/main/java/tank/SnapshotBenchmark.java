@@ -0,0 +1,68 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// 联机快照的编解码开销：相邻两个tick的世界状态做差分（服务器每个客户端一次）和还原（客户端每份快照一次）
+// 完整快照作为对照，编码结果的字节数见setup打印
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    @Param({"10", "100", "1000"})
+    public int enemies;
+
+    private byte[] base, target;
+    private ByteBuffer encoded, full, out;
+
+    @Setup
+    public void setup() {
+        GameWorld world = new GameWorld(3, 1);
+        PlayerController controller = new RandomPlayerController(1);
+        TickInput input = new TickInput();
+        world.getTanks().setPlayerInvulnerable(true);
+        while (world.getEnemyCount() < enemies) {
+            world.spawnEnemy();
+        }
+        for (int i = 0; i < 200; i++) { // 先跑一段让敌人散开、子弹铺开
+            controller.update(world, input);
+            world.step(input);
+        }
+        base = ReplayWriter.stateOf(world);
+        controller.update(world, input);
+        world.step(input);
+        target = ReplayWriter.stateOf(world);
+
+        out = ByteBuffer.allocate(SnapshotDelta.maxEncodedSize(target.length));
+        encoded = ByteBuffer.allocate(out.capacity());
+        SnapshotDelta.encode(base, base.length, target, target.length, encoded);
+        encoded.flip();
+        full = ByteBuffer.allocate(out.capacity());
+        SnapshotDelta.encode(null, 0, target, target.length, full);
+        full.flip();
+        System.out.printf("%nstate=%d bytes delta=%d bytes full=%d bytes%n", target.length, encoded.remaining(), full.remaining());
+    }
+
+    @Benchmark
+    public ByteBuffer encodeDelta() {
+        out.clear();
+        SnapshotDelta.encode(base, base.length, target, target.length, out);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] decodeDelta() throws IOException {
+        return SnapshotDelta.decode(base, encoded.duplicate());
+    }
+
+    @Benchmark
+    public byte[] decodeFull() throws IOException {
+        return SnapshotDelta.decode(null, full.duplicate());
+    }
+}
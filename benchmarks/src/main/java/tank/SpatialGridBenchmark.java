@@ -0,0 +1,82 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 子弹-坦克碰撞：逐个遍历 vs 均匀网格，坦克和子弹数量相同，世界面积随数量放大以保持密度不变
+// 两种方式都以单次子弹查询计时；逐个遍历只抽样部分子弹，否则10万实体时单次调用过慢
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialGridBenchmark {
+    private static final int TANK_SIZE = 31;
+    private static final int BULLET_SIZE = 15;
+    private static final int AREA_PER_TANK = GameWorld.MAP_WIDTH * GameWorld.MAP_HEIGHT / 50; // 约为满屏50个敌人的密度
+
+    @Param({"1000", "10000", "100000"})
+    public int entities;
+
+    private TankStore tanks; // 槽位0是不参与碰撞的玩家，敌人从槽位1开始
+    private BulletPool bullets;
+    private boolean[] destroyed;
+    private SpatialGrid grid;
+    private int next;
+
+    @Setup
+    public void setup() {
+        int side = (int) Math.sqrt((double) AREA_PER_TANK * entities);
+        Random rand = new Random(entities);
+        GameRandom tankRand = new GameRandom(entities);
+        tanks = new TankStore(entities + 1);
+        tanks.addPlayer(0, 0, Direction.UP, 1, TANK_SIZE, TANK_SIZE);
+        bullets = new BulletPool(BULLET_SIZE, entities);
+        for (int i = 0; i < entities; i++) {
+            tanks.addEnemy(rand.nextInt(side - TANK_SIZE), rand.nextInt(side - TANK_SIZE), Direction.UP, TANK_SIZE, TANK_SIZE, tankRand);
+            bullets.add(rand.nextInt(side - BULLET_SIZE), rand.nextInt(side - BULLET_SIZE), Direction.UP, BulletPool.OWNER_PLAYER);
+        }
+        destroyed = new boolean[tanks.size()];
+        grid = new SpatialGrid(side, side, 64);
+        grid.build(tanks);
+
+        // 校验：两种方式命中同一辆坦克
+        for (int i = 0; i < Math.min(entities, 2000); i++) {
+            int expected = bruteForceFirstHit(i);
+            int actual = grid.firstHit(bullets, i, tanks, destroyed);
+            if (expected != actual) {
+                throw new IllegalStateException("hit mismatch for bullet " + i + ": " + expected + " vs " + actual);
+            }
+        }
+    }
+
+    @Benchmark
+    public void gridBuild() {
+        grid.build(tanks);
+    }
+
+    @Benchmark
+    public int gridQuery() {
+        int bullet = next++ % entities;
+        return grid.firstHit(bullets, bullet, tanks, destroyed);
+    }
+
+    @Benchmark
+    public int bruteForceQuery() {
+        int bullet = next++ % entities;
+        return bruteForceFirstHit(bullet);
+    }
+
+    // 与原先GamePanel中的双重循环一致：按槽位顺序找第一辆相交的敌人
+    private int bruteForceFirstHit(int bullet) {
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            if (bullets.checkCollision(bullet, tanks, t)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+}
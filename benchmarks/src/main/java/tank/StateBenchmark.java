@@ -0,0 +1,81 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// 倒带抓取一份快照、存档和读档的开销；10万敌人时放在250x250瓦片的大地图上
+// 倒带每10个tick抓取一次，capture除以10再与WorldTickBenchmark的tick对比即为摊到每个tick的开销
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateBenchmark {
+    @Param({"50", "1000", "100000"})
+    public int enemies;
+
+    private GameWorld world;
+    private RewindBuffer rewind;
+    private SaveGame saveGame;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        if (enemies > 10000) {
+            world = new GameWorld(3, 1, 130, 31, 15, TileMap.generate(250, 250, 1));
+            TileMap map = world.getMap();
+            GameRandom rand = new GameRandom(enemies);
+            while (world.getEnemyCount() < enemies) {
+                int x = rand.nextInt(map.getWidth() - 31), y = rand.nextInt(map.getHeight() - 31);
+                if (!map.isBlocked(x, y, 31, 31)) {
+                    world.addEnemy(x, y);
+                }
+            }
+        } else {
+            world = new GameWorld(3, 1, 130, 31, 15);
+            while (world.getEnemyCount() < enemies) {
+                world.spawnEnemy();
+            }
+        }
+        PlayerController controller = new RandomPlayerController(1);
+        TickInput input = new TickInput();
+        world.getTanks().setPlayerInvulnerable(true);
+        for (int i = 0; i < (enemies > 10000 ? 1 : 200); i++) { // 先跑一段让子弹铺开
+            controller.update(world, input);
+            world.step(input);
+        }
+        rewind = new RewindBuffer(1, RewindBuffer.DEFAULT_SLOTS);
+        file = Files.createTempFile("tank", ".tks");
+        saveGame = new SaveGame(file);
+        saveGame.save(world);
+        System.out.printf("%nstate=%d bytes%n", Files.size(file) - SaveGame.HEADER_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int capture() {
+        rewind.clear(); // 同一tick只抓一次，清空后每次都完整写一份
+        rewind.capture(world);
+        return rewind.size();
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        saveGame.save(world);
+        return file;
+    }
+
+    @Benchmark
+    public GameWorld load() throws IOException {
+        return saveGame.load();
+    }
+}
@@ -0,0 +1,89 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 单辆坦克的移动开销：玩家按键移动，以及敌人的各个移动策略（槽位0是玩家，槽位1是敌人）
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TankBenchmark {
+    private static final int PLAYER = TankStore.PLAYER;
+    private static final int ENEMY = TankStore.FIRST_ENEMY;
+
+    private TankStore tanks;
+    private TankStore walledTanks; // 在远大于窗口、布满墙体的地图上移动
+    private int tick;
+
+    @Setup
+    public void setup() {
+        tanks = new TankStore(2);
+        tanks.addPlayer(GameWorld.MAP_WIDTH / 2, GameWorld.MAP_HEIGHT - 50, Direction.UP, 5, 130, 130);
+        tanks.addEnemy(100, 0, Direction.DOWN, 31, 31, new GameRandom(1));
+
+        TileMap map = TileMap.generate(250, 250, 1);
+        walledTanks = new TankStore(2);
+        walledTanks.setMap(map);
+        walledTanks.addPlayer(map.getWidth() / 2, map.getHeight() - 200, Direction.UP, 5, 130, 130);
+        walledTanks.addEnemy(100, 0, Direction.DOWN, 31, 31, new GameRandom(1));
+    }
+
+    // 玩家每64个tick换一次按键组合，持续在地图内来回移动
+    @Benchmark
+    public int tankMove() {
+        int keys = ((tick++ >> 6) & 1) == 0 ? TickInput.UP | TickInput.LEFT : TickInput.DOWN | TickInput.RIGHT;
+        tanks.setInput(PLAYER, keys);
+        tanks.movePlayer(PLAYER);
+        return tanks.getX(PLAYER);
+    }
+
+    @Benchmark
+    public int enemyRandomMove() {
+        tanks.randomMove(ENEMY);
+        return tanks.getX(ENEMY);
+    }
+
+    @Benchmark
+    public int enemySeekPlayerMove() {
+        tanks.seekPlayerMove(ENEMY);
+        return tanks.getX(ENEMY);
+    }
+
+    @Benchmark
+    public int enemyPatrolMove() {
+        tanks.patrolMove(ENEMY);
+        return tanks.getX(ENEMY);
+    }
+
+    @Benchmark
+    public int enemyRetreatMove() {
+        tanks.retreatMove(ENEMY);
+        return tanks.getX(ENEMY);
+    }
+
+    // 完整的敌人moveEnemy()：策略计时、策略切换和边界检测
+    @Benchmark
+    public int enemyMove() {
+        tanks.moveEnemy(ENEMY);
+        return tanks.getX(ENEMY);
+    }
+
+    // 墙体位图查询的开销，应与地图大小无关
+    @Benchmark
+    public int tankMoveWalled() {
+        int keys = ((tick++ >> 6) & 1) == 0 ? TickInput.UP | TickInput.LEFT : TickInput.DOWN | TickInput.RIGHT;
+        walledTanks.setInput(PLAYER, keys);
+        walledTanks.movePlayer(PLAYER);
+        return walledTanks.getX(PLAYER);
+    }
+
+    @Benchmark
+    public int enemyMoveWalled() {
+        walledTanks.moveEnemy(ENEMY);
+        return walledTanks.getX(ENEMY);
+    }
+}
@@ -0,0 +1,65 @@
+package tank;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 完整tick的开销：敌人数量固定在参数值附近，玩家由随机控制器驱动；10万敌人时放在250x250瓦片的大地图上
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldTickBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int enemies;
+
+    @Param({"true", "false"})
+    public boolean parallelAi; // 对比并行和串行的敌人AI
+
+    @Param({"0", "1024"})
+    public int aiBudget; // 0为所有敌人每tick完整决策，否则按距离分级降低远处的决策频率
+
+    private GameWorld world;
+    private PlayerController controller;
+    private final TickInput input = new TickInput();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        if (enemies > 10000) {
+            // 大地图上把敌人随机撒在空地上，避免全部挤在出生行
+            world = new GameWorld(3, 1, 130, 31, 15, TileMap.generate(250, 250, 1));
+            TileMap map = world.getMap();
+            GameRandom rand = new GameRandom(enemies);
+            while (world.getEnemyCount() < enemies) {
+                int x = rand.nextInt(map.getWidth() - 31), y = rand.nextInt(map.getHeight() - 31);
+                if (!map.isBlocked(x, y, 31, 31)) {
+                    world.addEnemy(x, y);
+                }
+            }
+        } else {
+            world = new GameWorld(3, 1, 130, 31, 15);
+        }
+        world.setParallelAi(parallelAi);
+        world.setAiBudget(aiBudget);
+        controller = new RandomPlayerController(1);
+        world.getTanks().setPlayerInvulnerable(true); // 保证测量期间玩家不会死亡
+        topUp();
+    }
+
+    // 补充被击毁的敌人，保持实体数量稳定，也避免全灭后游戏结束
+    private void topUp() {
+        while (world.getEnemyCount() < enemies) {
+            world.spawnEnemy();
+        }
+    }
+
+    @Benchmark
+    public long tick() {
+        controller.update(world, input);
+        world.step(input);
+        topUp();
+        return world.getTickCount();
+    }
+}
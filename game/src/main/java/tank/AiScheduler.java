@@ -0,0 +1,128 @@
+package tank;
+
+import java.util.stream.IntStream;
+
+// 敌人AI调度（细节层次）：按与玩家的距离把敌人分为近、中、远三级
+// 近处（视口范围内）每tick完整决策；中远处每隔若干tick决策一次，其余tick沿当前方向惯性移动（见TankStore.coastEnemy）
+// 每辆坦克的决策相位取自自身随机数源的步长，换策略、取撤退流场等开销分散到不同tick；远处的决策周期按每tick预算自动放大
+// 分级、周期和相位只由世界状态和预算决定，回放和联机预测的结果与服务器逐位一致
+class AiScheduler {
+    static final int NEAR = 0;
+    static final int MID = 1;
+    static final int FAR = 2;
+    static final int TIER_COUNT = 3;
+    private static final int NEAR_X = GameWorld.MAP_WIDTH; // 近处：与玩家的水平/垂直距离都在一个视口以内
+    private static final int NEAR_Y = GameWorld.MAP_HEIGHT;
+    private static final int MID_X = GameWorld.MAP_WIDTH * 4;
+    private static final int MID_Y = GameWorld.MAP_HEIGHT * 4;
+    private static final int MID_PERIOD = 4; // 决策周期（tick），必须是2的幂
+    private static final int FAR_PERIOD = 16;
+    private static final int MAX_PERIOD = 128; // 1.28秒；到达上限后即使超出预算也不再放大
+
+    private final int budget; // 中远处每tick的目标决策数
+    private boolean[] decide = new boolean[16]; // 按槽位，本tick是否完整决策
+    private final int[][] tierSlots = new int[TIER_COUNT][16]; // 各级的坦克槽位（升序），前tierTanks[tier]个有效
+    private final int[] tierTanks = new int[TIER_COUNT]; // 本tick各级的坦克数
+    private final int[] tierDecisions = new int[TIER_COUNT]; // 本tick各级完整决策的坦克数
+    private final int[] periods = new int[TIER_COUNT];
+
+    public AiScheduler(int budget) {
+        this.budget = budget;
+    }
+
+    // 在Navigation.prepare()之前串行调用：分级、确定各级周期并标出本tick完整决策的坦克
+    public void schedule(TankStore tanks, long tick) {
+        if (decide.length < tanks.size()) {
+            decide = new boolean[tanks.size() * 2];
+        }
+        for (int tier = NEAR; tier < TIER_COUNT; tier++) {
+            if (tierSlots[tier].length < tanks.size()) tierSlots[tier] = new int[tanks.size() * 2];
+        }
+        classify(tanks);
+        choosePeriods();
+        tierDecisions[NEAR] = tierDecisions[MID] = tierDecisions[FAR] = 0;
+        for (int tier = NEAR; tier < TIER_COUNT; tier++) {
+            int[] slots = tierSlots[tier];
+            int period = periods[tier];
+            for (int i = 0; i < tierTanks[tier]; i++) {
+                int t = slots[i];
+                decide[t] = ((tick + tanks.getAiPhase(t)) & (period - 1)) == 0;
+                if (decide[t]) tierDecisions[tier]++;
+            }
+        }
+    }
+
+    // 推进所有敌人一个tick并得出各自是否开火（fires按槽位），不写子弹池；按classify()得出的各级槽位表逐级推进，各级分别计时记入profiler
+    public void update(TankStore tanks, boolean[] fires, boolean parallel, TickProfiler profiler) {
+        for (int tier = NEAR; tier < TIER_COUNT; tier++) {
+            long start = profiler.start();
+            int[] slots = tierSlots[tier];
+            int count = tierTanks[tier];
+            if (parallel) {
+                IntStream.range(0, count).parallel().forEach(i -> updateTank(tanks, slots[i], fires));
+            } else {
+                for (int i = 0; i < count; i++) {
+                    updateTank(tanks, slots[i], fires);
+                }
+            }
+            profiler.record(TickProfiler.AI_NEAR + tier, start);
+        }
+        profiler.recordAiTiers(tierTanks, tierDecisions);
+    }
+
+    private void updateTank(TankStore tanks, int t, boolean[] fires) {
+        if (decide[t]) {
+            tanks.moveEnemy(t);
+        } else {
+            tanks.coastEnemy(t);
+        }
+        fires[t] = tanks.tickFireTimer(t);
+    }
+
+    // 本tick完整决策的坦克（按槽位），schedule()之后有效；只有它们需要准备流场
+    public boolean[] getDecisions() {
+        return decide;
+    }
+
+    private void classify(TankStore tanks) {
+        int px = tanks.getX(TankStore.PLAYER), py = tanks.getY(TankStore.PLAYER);
+        tierTanks[NEAR] = tierTanks[MID] = tierTanks[FAR] = 0;
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            int dx = Math.abs(tanks.getX(t) - px), dy = Math.abs(tanks.getY(t) - py);
+            int tier = dx <= NEAR_X && dy <= NEAR_Y ? NEAR : dx <= MID_X && dy <= MID_Y ? MID : FAR;
+            tierSlots[tier][tierTanks[tier]++] = t;
+        }
+    }
+
+    // 先放大远处、再放大中处的周期，直到中远处每tick的决策数不超过预算
+    private void choosePeriods() {
+        periods[NEAR] = 1;
+        periods[MID] = MID_PERIOD;
+        periods[FAR] = FAR_PERIOD;
+        while (tierTanks[MID] / periods[MID] + tierTanks[FAR] / periods[FAR] > budget) {
+            if (periods[FAR] < MAX_PERIOD) {
+                periods[FAR] *= 2;
+            } else if (periods[MID] < periods[FAR]) {
+                periods[MID] *= 2;
+            } else {
+                break;
+            }
+        }
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getTierTanks(int tier) {
+        return tierTanks[tier];
+    }
+
+    public int getTierDecisions(int tier) {
+        return tierDecisions[tier];
+    }
+
+    public int getPeriod(int tier) {
+        return periods[tier];
+    }
+}
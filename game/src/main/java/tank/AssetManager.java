@@ -0,0 +1,227 @@
+package tank;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+
+// 资源管理器：在线程池上并行读取、解码和加工贴图，以future返回GameRenderer图集顺序的全部帧
+// 加工后的帧（坦克四个方向、缩放后的子弹）以ARGB像素写入本地缓存文件，键为源文件内容的CRC32；
+// 之后启动时映射缓存文件直接取像素，跳过解码和旋转，源文件变化后自动重建
+class AssetManager {
+    static final int BULLET_SIZE = 15; // 子弹贴图缩放后的边长
+    static final String PLAYER_IMAGE = "/zhutanke.png";
+    static final String ENEMY_IMAGE = "/ai.png";
+    private static final String BULLET_IMAGE = "/bullet.png";
+    private static final int[] ROTATIONS = {0, 180, 270, 90}; // 按Direction顺序：上、下、左、右
+    private static final int CACHE_MAGIC = 0x544B5343; // "TKSC"
+    private static final int CACHE_VERSION = 1; // 加工方式变化时加一，旧缓存随之失效
+
+    private final Path cacheFile; // 为null时不使用缓存
+    private final ExecutorService executor;
+    private volatile boolean cacheHit;
+    private volatile long loadNanos;
+
+    public AssetManager(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "asset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 按系统属性 tank.cache.dir（默认 ~/.cache/tank，设为空字符串时不缓存）选择缓存文件
+    public static AssetManager fromProperties() {
+        String dir = System.getProperty("tank.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".cache", "tank").toString());
+        return new AssetManager(dir.isEmpty() ? null : Paths.get(dir, "sprites.bin"));
+    }
+
+    // 只能调用一次，加载完成（含写缓存）后线程池关闭；失败时future以异常结束
+    public CompletableFuture<BufferedImage[]> loadSprites() {
+        long start = System.nanoTime();
+        CompletableFuture<byte[]> player = read(PLAYER_IMAGE);
+        CompletableFuture<byte[]> enemy = read(ENEMY_IMAGE);
+        CompletableFuture<byte[]> bullet = read(BULLET_IMAGE);
+        CompletableFuture<BufferedImage[]> frames = CompletableFuture.allOf(player, enemy, bullet).thenCompose(v -> {
+            long key = key(player.join(), enemy.join(), bullet.join());
+            BufferedImage[] cached = readCache(key);
+            if (cached != null) {
+                cacheHit = true;
+                return CompletableFuture.completedFuture(cached);
+            }
+            return process(player.join(), enemy.join(), bullet.join()).thenApply(processed -> {
+                executor.execute(() -> writeCache(key, processed)); // 不耽误首帧
+                return processed;
+            });
+        });
+        return frames.whenComplete((result, error) -> {
+            loadNanos = System.nanoTime() - start;
+            executor.shutdown(); // 已提交的写缓存任务仍会执行
+        });
+    }
+
+    private CompletableFuture<byte[]> read(String resource) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = getClass().getResourceAsStream(resource)) {
+                if (in == null) throw new UncheckedIOException(new NoSuchFileException(resource));
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private static long key(byte[]... sources) {
+        CRC32 crc = new CRC32();
+        for (byte[] source : sources) {
+            crc.update(source);
+        }
+        return crc.getValue();
+    }
+
+    // 三张图并行解码，每个旋转方向和子弹缩放各是一个任务
+    private CompletableFuture<BufferedImage[]> process(byte[] player, byte[] enemy, byte[] bullet) {
+        CompletableFuture<BufferedImage> playerImage = decode(player, PLAYER_IMAGE);
+        CompletableFuture<BufferedImage> enemyImage = decode(enemy, ENEMY_IMAGE);
+        CompletableFuture<BufferedImage> bulletImage = decode(bullet, BULLET_IMAGE);
+
+        List<CompletableFuture<BufferedImage>> frames = new ArrayList<>(Collections.nCopies(GameRenderer.SPRITE_COUNT, null));
+        for (int d = 0; d < ROTATIONS.length; d++) {
+            int degrees = ROTATIONS[d];
+            frames.set(GameRenderer.PLAYER_SPRITES + d, playerImage.thenApplyAsync(image -> rotate(image, degrees), executor));
+            frames.set(GameRenderer.ENEMY_SPRITES + d, enemyImage.thenApplyAsync(image -> rotate(image, degrees), executor));
+        }
+        frames.set(GameRenderer.BULLET_SPRITE, bulletImage.thenApplyAsync(AssetManager::scaleBullet, executor));
+        return CompletableFuture.allOf(frames.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            BufferedImage[] result = new BufferedImage[frames.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = frames.get(i).join();
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<BufferedImage> decode(byte[] source, String resource) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+                if (image == null) throw new IOException("Unsupported image format: " + resource);
+                return image;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private static BufferedImage rotate(BufferedImage image, int degrees) {
+        if (degrees == 0) return image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        BufferedImage rotated = new BufferedImage(width, height, image.getType());
+        Graphics2D g2d = rotated.createGraphics();
+
+        // 设置旋转中心和角度
+        g2d.rotate(Math.toRadians(degrees), width / 2, height / 2);
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+
+        return rotated;
+    }
+
+    private static BufferedImage scaleBullet(BufferedImage image) {
+        BufferedImage resized = new BufferedImage(BULLET_SIZE, BULLET_SIZE, image.getType());
+        Graphics2D g2d = resized.createGraphics();
+        g2d.drawImage(image, 0, 0, BULLET_SIZE, BULLET_SIZE, null);
+        g2d.dispose();
+        return resized;
+    }
+
+    // 缓存格式：魔数、版本、键、帧数，之后每帧宽、高和按行排列的ARGB像素（大端int）
+    private BufferedImage[] readCache(long key) {
+        if (cacheFile == null) return null;
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != CACHE_MAGIC || buffer.getInt() != CACHE_VERSION || buffer.getLong() != key
+                    || buffer.getInt() != GameRenderer.SPRITE_COUNT) {
+                return null;
+            }
+            BufferedImage[] frames = new BufferedImage[GameRenderer.SPRITE_COUNT];
+            for (int i = 0; i < frames.length; i++) {
+                int width = buffer.getInt(), height = buffer.getInt();
+                frames[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                int[] pixels = ((DataBufferInt) frames[i].getRaster().getDataBuffer()).getData();
+                buffer.asIntBuffer().get(pixels);
+                buffer.position(buffer.position() + pixels.length * 4);
+            }
+            return frames;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (BufferUnderflowException e) {
+            System.err.println("Sprite cache is truncated, rebuilding: " + cacheFile);
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reading sprite cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 先写临时文件再改名，并发启动的另一个进程不会读到写了一半的缓存
+    private void writeCache(long key, BufferedImage[] frames) {
+        if (cacheFile == null) return;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path temp = Files.createTempFile(cacheFile.getParent(), "sprites", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeLong(key);
+                out.writeInt(frames.length);
+                for (BufferedImage frame : frames) {
+                    int width = frame.getWidth(), height = frame.getHeight();
+                    out.writeInt(width);
+                    out.writeInt(height);
+                    for (int pixel : frame.getRGB(0, 0, width, height, null, 0, width)) {
+                        out.writeInt(pixel);
+                    }
+                }
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing sprite cache: " + e.getMessage());
+        }
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    // 从loadSprites()调用到future完成的时间
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+}
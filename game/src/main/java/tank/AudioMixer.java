@@ -0,0 +1,187 @@
+package tank;
+
+import javax.sound.sampled.*;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// 音频混音器：启动时把音效一次性解码为PCM，由独立线程混合多个声部后写入同一条SourceDataLine
+// play()只做一次原子自增，不阻塞调用线程；没有音频设备时（如无界面的机器）自动退化为空操作
+class AudioMixer {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 2;
+    private static final AudioFormat MIX_FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+    private static final int BUFFER_FRAMES = 256; // 每次混音的帧数（约5.8毫秒）
+    private static final int LINE_BUFFERS = 4; // 声卡缓冲可容纳的混音块数，决定输出延迟
+    private static final int MAX_SOUNDS = 32;
+
+    private final short[][] sounds = new short[MAX_SOUNDS][]; // 已解码的音效，交错立体声采样
+    private int soundCount;
+    private final AtomicIntegerArray pendingPlays = new AtomicIntegerArray(MAX_SOUNDS); // 每个音效待播放的次数
+
+    // 声部状态只由混音线程访问
+    private final int maxVoices;
+    private final int[] voiceSound; // 正在播放的音效，-1表示空闲
+    private final int[] voicePosition; // 已播放的采样数
+    private SourceDataLine line;
+    private Thread thread;
+    private volatile boolean running;
+
+    public AudioMixer(int maxVoices) {
+        this.maxVoices = maxVoices;
+        this.voiceSound = new int[maxVoices];
+        this.voicePosition = new int[maxVoices];
+        Arrays.fill(voiceSound, -1);
+    }
+
+    // 加载并解码音效，返回音效编号，失败返回-1；须在start()之前调用
+    public int load(String soundPath) {
+        if (soundCount == MAX_SOUNDS) {
+            System.err.println("Too many sounds, skipping: " + soundPath);
+            return -1;
+        }
+        try (InputStream audioStream = getClass().getResourceAsStream(soundPath)) {
+            if (audioStream == null) {
+                System.err.println("Sound file not found: " + soundPath);
+                return -1;
+            }
+
+            // 先解码为同采样率、同声道数的16位PCM，再转换为混音格式
+            AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(audioStream));
+            AudioFormat format = source.getFormat();
+            AudioFormat pcm = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+            byte[] bytes;
+            try (AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, source)) {
+                bytes = decoded.readAllBytes();
+            }
+            short[] samples = new short[bytes.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+            }
+
+            sounds[soundCount] = toMixFormat(samples, format.getChannels(), format.getSampleRate());
+            return soundCount++;
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            System.err.println("Error loading sound: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // 转换为混音格式（最近邻重采样，单声道复制到两个声道）
+    private static short[] toMixFormat(short[] samples, int channels, float sampleRate) {
+        if (channels == CHANNELS && sampleRate == SAMPLE_RATE) {
+            return samples;
+        }
+        int frames = samples.length / channels;
+        int outFrames = (int) ((long) frames * SAMPLE_RATE / sampleRate);
+        short[] out = new short[outFrames * CHANNELS];
+        for (int f = 0; f < outFrames; f++) {
+            int src = (int) ((long) f * frames / outFrames);
+            for (int c = 0; c < CHANNELS; c++) {
+                out[f * CHANNELS + c] = samples[src * channels + Math.min(c, channels - 1)];
+            }
+        }
+        return out;
+    }
+
+    // 打开输出设备并启动混音线程，设备不可用时静默退化为空操作
+    public void start() {
+        try {
+            line = AudioSystem.getSourceDataLine(MIX_FORMAT);
+            line.open(MIX_FORMAT, BUFFER_FRAMES * LINE_BUFFERS * MIX_FORMAT.getFrameSize());
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            line = null;
+            return;
+        }
+
+        running = true;
+        thread = new Thread(this::mixLoop, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    // 请求播放音效，可在任意线程调用，不阻塞
+    public void play(int soundId) {
+        if (soundId < 0 || !running) return;
+        pendingPlays.incrementAndGet(soundId);
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public void close() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (line != null) {
+            line.close();
+        }
+    }
+
+    private void mixLoop() {
+        int[] mix = new int[BUFFER_FRAMES * CHANNELS];
+        byte[] out = new byte[mix.length * 2];
+        while (running) {
+            startPendingVoices();
+
+            Arrays.fill(mix, 0);
+            for (int v = 0; v < maxVoices; v++) {
+                int sound = voiceSound[v];
+                if (sound < 0) continue;
+                short[] samples = sounds[sound];
+                int position = voicePosition[v];
+                int n = Math.min(mix.length, samples.length - position);
+                for (int i = 0; i < n; i++) {
+                    mix[i] += samples[position + i];
+                }
+                voicePosition[v] = position + n;
+                if (voicePosition[v] >= samples.length) {
+                    voiceSound[v] = -1;
+                }
+            }
+
+            // 截断到16位并按小端写出
+            for (int i = 0; i < mix.length; i++) {
+                int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                out[2 * i] = (byte) sample;
+                out[2 * i + 1] = (byte) (sample >> 8);
+            }
+            line.write(out, 0, out.length); // 声卡缓冲满时阻塞，由此控制混音节奏
+        }
+    }
+
+    private void startPendingVoices() {
+        for (int sound = 0; sound < soundCount; sound++) {
+            int plays = Math.min(pendingPlays.getAndSet(sound, 0), maxVoices);
+            for (int p = 0; p < plays; p++) {
+                int voice = allocateVoice();
+                voiceSound[voice] = sound;
+                voicePosition[voice] = 0;
+            }
+        }
+    }
+
+    // 优先使用空闲声部，声部用尽时抢占播放进度最靠后的声部
+    private int allocateVoice() {
+        int oldest = 0;
+        for (int v = 0; v < maxVoices; v++) {
+            if (voiceSound[v] < 0) {
+                return v;
+            }
+            if (voicePosition[v] > voicePosition[oldest]) {
+                oldest = v;
+            }
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,361 @@
+package tank;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 一局的结果，同时作为该局的世界监听器统计击毁和受击次数
+class MatchResult implements WorldListener {
+    static final String COLUMNS = "match,seed,result,ticks,shots,hits,hit_ratio,damage_taken,enemies_left,health_left";
+
+    final int match;
+    final long seed;
+    boolean won;
+    boolean timedOut; // 到达tick上限时仍未分出胜负
+    long ticks;
+    int shots; // 玩家发射的子弹数
+    int hits; // 玩家击毁的敌人数，每颗子弹最多击毁一个
+    int damageTaken;
+    int enemiesLeft;
+    int healthLeft;
+
+    MatchResult(int match, long seed) {
+        this.match = match;
+        this.seed = seed;
+    }
+
+    @Override
+    public void enemyDestroyed(int tank) {
+        hits++;
+    }
+
+    @Override
+    public void playerHit() {
+        damageTaken++;
+    }
+
+    String toCsv() {
+        return String.format(Locale.ROOT, "%d,%d,%s,%d,%d,%d,%.4f,%d,%d,%d", match, seed, won ? "win" : timedOut ? "timeout" : "loss",
+                ticks, shots, hits, shots > 0 ? (double) hits / shots : 0.0, damageTaken, enemiesLeft, healthLeft);
+    }
+}
+
+// 批量无界面对局：每局是独立的世界和控制器（种子为起始种子加局号），在固定线程池上并行运行，
+// 各工作线程从共享计数器领取下一局，长短不一的对局自动均衡到所有核；单局内AI串行，避免与公共ForkJoinPool争用
+// 同一参数下每局的结果与线程数无关，汇总报告胜率、存活时间、射击数和命中率，以及对局/秒
+class BatchRunner {
+    static final String SUMMARY_COLUMNS = "controller,level,fire_interval,strategy_interval,threads,matches,wins,losses,"
+            + "timeouts,win_rate,avg_survival_s,avg_death_s,shots,hits,hit_ratio,avg_damage_taken,seconds,"
+            + "matches_per_s,ticks_per_s";
+
+    private final String controller;
+    private final int level;
+    private final int mapCols; // 大于0时每局按种子生成地图，否则复制关卡地图
+    private final long seed;
+    private final long maxTicks;
+    private final int aiBudget;
+    private final boolean swept;
+    private final boolean ambushAim;
+    private final int fireInterval;
+    private final int strategyInterval;
+    private final int tickMillis;
+    private final TileMap levelMap;
+    private long elapsedNanos;
+
+    public BatchRunner(String controller, int level, int mapCols, long seed, long maxTicks, int aiBudget, boolean swept,
+                       boolean ambushAim, int fireInterval, int strategyInterval, int tickMillis) {
+        this.controller = controller;
+        this.level = level;
+        this.mapCols = mapCols;
+        this.seed = seed;
+        this.maxTicks = maxTicks;
+        this.aiBudget = aiBudget;
+        this.swept = swept;
+        this.ambushAim = ambushAim;
+        this.fireInterval = fireInterval;
+        this.strategyInterval = strategyInterval;
+        this.tickMillis = tickMillis;
+        this.levelMap = mapCols > 0 ? null : TileMap.forLevel(level);
+    }
+
+    // 内置控制器random、hunter、idle，其他名字按类名加载，须实现PlayerController并有(long seed)构造函数
+    static PlayerController newController(String name, long seed) {
+        switch (name) {
+            case "random":
+                return new RandomPlayerController(seed);
+            case "hunter":
+                return new HunterPlayerController(seed);
+            case "idle":
+                return (world, input) -> input.clear();
+            default:
+                try {
+                    return Class.forName(name).asSubclass(PlayerController.class)
+                            .getConstructor(long.class).newInstance(seed);
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown controller " + name + ": " + e, e);
+                }
+        }
+    }
+
+    // 运行第match局直到分出胜负或达到tick上限
+    MatchResult play(int match) {
+        long matchSeed = seed + match;
+        TileMap map = mapCols > 0 ? TileMap.generate(mapCols, mapCols * 3 / 4, matchSeed) : levelMap.copy();
+        GameWorld world = new GameWorld(level, matchSeed, GameWorld.DEFAULT_TANK_SIZE, GameWorld.DEFAULT_TANK_SIZE,
+                GameWorld.DEFAULT_BULLET_SIZE, map);
+        world.setAiBudget(aiBudget);
+        world.setSweptCollision(swept);
+        world.setAmbushAim(ambushAim);
+        world.setEnemyTuning(fireInterval, strategyInterval);
+        world.setTickMillis(tickMillis);
+        world.setParallelAi(false);
+        MatchResult result = new MatchResult(match, matchSeed);
+        world.setListener(result);
+
+        PlayerController player = newController(controller, matchSeed);
+        TickInput input = new TickInput();
+        while (!world.isGameOver() && world.getTickCount() < maxTicks) {
+            player.update(world, input);
+            result.shots += input.getFireCount();
+            world.step(input);
+        }
+        result.won = world.isWon();
+        result.timedOut = !world.isGameOver();
+        result.ticks = world.getTickCount();
+        result.enemiesLeft = world.getEnemyCount();
+        result.healthLeft = world.getTanks().getHealth(TankStore.PLAYER);
+        return result;
+    }
+
+    // 在threads个线程上运行第0..matches-1局，结果按局号排列
+    public MatchResult[] run(int matches, int threads) {
+        MatchResult[] results = new MatchResult[matches];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "batch-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = CompletableFuture.runAsync(() -> {
+                for (int match = next.getAndIncrement(); match < matches; match = next.getAndIncrement()) {
+                    results[match] = play(match);
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(workers).join();
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    // 上一次run()的墙钟时间
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // 汇总一批结果为一行（列见SUMMARY_COLUMNS）；存活时间按游戏时间计，死亡时间只统计输掉的对局
+    public String summarize(MatchResult[] results, int threads) {
+        int wins = 0, losses = 0, timeouts = 0, damage = 0;
+        long ticks = 0, deathTicks = 0, shots = 0, hits = 0;
+        for (MatchResult result : results) {
+            if (result.won) {
+                wins++;
+            } else if (result.timedOut) {
+                timeouts++;
+            } else {
+                losses++;
+                deathTicks += result.ticks;
+            }
+            ticks += result.ticks;
+            shots += result.shots;
+            hits += result.hits;
+            damage += result.damageTaken;
+        }
+        int n = Math.max(1, results.length);
+        double tickSeconds = tickMillis / 1000.0;
+        double seconds = elapsedNanos / 1e9;
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%d,%d,%.4f,%.2f,%.2f,%d,%d,%.4f,%.3f,%.3f,%.1f,%.0f",
+                controller, level, fireInterval, strategyInterval, threads, results.length, wins, losses, timeouts,
+                (double) wins / n, ticks * tickSeconds / n, losses > 0 ? deathTicks * tickSeconds / losses : 0.0,
+                shots, hits, shots > 0 ? (double) hits / shots : 0.0, (double) damage / n, seconds,
+                seconds > 0 ? results.length / seconds : 0.0, seconds > 0 ? ticks / seconds : 0.0);
+    }
+
+    // 用法: java -cp tank.jar tank.BatchRunner [--matches 1000] [--threads CPU数] [--controller random] [--level 3]
+    //       [--cols 0] [--seed 1] [--max-ticks 60000] [--ai-budget 0] [--swept true] [--ambush-aim true]
+    //       [--fire-interval 60] [--strategy-interval 300] [--tick-millis 10] [--warmup 0] [--scaling false] [--csv 文件]
+    // 控制器见newController()；--warmup先跑若干局预热JIT，不计入报告
+    // --tick-millis为每个tick代表的游戏时间（见GameWorld.setTickMillis），两个间隔仍按默认长度的tick给出，
+    // --max-ticks默认为10分钟游戏时间
+    // --scaling true 时依次用1、2、4……直到threads个线程运行同一批对局，报告加速比，并核对各次的逐局结果一致
+    // --csv 写入逐局结果（列见MatchResult.COLUMNS），汇总行附在末尾的注释中
+    public static void main(String[] args) throws IOException {
+        int matches = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String controller = "random";
+        int level = 3;
+        int mapCols = 0;
+        long seed = 1;
+        long maxTicks = -1; // 默认10分钟游戏时间，按tick长度换算
+        int aiBudget = 0;
+        boolean swept = true;
+        boolean ambushAim = true;
+        int fireInterval = TankStore.DEFAULT_FIRE_INTERVAL;
+        int strategyInterval = TankStore.DEFAULT_STRATEGY_CHANGE_INTERVAL;
+        int tickMillis = GameWorld.TICK_MILLIS;
+        int warmup = 0;
+        boolean scaling = false;
+        String csv = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for option " + args[i]);
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--matches":
+                    matches = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--controller":
+                    controller = args[i + 1];
+                    break;
+                case "--level":
+                    level = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--cols":
+                    mapCols = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--max-ticks":
+                    maxTicks = Long.parseLong(args[i + 1]);
+                    break;
+                case "--ai-budget":
+                    aiBudget = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--swept":
+                    swept = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--ambush-aim":
+                    ambushAim = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--fire-interval":
+                    fireInterval = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--strategy-interval":
+                    strategyInterval = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--tick-millis":
+                    tickMillis = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--scaling":
+                    scaling = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--csv":
+                    csv = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        try {
+            newController(controller, seed);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        if (tickMillis < GameWorld.MIN_TICK_MILLIS || tickMillis > GameWorld.MAX_TICK_MILLIS) {
+            System.err.println("--tick-millis must be between " + GameWorld.MIN_TICK_MILLIS + " and " + GameWorld.MAX_TICK_MILLIS);
+            System.exit(2);
+        }
+        if (maxTicks < 0) {
+            maxTicks = 600_000 / tickMillis;
+        }
+
+        BatchRunner runner = new BatchRunner(controller, level, mapCols, seed, maxTicks, aiBudget, swept,
+                ambushAim, fireInterval, strategyInterval, tickMillis);
+        List<String> header = new ArrayList<>();
+        header.add(String.format("# controller=%s level=%d map=%s seed=%d maxTicks=%d aiBudget=%d swept=%b ambushAim=%b fireInterval=%d strategyInterval=%d tickMillis=%d",
+                controller, level, mapCols > 0 ? mapCols + "x" + mapCols * 3 / 4 : "level", seed, maxTicks, aiBudget,
+                swept, ambushAim, fireInterval, strategyInterval, tickMillis));
+        header.add(String.format("# java=%s %s cpus=%d maxHeap=%dMB", System.getProperty("java.vm.name"),
+                System.getProperty("java.vm.version"), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() >> 20));
+        for (String line : header) {
+            System.out.println(line);
+        }
+        System.out.println(SUMMARY_COLUMNS);
+
+        if (warmup > 0) {
+            runner.run(warmup, threads);
+        }
+        List<Integer> threadCounts = new ArrayList<>();
+        if (scaling) {
+            for (int n = 1; n < threads; n *= 2) {
+                threadCounts.add(n);
+            }
+        }
+        threadCounts.add(threads);
+
+        MatchResult[] results = null;
+        String summary = null;
+        String[] firstRows = null;
+        double baseline = 0;
+        for (int n : threadCounts) {
+            results = runner.run(matches, n);
+            summary = runner.summarize(results, n);
+            System.out.println(summary);
+            String[] rows = new String[results.length];
+            for (int i = 0; i < results.length; i++) {
+                rows[i] = results[i].toCsv();
+            }
+            double rate = matches * 1e9 / runner.getElapsedNanos();
+            if (firstRows == null) {
+                firstRows = rows;
+                baseline = rate;
+            } else {
+                System.out.printf(Locale.ROOT, "# threads=%d speedup=%.2f efficiency=%.0f%%%n", n, rate / baseline,
+                        100 * rate / baseline / n);
+                if (!Arrays.equals(rows, firstRows)) {
+                    System.out.println("# WARNING: per-match results differ from the 1-thread run");
+                }
+            }
+        }
+
+        if (csv != null) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(csv)))) {
+                for (String line : header) {
+                    out.println(line);
+                }
+                out.println(MatchResult.COLUMNS);
+                for (MatchResult result : results) {
+                    out.println(result.toCsv());
+                }
+                out.println("# " + SUMMARY_COLUMNS);
+                out.println("# " + summary);
+            }
+        }
+    }
+}
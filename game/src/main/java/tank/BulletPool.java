@@ -0,0 +1,355 @@
+package tank;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 子弹池：以结构数组保存所有子弹，发射、移动和回收在稳定状态下不分配内存
+// 存活子弹始终紧凑排在[0, count)，回收时原地按顺序压缩，数组尾部即空闲槽位
+class BulletPool {
+    static final byte OWNER_PLAYER = 0;
+    static final byte OWNER_ENEMY = 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    static final int BULLET_SPEED = 10; // 默认tick长度下的速度，也是所有实体每tick的最大位移
+    private static final byte STOP_NONE = 0; // 连续碰撞模式下本tick移动终止的原因
+    private static final byte STOP_WALL = 1;
+    private static final byte STOP_BOUNDS = 2;
+
+    private final int bulletSize; // 子弹边长（取自贴图，无贴图时为默认值）
+    private int[] x, y;
+    private int[] prevX, prevY; // 本tick开始时（或发射时）的位置，用于渲染插值和连续碰撞，不属于需要保存的状态
+    private int[] speed;
+    private byte[] direction; // Direction序号
+    private byte[] owner;
+    private boolean[] active; // 命中后置为false，下一次移动时回收
+    private int[] travel; // 连续碰撞模式：本tick实际移动的距离，撞墙或出界时短于speed
+    private byte[] stop; // 连续碰撞模式：本tick移动终止的原因，命中判定之后由resolveStops()处理
+    private int count;
+    private TileMap map = TileMap.DEFAULT; // 边界和墙体，命中砖墙时由子弹摧毁
+    private boolean swept;
+    private int bulletSpeed = BULLET_SPEED; // 新发射子弹每tick的位移，见setTickMillis()
+    private WorldListener listener = WorldListener.NONE; // 通知子弹撞墙
+
+    public BulletPool(int bulletSize, int initialCapacity) {
+        this.bulletSize = bulletSize;
+        int capacity = Math.max(1, initialCapacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        prevX = new int[capacity];
+        prevY = new int[capacity];
+        speed = new int[capacity];
+        direction = new byte[capacity];
+        owner = new byte[capacity];
+        active = new boolean[capacity];
+        travel = new int[capacity];
+        stop = new byte[capacity];
+    }
+
+    // 添加一颗子弹，返回其下标；只有超出容量时才扩容
+    public int add(int bulletX, int bulletY, Direction bulletDirection, byte bulletOwner) {
+        if (count == x.length) {
+            grow();
+        }
+        int i = count++;
+        x[i] = bulletX;
+        y[i] = bulletY;
+        prevX[i] = bulletX; // 从发射点开始插值
+        prevY[i] = bulletY;
+        speed[i] = bulletSpeed;
+        direction[i] = (byte) bulletDirection.ordinal();
+        owner[i] = bulletOwner;
+        active[i] = true;
+        return i;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        active = Arrays.copyOf(active, capacity);
+        travel = Arrays.copyOf(travel, capacity);
+        stop = Arrays.copyOf(stop, capacity);
+    }
+
+    // 移动所有子弹并回收失效的子弹（超出边界、撞墙，或上一tick已命中），存活子弹保持原有先后顺序
+    // 连续碰撞模式下撞墙、出界的子弹停在接触点，仍然存活到命中判定之后，见resolveStops()
+    public void update() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (active[i]) {
+                if (swept) {
+                    sweep(i);
+                } else {
+                    move(i);
+                }
+            }
+            if (!active[i]) {
+                continue;
+            }
+            if (kept != i) {
+                x[kept] = x[i];
+                y[kept] = y[i];
+                prevX[kept] = prevX[i];
+                prevY[kept] = prevY[i];
+                speed[kept] = speed[i];
+                direction[kept] = direction[i];
+                owner[kept] = owner[i];
+                active[kept] = true;
+                travel[kept] = travel[i];
+                stop[kept] = stop[i];
+            }
+            kept++;
+        }
+        count = kept;
+    }
+
+    private void move(int i) {
+        switch (DIRECTIONS[direction[i]]) {
+            case UP:
+                y[i] -= speed[i];
+                if (y[i] < 0) active[i] = false; // 子弹超出边界
+                break;
+            case DOWN:
+                y[i] += speed[i];
+                if (y[i] > map.getHeight()) active[i] = false;
+                break;
+            case LEFT:
+                x[i] -= speed[i];
+                if (x[i] < 0) active[i] = false;
+                break;
+            case RIGHT:
+                x[i] += speed[i];
+                if (x[i] > map.getWidth()) active[i] = false;
+                break;
+        }
+        // 撞墙的子弹消失，覆盖到的砖墙被摧毁
+        if (active[i] && map.hitBullet(x[i], y[i], bulletSize)) {
+            active[i] = false;
+            listener.bulletHitWall(x[i] + bulletSize / 2, y[i] + bulletSize / 2);
+        }
+    }
+
+    // 连续碰撞：沿运动方向求本tick最早越过地图边界或碰到墙的距离，子弹停在该处
+    // 越界的判定与move()相同（左上角坐标超出[0, 宽高]），墙只在命中判定之后处理，先碰到坦克的子弹不会再撞墙
+    private void sweep(int i) {
+        Direction dir = DIRECTIONS[direction[i]];
+        int bound;
+        switch (dir) {
+            case UP:
+                bound = y[i];
+                break;
+            case DOWN:
+                bound = map.getHeight() - y[i];
+                break;
+            case LEFT:
+                bound = x[i];
+                break;
+            default:
+                bound = map.getWidth() - x[i];
+                break;
+        }
+        int distance = speed[i];
+        byte reason = STOP_NONE;
+        if (distance > bound) {
+            distance = Math.max(bound, 0);
+            reason = STOP_BOUNDS;
+        }
+        int wall = map.sweepBullet(x[i], y[i], bulletSize, dir, distance);
+        if (wall >= 0) {
+            distance = wall;
+            reason = STOP_WALL;
+        }
+        travel[i] = distance;
+        stop[i] = reason;
+        x[i] += dx(dir) * distance;
+        y[i] += dy(dir) * distance;
+    }
+
+    private static int dx(Direction dir) {
+        return dir == Direction.LEFT ? -1 : dir == Direction.RIGHT ? 1 : 0;
+    }
+
+    private static int dy(Direction dir) {
+        return dir == Direction.UP ? -1 : dir == Direction.DOWN ? 1 : 0;
+    }
+
+    // 连续碰撞模式：在坦克命中判定之后调用，本tick撞墙或出界、且没有先命中坦克的子弹失效，撞到的砖墙被摧毁
+    public void resolveStops() {
+        for (int i = 0; i < count; i++) {
+            if (!active[i] || stop[i] == STOP_NONE) continue;
+            if (stop[i] == STOP_WALL) {
+                // 子弹停在墙外缘，向前一个像素与墙重叠
+                Direction dir = DIRECTIONS[direction[i]];
+                map.hitBullet(x[i] + dx(dir), y[i] + dy(dir), bulletSize);
+                listener.bulletHitWall(x[i] + bulletSize / 2, y[i] + bulletSize / 2);
+            }
+            active[i] = false;
+        }
+    }
+
+    // 连续碰撞：子弹从本tick起点匀速移动（中途停下后不再移动），坦克从本tick开始时的位置匀速移动到当前位置，
+    // 返回两者最早相交的时刻（以一个tick为单位，在[0, 1]内），不相交时返回-1；与checkCollision一样只接触边缘不算相交
+    public double timeOfImpact(int i, TankStore tanks, int t) {
+        if (!active[i]) return -1;
+
+        int tankWidth = tanks.getWidth(t);
+        int tankHeight = tanks.getHeight(t);
+        if (bulletSize <= 0 || tankWidth <= 0 || tankHeight <= 0) return -1;
+        Direction dir = DIRECTIONS[direction[i]];
+        // 每个轴上相交的时刻是开区间，取交集后再与子弹移动的时段[0, end]求交
+        double lo = Double.NEGATIVE_INFINITY, hi = Double.POSITIVE_INFINITY;
+        int offsetX = prevX[i] - tanks.getPrevX(t);
+        int velocityX = dx(dir) * speed[i] - (tanks.getX(t) - tanks.getPrevX(t));
+        if (velocityX == 0) {
+            if (offsetX <= -bulletSize || offsetX >= tankWidth) return -1;
+        } else {
+            double a = (double) (-bulletSize - offsetX) / velocityX, b = (double) (tankWidth - offsetX) / velocityX;
+            lo = Math.max(lo, Math.min(a, b));
+            hi = Math.min(hi, Math.max(a, b));
+        }
+        int offsetY = prevY[i] - tanks.getPrevY(t);
+        int velocityY = dy(dir) * speed[i] - (tanks.getY(t) - tanks.getPrevY(t));
+        if (velocityY == 0) {
+            if (offsetY <= -bulletSize || offsetY >= tankHeight) return -1;
+        } else {
+            double a = (double) (-bulletSize - offsetY) / velocityY, b = (double) (tankHeight - offsetY) / velocityY;
+            lo = Math.max(lo, Math.min(a, b));
+            hi = Math.min(hi, Math.max(a, b));
+        }
+        double end = speed[i] > 0 ? (double) travel[i] / speed[i] : 0;
+        if (lo >= hi || lo >= end || hi <= 0) return -1;
+        return Math.max(lo, 0);
+    }
+
+    // 整数AABB相交判断，与Rectangle.intersects结果一致
+    public boolean checkCollision(int i, TankStore tanks, int t) {
+        if (!active[i]) return false; // 无效子弹不检测碰撞
+
+        int tankWidth = tanks.getWidth(t);
+        int tankHeight = tanks.getHeight(t);
+        if (bulletSize <= 0 || tankWidth <= 0 || tankHeight <= 0) return false;
+        int tankX = tanks.getX(t), tankY = tanks.getY(t);
+        return tankX < x[i] + bulletSize && tankY < y[i] + bulletSize
+                && x[i] < tankX + tankWidth && y[i] < tankY + tankHeight;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getPrevX(int i) {
+        return prevX[i];
+    }
+
+    public int getPrevY(int i) {
+        return prevY[i];
+    }
+
+    // 每个tick开始时记下所有子弹的位置，渲染时在它和当前位置之间插值
+    public void savePositions() {
+        System.arraycopy(x, 0, prevX, 0, count);
+        System.arraycopy(y, 0, prevY, 0, count);
+    }
+
+    // 渲染位置：alpha为0时是本tick开始时（或发射时）的位置，为1时是当前位置
+    public int getRenderX(int i, double alpha) {
+        return prevX[i] + (int) Math.round((x[i] - prevX[i]) * alpha);
+    }
+
+    public int getRenderY(int i, double alpha) {
+        return prevY[i] + (int) Math.round((y[i] - prevY[i]) * alpha);
+    }
+
+    public Direction getDirection(int i) {
+        return DIRECTIONS[direction[i]];
+    }
+
+    public byte getOwner(int i) {
+        return owner[i];
+    }
+
+    public boolean isActive(int i) {
+        return active[i];
+    }
+
+    public void setActive(int i, boolean value) {
+        active[i] = value;
+    }
+
+    // 保存/恢复全部子弹（回放关键帧用）
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(x[i]);
+            out.writeInt(y[i]);
+            out.writeInt(speed[i]);
+            out.writeByte(direction[i]);
+            out.writeByte(owner[i]);
+            out.writeBoolean(active[i]);
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        count = 0;
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            if (count == x.length) {
+                grow();
+            }
+            x[i] = in.readInt();
+            y[i] = in.readInt();
+            prevX[i] = x[i]; // 载入的状态不插值
+            prevY[i] = y[i];
+            speed[i] = in.readInt();
+            direction[i] = in.readByte();
+            owner[i] = in.readByte();
+            active[i] = in.readBoolean();
+            count++;
+        }
+    }
+
+    public void setMap(TileMap map) {
+        this.map = map;
+    }
+
+    public void setListener(WorldListener listener) {
+        this.listener = listener;
+    }
+
+    // 连续碰撞：子弹沿路径检测墙、边界和坦克（timeOfImpact），每tick的位移大于坦克和墙的尺寸时也不会穿过
+    public void setSwept(boolean swept) {
+        this.swept = swept;
+    }
+
+    // 新发射的子弹按tick长度换算速度（见GameWorld.setTickMillis），已有子弹的速度属于状态，不变
+    public void setTickMillis(int tickMillis) {
+        bulletSpeed = GameWorld.scaleSpeed(BULLET_SPEED, tickMillis);
+    }
+
+    // 新发射子弹每tick的位移，也是所有实体每tick的最大位移
+    public int getSpeed() {
+        return bulletSpeed;
+    }
+
+    public int getBulletSize() {
+        return bulletSize;
+    }
+}
@@ -0,0 +1,41 @@
+package tank;
+
+// 摄像机：视口左上角在世界中的位置，屏幕坐标 = 世界坐标 - (x, y)
+// 跟随玩家坦克中心（与实体相同的插值位置），到地图边缘时停住；地图比视口小时固定在原点
+class Camera {
+    private final int width, height; // 视口尺寸（屏幕像素）
+    private int x, y;
+
+    public Camera(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void follow(TankStore tanks, int t, TileMap map, double alpha) {
+        int centerX = tanks.getRenderX(t, alpha) + tanks.getWidth(t) / 2;
+        int centerY = tanks.getRenderY(t, alpha) + tanks.getHeight(t) / 2;
+        x = Math.max(0, Math.min(centerX - width / 2, map.getWidth() - width));
+        y = Math.max(0, Math.min(centerY - height / 2, map.getHeight() - height));
+    }
+
+    public void moveTo(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
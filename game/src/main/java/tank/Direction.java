@@ -0,0 +1,6 @@
+package tank;
+
+// 方向枚举
+enum Direction {
+    UP, DOWN, LEFT, RIGHT
+}
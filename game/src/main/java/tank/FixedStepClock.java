@@ -0,0 +1,40 @@
+package tank;
+
+// 固定步长时钟：按真实流逝时间累积，每满一个tick推进一步，模拟速度与帧率无关
+// 剩余不足一个tick的时间就是渲染插值系数；一帧最多追赶maxSteps个tick，更久的停顿（对话框、调试断点）直接丢弃
+class FixedStepClock {
+    private final long tickNanos;
+    private final int maxSteps;
+    private long last;
+    private long accumulator;
+    private boolean started;
+
+    public FixedStepClock(long tickNanos, int maxSteps) {
+        this.tickNanos = tickNanos;
+        this.maxSteps = maxSteps;
+    }
+
+    // 返回本帧应推进的tick数
+    public int advance(long now) {
+        if (!started) {
+            started = true;
+            last = now;
+        }
+        accumulator += now - last;
+        last = now;
+        long steps = accumulator / tickNanos;
+        accumulator -= steps * tickNanos;
+        return (int) Math.min(steps, maxSteps);
+    }
+
+    // 距离上一个tick已经过去的比例，[0, 1)
+    public double alpha() {
+        return (double) accumulator / tickNanos;
+    }
+
+    // 从下一次advance()重新开始计时（换局、模态对话框关闭之后）
+    public void reset() {
+        started = false;
+        accumulator = 0;
+    }
+}
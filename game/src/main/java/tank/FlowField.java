@@ -0,0 +1,155 @@
+package tank;
+
+import java.util.Arrays;
+
+// 流场：从目标格子做一次BFS，每个格子记下朝目标走的下一步方向，任意数量的坦克都是O(1)查表
+// 多个方向同样近时按坦克原有的贪心习惯选择：离目标横向格数大于纵向时优先水平，否则优先垂直
+// 墙只会被摧毁不会新增，距离只减不增，因此瓦片变空后从该格子向外修补即可，结果与重新构建逐位相同
+class FlowField {
+    static final byte NONE = -1; // 目标格子本身或不可达
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int cols, rows, cellSize;
+    private final byte[] directions; // Direction序号，按格子编号
+    private int[] dist; // 到目标的步数，首次在有墙的地图上构建时分配
+    private int targetCell = -1;
+    private boolean open; // 没有障碍：BFS距离就是曼哈顿距离，方向在查询时直接算出，无需构建
+    private int version; // 与之一致的地图版本，由Navigation维护
+
+    public FlowField(int cols, int rows, int cellSize) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.directions = new byte[cols * rows];
+    }
+
+    // 格子即地图瓦片，map为null或没有墙时按空地图处理；queue是调用方提供的复用数组，长度不小于格子数
+    public void build(int target, TileMap map, int[] queue) {
+        targetCell = target;
+        open = map == null || map.isOpen();
+        if (open) return;
+        int cells = cols * rows;
+        if (dist == null) {
+            dist = new int[cells];
+        }
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(directions, NONE);
+        if (map.isSolidCell(target)) return;
+
+        dist[target] = 0;
+        queue[0] = target;
+        propagate(map, queue, 1);
+        for (int cell = 0; cell < cells; cell++) {
+            updateDirection(cell);
+        }
+    }
+
+    // 瓦片cell刚变为空地后修补距离和方向
+    public void tileCleared(int cell, TileMap map, int[] queue) {
+        if (open) return; // 空地图上不会再有墙体变化
+        if (cell == targetCell) {
+            build(targetCell, map, queue); // 目标原先在墙里，整个流场都不可达
+            return;
+        }
+        int col = cell % cols, row = cell / cols;
+        int best = dist[cell];
+        if (col > 0) best = Math.min(best, next(cell - 1));
+        if (col < cols - 1) best = Math.min(best, next(cell + 1));
+        if (row > 0) best = Math.min(best, next(cell - cols));
+        if (row < rows - 1) best = Math.min(best, next(cell + cols));
+        if (best >= dist[cell]) return;
+
+        // 只有距离变小的格子入队，按BFS顺序每个格子最多入队一次
+        dist[cell] = best;
+        queue[0] = cell;
+        int changed = propagate(map, queue, 1);
+        for (int i = 0; i < changed; i++) {
+            int c = queue[i];
+            int cc = c % cols, cr = c / cols;
+            updateDirection(c);
+            if (cc > 0) updateDirection(c - 1);
+            if (cc < cols - 1) updateDirection(c + 1);
+            if (cr > 0) updateDirection(c - cols);
+            if (cr < rows - 1) updateDirection(c + cols);
+        }
+    }
+
+    private int next(int cell) {
+        return dist[cell] == Integer.MAX_VALUE ? Integer.MAX_VALUE : dist[cell] + 1;
+    }
+
+    // 从queue[0, tail)出发松弛相邻空地，返回入队的格子总数
+    private int propagate(TileMap map, int[] queue, int tail) {
+        int head = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int col = cell % cols, row = cell / cols;
+            int next = dist[cell] + 1;
+            if (col > 0) tail = visit(cell - 1, next, map, queue, tail);
+            if (col < cols - 1) tail = visit(cell + 1, next, map, queue, tail);
+            if (row > 0) tail = visit(cell - cols, next, map, queue, tail);
+            if (row < rows - 1) tail = visit(cell + cols, next, map, queue, tail);
+        }
+        return tail;
+    }
+
+    private int visit(int cell, int distance, TileMap map, int[] queue, int tail) {
+        if (dist[cell] <= distance || map.isSolidCell(cell)) return tail;
+        dist[cell] = distance;
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    private void updateDirection(int cell) {
+        int d = dist[cell];
+        if (d == 0 || d == Integer.MAX_VALUE) {
+            directions[cell] = NONE;
+            return;
+        }
+        int col = cell % cols, row = cell / cols;
+        boolean preferHorizontal = Math.abs(targetCell % cols - col) > Math.abs(targetCell / cols - row);
+        byte horizontal = NONE, vertical = NONE;
+        if (col > 0 && dist[cell - 1] == d - 1) horizontal = (byte) Direction.LEFT.ordinal();
+        else if (col < cols - 1 && dist[cell + 1] == d - 1) horizontal = (byte) Direction.RIGHT.ordinal();
+        if (row > 0 && dist[cell - cols] == d - 1) vertical = (byte) Direction.UP.ordinal();
+        else if (row < rows - 1 && dist[cell + cols] == d - 1) vertical = (byte) Direction.DOWN.ordinal();
+        if (preferHorizontal) {
+            directions[cell] = horizontal != NONE ? horizontal : vertical;
+        } else {
+            directions[cell] = vertical != NONE ? vertical : horizontal;
+        }
+    }
+
+    // 像素坐标所在格子的下一步方向；已在目标格子或不可达时返回null，由调用方精确逼近
+    public Direction directionAt(int x, int y) {
+        int col = Math.min(Math.max(x / cellSize, 0), cols - 1);
+        int row = Math.min(Math.max(y / cellSize, 0), rows - 1);
+        if (open) {
+            // 与BFS在空地图上的结果相同
+            int dc = targetCell % cols - col, dr = targetCell / cols - row;
+            if (Math.abs(dc) > Math.abs(dr)) return dc > 0 ? Direction.RIGHT : Direction.LEFT;
+            if (dr != 0) return dr > 0 ? Direction.DOWN : Direction.UP;
+            return null;
+        }
+        byte direction = directions[row * cols + col];
+        return direction == NONE ? null : DIRECTIONS[direction];
+    }
+
+    // 格子到目标的步数，不可达时为Integer.MAX_VALUE
+    public int distanceAt(int cell) {
+        if (open) return Math.abs(targetCell % cols - cell % cols) + Math.abs(targetCell / cols - cell / cols);
+        return dist[cell];
+    }
+
+    public int getTargetCell() {
+        return targetCell;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,36 @@
+package tank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+// 非阻塞读缓冲：fill()读入尽量多的字节，next()逐个取出完整的帧（返回的视图在下一次fill()前有效）
+class FrameBuffer {
+    private ByteBuffer buffer = ByteBuffer.allocate(4096).flip(); // 平时处于读模式
+
+    // 返回读到的字节数，对端关闭时为-1
+    int fill(ReadableByteChannel channel) throws IOException {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+        try {
+            return channel.read(buffer);
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    // 取出下一帧的内容（不含长度），不完整时返回null
+    ByteBuffer next() throws IOException {
+        if (buffer.remaining() < 4) return null;
+        int position = buffer.position();
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > NetProtocol.MAX_FRAME) throw new IOException("Bad frame length " + length);
+        if (buffer.remaining() < 4 + length) return null;
+        ByteBuffer frame = buffer.duplicate();
+        frame.position(position + 4).limit(position + 4 + length);
+        buffer.position(position + 4 + length);
+        return frame;
+    }
+}
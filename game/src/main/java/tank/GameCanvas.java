@@ -0,0 +1,57 @@
+package tank;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+// 主动渲染画布：游戏循环直接调用render()，经BufferStrategy翻页或拷贝上屏，不经过repaint()
+class GameCanvas extends Canvas {
+    private static final long serialVersionUID = 1L;
+    private final IncrementalRenderer renderer;
+    private final ProfilerOverlay overlay;
+
+    public GameCanvas(IncrementalRenderer renderer, ProfilerOverlay overlay) {
+        this.renderer = renderer;
+        this.overlay = overlay;
+        setPreferredSize(new Dimension(GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT));
+        setBackground(Color.BLACK);
+        setIgnoreRepaint(true); // 画面完全由render()负责
+        setFocusable(true);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+
+        // 优先请求加速的翻页缓冲，不支持时由AWT选择拷贝方式
+        try {
+            createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED));
+        } catch (AWTException e) {
+            createBufferStrategy(2);
+        }
+    }
+
+    public void render(GameWorld world) {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) return; // 尚未显示
+
+        // 先在帧缓冲上增量合成，翻页后后备缓冲内容不确定，因此整帧拷贝上屏
+        renderer.update(world);
+        overlay.refresh();
+
+        // 后备缓冲内容丢失时重画，直到成功上屏
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    renderer.paint(g, world);
+                    overlay.draw(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
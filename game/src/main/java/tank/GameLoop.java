@@ -0,0 +1,73 @@
+package tank;
+
+import java.awt.EventQueue;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.LockSupport;
+
+// 帧节奏：按nanoTime截止时间等待，先park到截止前SPIN_NANOS，剩下的自旋，避免park的唤醒误差造成抖动
+// 落后超过一帧时不追赶，从当前时刻重新计算截止时间（即跳帧）
+class FramePacer {
+    private static final long SPIN_NANOS = 1_500_000L; // 常见系统上park的唤醒误差在1毫秒左右
+
+    private final long frameNanos;
+    private long deadline = System.nanoTime();
+
+    public FramePacer(int framesPerSecond) {
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+    }
+
+    public void await() {
+        deadline += frameNanos;
+        long remaining = deadline - System.nanoTime();
+        if (remaining < -frameNanos) {
+            deadline = System.nanoTime();
+            return;
+        }
+        if (remaining > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
+
+// 游戏循环线程：按目标帧率定时，每帧在事件分发线程上同步执行一次frame
+// 模拟、绘制、对话框和按键处理仍然都在事件分发线程上，相互之间不需要同步；frame执行期间（含模态对话框）本线程等待
+class GameLoop implements Runnable {
+    private final FramePacer pacer;
+    private final Runnable frame;
+    private volatile boolean running;
+    private Thread thread;
+
+    public GameLoop(int framesPerSecond, Runnable frame) {
+        this.pacer = new FramePacer(framesPerSecond);
+        this.frame = frame;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            pacer.await();
+            try {
+                EventQueue.invokeAndWait(frame);
+            } catch (InterruptedException e) {
+                return;
+            } catch (InvocationTargetException e) {
+                // 与Swing Timer一致：本帧出错只打印，下一帧照常执行
+                System.err.println("Error in game frame: " + e.getCause());
+            }
+        }
+    }
+}
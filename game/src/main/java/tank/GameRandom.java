@@ -0,0 +1,112 @@
+package tank;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// SplitMix64随机数，算法和常量与java.util.SplittableRandom相同（同一种子输出相同序列），
+// 区别是内部状态可读写，回放关键帧可以完整保存和恢复；非线程安全，每个实例只归一个世界使用（坦克的随机数状态存放在TankStore的数组里）
+class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private final long gamma; // 奇数步长，split()时派生
+
+    public GameRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private GameRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    // 派生一个独立的随机数源
+    public GameRandom split() {
+        return new GameRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    // [0, bound)，拒绝采样保证均匀
+    public int nextInt(int bound) {
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r &= m;
+        } else {
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+            }
+        }
+        return r;
+    }
+
+    public boolean nextBoolean() {
+        return nextInt() < 0;
+    }
+
+    // 派生一个独立的随机数源，状态直接写入数组的第i项（TankStore按槽位保存），消耗与split()相同
+    public void splitInto(long[] seeds, long[] gammas, int i) {
+        seeds[i] = nextLong();
+        gammas[i] = mixGamma(nextSeed());
+    }
+
+    // 以下按数组第i项的状态取数并推进该状态，输出序列与同一状态的实例方法完全相同
+    static int nextInt(long[] seeds, long[] gammas, int i) {
+        return mix32(seeds[i] += gammas[i]);
+    }
+
+    static int nextInt(long[] seeds, long[] gammas, int i, int bound) {
+        int r = nextInt(seeds, gammas, i);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r &= m;
+        } else {
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt(seeds, gammas, i) >>> 1) {
+            }
+        }
+        return r;
+    }
+
+    static boolean nextBoolean(long[] seeds, long[] gammas, int i) {
+        return nextInt(seeds, gammas, i) < 0;
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(seed);
+        out.writeLong(gamma);
+    }
+
+    public static GameRandom readState(DataInput in) throws IOException {
+        return new GameRandom(in.readLong(), in.readLong());
+    }
+}
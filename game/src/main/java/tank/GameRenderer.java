@@ -0,0 +1,190 @@
+package tank;
+
+import java.awt.*;
+
+// 游戏渲染器：被动绘制（paintComponent）和主动绘制（GameCanvas）共用的绘制逻辑
+class GameRenderer {
+    // 图集中的帧编号，坦克按Direction顺序排列（0上 1下 2左 3右）
+    static final int PLAYER_SPRITES = 0;
+    static final int ENEMY_SPRITES = 4;
+    static final int BULLET_SPRITE = 8;
+    static final int SPRITE_COUNT = 9;
+    static final Font HUD_FONT = new Font("Arial", Font.PLAIN, 20);
+    private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 36);
+    private static final Color STEEL_COLOR = new Color(150, 150, 160);
+    private static final Color STEEL_HIGHLIGHT = new Color(200, 200, 210);
+    private static final Color BRICK_COLOR = new Color(170, 80, 30);
+    private static final Color MORTAR_COLOR = new Color(90, 40, 20);
+    // 插值位置与当前位置相差不超过一个tick的位移，可见查询按此扩大，保证插值后落入视口的实体都在候选中
+    static final int INTERPOLATION_MARGIN = BulletPool.BULLET_SPEED;
+
+    private final SpriteAtlas atlas; // 为null时贴图加载失败，使用默认形状
+    private final ViewIndex viewIndex = new ViewIndex();
+    private ParticlePool particles; // 为null时没有特效
+    private double alpha = 1; // 渲染插值系数，1表示按当前状态绘制
+
+    public GameRenderer(SpriteAtlas atlas) {
+        this.atlas = atlas;
+    }
+
+    // 整帧绘制（调用方已清为黑色背景）：地图和实体按摄像机平移，HUD固定在屏幕左上角
+    public void render(Graphics g, GameWorld world, Camera camera) {
+        if (world.isGameOver()) {
+            g.setColor(Color.RED);
+            g.setFont(GAME_OVER_FONT);
+            g.drawString("Game Over!", camera.getWidth() / 2 - 100, camera.getHeight() / 2);
+            return;
+        }
+
+        drawMap(g, world.getMap(), camera, 0, 0, camera.getWidth(), camera.getHeight());
+        drawEntities(g, world, camera, 0, 0, camera.getWidth(), camera.getHeight());
+        drawParticles(g, camera);
+        drawHud(g, world);
+    }
+
+    // 特效粒子画在所有实体之上、HUD之下，不按矩形裁剪：增量渲染时每个粒子所在的格子都已标记为脏
+    public void drawParticles(Graphics g, Camera camera) {
+        if (particles == null || particles.size() == 0) return;
+        particles.draw(g, camera.getX(), camera.getY(), camera.getWidth(), camera.getHeight(), alpha);
+    }
+
+    public void setParticles(ParticlePool particles) {
+        this.particles = particles;
+    }
+
+    public ParticlePool getParticles() {
+        return particles;
+    }
+
+    // 绘制与屏幕矩形[x0, x1) x [y0, y1)相交的墙体瓦片（背景层，空地不画）
+    public void drawMap(Graphics g, TileMap map, Camera camera, int x0, int y0, int x1, int y1) {
+        if (map.isOpen()) return;
+        int size = TileMap.TILE_SIZE;
+        int cx = camera.getX(), cy = camera.getY();
+        int c0 = Math.max(0, (x0 + cx) / size), c1 = Math.min(map.getCols() - 1, (x1 + cx - 1) / size);
+        int r0 = Math.max(0, (y0 + cy) / size), r1 = Math.min(map.getRows() - 1, (y1 + cy - 1) / size);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                byte tile = map.getTile(c, r);
+                if (tile != TileMap.EMPTY) {
+                    drawTile(g, tile, c * size - cx, r * size - cy);
+                }
+            }
+        }
+    }
+
+    private static void drawTile(Graphics g, byte tile, int x, int y) {
+        int size = TileMap.TILE_SIZE;
+        if (tile == TileMap.STEEL) {
+            g.setColor(STEEL_COLOR);
+            g.fillRect(x, y, size, size);
+            g.setColor(STEEL_HIGHLIGHT);
+            g.fillRect(x + size / 4, y + size / 4, size / 2, size / 2);
+        } else {
+            // 砖墙：四层错缝砌砖
+            g.setColor(BRICK_COLOR);
+            g.fillRect(x, y, size, size);
+            g.setColor(MORTAR_COLOR);
+            int course = size / 4;
+            for (int i = 0; i < 4; i++) {
+                int cy = y + i * course;
+                g.drawLine(x, cy, x + size - 1, cy);
+                int joint = x + (i % 2 == 0 ? size / 2 : 0);
+                g.drawLine(joint, cy, joint, cy + course - 1);
+            }
+        }
+    }
+
+    // HUD：玩家血量和当前关卡（位于实体上方，不随摄像机移动）
+    public void drawHud(Graphics g, GameWorld world) {
+        g.setColor(Color.WHITE);
+        g.setFont(HUD_FONT);
+        g.drawString("Health: " + world.getTanks().getHealth(TankStore.PLAYER), 10, 30);
+        g.drawString("Level: " + world.getLevel(), 10, 60);
+    }
+
+    // 只绘制包围盒与屏幕矩形[x0, x1) x [y0, y1)相交的实体，绘制顺序不变
+    // 候选实体来自视口索引，开销与可见实体数成正比，与世界大小无关
+    public void drawEntities(Graphics g, GameWorld world, Camera camera, int x0, int y0, int x1, int y1) {
+        if (atlas != null) {
+            atlas.beginFrame(g);
+        }
+        int cx = camera.getX(), cy = camera.getY();
+        x0 += cx;
+        y0 += cy;
+        x1 += cx;
+        y1 += cy;
+        g.translate(-cx, -cy);
+
+        // 绘制玩家坦克
+        g.setColor(Color.GREEN);
+        TankStore tanks = world.getTanks();
+        drawTank(g, tanks, TankStore.PLAYER, x0, y0, x1, y1);
+
+        // 绘制敌人坦克
+        g.setColor(Color.RED);
+        int m = INTERPOLATION_MARGIN;
+        int count = viewIndex.queryEnemies(world, x0 - m, y0 - m, x1 + m, y1 + m);
+        int[] visible = viewIndex.getEnemyResult();
+        for (int i = 0; i < count; i++) {
+            drawTank(g, tanks, visible[i], x0, y0, x1, y1);
+        }
+
+        // 绘制玩家子弹，再绘制敌人子弹
+        count = viewIndex.queryBullets(world, x0 - m, y0 - m, x1 + m, y1 + m);
+        visible = viewIndex.getBulletResult();
+        g.setColor(Color.YELLOW);
+        drawBullets(g, world.getBullets(), BulletPool.OWNER_PLAYER, visible, count, x0, y0, x1, y1);
+        g.setColor(Color.MAGENTA);
+        drawBullets(g, world.getBullets(), BulletPool.OWNER_ENEMY, visible, count, x0, y0, x1, y1);
+
+        g.translate(cx, cy);
+    }
+
+    ViewIndex getViewIndex() {
+        return viewIndex;
+    }
+
+    // 实体按上一tick与当前tick之间的插值位置绘制，alpha取值[0, 1]
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    private static boolean intersects(int x, int y, int w, int h, int x0, int y0, int x1, int y1) {
+        return x < x1 && y < y1 && x + w > x0 && y + h > y0;
+    }
+
+    // 按坦克的贴图组和朝向选择帧
+    private void drawTank(Graphics g, TankStore tanks, int t, int x0, int y0, int x1, int y1) {
+        int x = tanks.getRenderX(t, alpha), y = tanks.getRenderY(t, alpha);
+        if (!intersects(x, y, tanks.getWidth(t), tanks.getHeight(t), x0, y0, x1, y1)) return;
+        if (atlas != null) {
+            int firstSprite = tanks.getSprite(t) == TankStore.SPRITE_PLAYER ? PLAYER_SPRITES : ENEMY_SPRITES;
+            atlas.draw(g, firstSprite + tanks.getDirection(t).ordinal(), x, y);
+        } else {
+            // 如果没有图像，使用默认形状
+            g.fillRect(x, y, tanks.getWidth(t), tanks.getHeight(t));
+        }
+    }
+
+    private void drawBullets(Graphics g, BulletPool bullets, byte owner, int[] visible, int count,
+                             int x0, int y0, int x1, int y1) {
+        int size = bullets.getBulletSize();
+        for (int k = 0; k < count; k++) {
+            int i = visible[k];
+            if (bullets.getOwner(i) != owner) continue;
+            int x = bullets.getRenderX(i, alpha), y = bullets.getRenderY(i, alpha);
+            if (!intersects(x, y, size, size, x0, y0, x1, y1)) continue;
+            if (atlas != null) {
+                atlas.draw(g, BULLET_SPRITE, x, y);
+            } else {
+                // 如果没有图像，使用默认形状
+                g.fillRect(x, y, size, size);
+            }
+        }
+    }
+}
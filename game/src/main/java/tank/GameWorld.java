@@ -0,0 +1,449 @@
+package tank;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// 游戏世界：生成、移动、射击和碰撞逻辑，不依赖AWT/Swing，可无界面运行
+class GameWorld {
+    static final int TICK_MILLIS = 10; // 默认每个tick代表的游戏时间（毫秒），各速度和以tick计的间隔按此给出
+    static final int MIN_TICK_MILLIS = 5; // 更短时敌人每tick的位移四舍五入后误差过大
+    static final int MAX_TICK_MILLIS = 50; // 更长时坦克每tick的位移接近一个瓦片，移动的墙体检测不再成立
+    static final int MAP_WIDTH = 800; // 窗口（视口）尺寸，世界尺寸由TileMap决定
+    static final int MAP_HEIGHT = 600;
+    static final int DEFAULT_TANK_SIZE = 40; // 无贴图时的坦克尺寸
+    static final int DEFAULT_BULLET_SIZE = 10; // 无贴图时的子弹尺寸
+    private static final int GRID_CELL_SIZE = 64; // 碰撞网格的格子边长
+    private static final int GRID_MIN_ENEMIES = 32; // 敌人少于此数时直接逐个检测，建网格不划算
+    private static final int PARALLEL_AI_MIN_ENEMIES = 256; // 敌人少于此数时串行更新AI，分发任务不划算
+    private static final int[] ENEMY_SPAWN_INTERVALS = {10000, 5000, 1000}; // 每关敌人生成间隔（毫秒）
+    private static final int[] PLAYER_INITIAL_HEALTHS = {2, 5, 5}; // 每关玩家初始血量
+
+    private final int level;
+    private final long seed;
+    private final int enemySize; // 贴图均为正方形，尺寸取边长
+    private GameRandom rand; // 世界自身的随机数，每个敌人生成时从中split出独立的随机数源
+    private final TankStore tanks; // 玩家和全部敌人，槽位0是玩家
+    private final BulletPool bullets; // 玩家和敌人的子弹，按owner区分
+    private final TileMap map; // 本世界独占，砖墙被摧毁时原地修改
+    private final Navigation navigation; // 敌人共享的寻路流场
+    private final SpatialGrid enemyGrid;
+    private boolean[] enemyDestroyed = new boolean[16]; // 本tick被击毁的敌人（按槽位）
+    private boolean[] enemyFires = new boolean[16]; // 并行决策阶段得出的本tick开火结果（按槽位）
+    private boolean parallelAi = ForkJoinPool.getCommonPoolParallelism() > 1; // 单核时并行只有开销
+    private AiScheduler aiScheduler; // 为null时所有敌人每tick完整决策
+    private boolean sweptCollision = true; // 子弹连续碰撞，见setSweptCollision()
+    private int tickMillis = TICK_MILLIS; // 见setTickMillis()
+    private WorldListener listener = WorldListener.NONE;
+    private TickProfiler profiler = TickProfiler.DISABLED;
+    private int enemySpawnTimer;
+    private long tickCount;
+    private boolean gameOver;
+    private boolean won;
+
+    public GameWorld(int level, long seed) {
+        this(level, seed, DEFAULT_TANK_SIZE, DEFAULT_TANK_SIZE, DEFAULT_BULLET_SIZE);
+    }
+
+    public GameWorld(int level, long seed, int playerSize, int enemySize, int bulletSize) {
+        this(level, seed, playerSize, enemySize, bulletSize, TileMap.forLevel(level));
+    }
+
+    // 使用指定地图（尺寸可以远大于窗口），地图归世界所有，调用方不要再修改或共享
+    public GameWorld(int level, long seed, int playerSize, int enemySize, int bulletSize, TileMap map) {
+        this.level = level;
+        this.seed = seed;
+        this.enemySize = enemySize;
+        this.map = map;
+        this.bullets = new BulletPool(bulletSize, 256);
+        this.bullets.setMap(map);
+        this.bullets.setSwept(sweptCollision);
+        this.navigation = new Navigation(map);
+        this.enemyGrid = new SpatialGrid(map.getWidth(), map.getHeight(), GRID_CELL_SIZE);
+        this.rand = new GameRandom(seed);
+        this.tanks = new TankStore(16);
+        tanks.setMap(map);
+        tanks.setNavigation(navigation);
+        tanks.setAmbushAim(true);
+        tanks.addPlayer(map.getWidth() / 2, map.getHeight() - 50, Direction.UP,
+                PLAYER_INITIAL_HEALTHS[level - 1], playerSize, playerSize);
+
+        // 每关只生成1个初始敌人
+        spawnEnemy();
+    }
+
+    void spawnEnemy() {
+        int range = map.getWidth() - 40;
+        int x = rand.nextInt(range);
+        // 出生点被墙挡住时按瓦片向右找空位（不额外消耗随机数），整行都是墙时仍放在原处
+        for (int i = 0; i < map.getCols() && map.isBlocked(x, 0, enemySize, enemySize); i++) {
+            x = (x + TileMap.TILE_SIZE) % range;
+        }
+        addEnemy(x, 0);
+    }
+
+    // 在指定位置放置一个敌人（压测和基准用），与正常生成一样从世界随机数中split出随机数源，返回槽位
+    int addEnemy(int x, int y) {
+        return tanks.addEnemy(x, y, Direction.DOWN, enemySize, enemySize, rand);
+    }
+
+    // 推进一个tick
+    public void step(TickInput input) {
+        if (gameOver) return;
+        tickCount++;
+        tanks.savePositions();
+        bullets.savePositions();
+
+        // 玩家射击（上一tick之后按下的空格）
+        for (int i = 0; i < input.getFireCount(); i++) {
+            fire(TankStore.PLAYER, BulletPool.OWNER_PLAYER);
+        }
+
+        // 敌人生成
+        enemySpawnTimer += tickMillis;
+        if (enemySpawnTimer >= ENEMY_SPAWN_INTERVALS[level - 1]) {
+            enemySpawnTimer = 0;
+            spawnEnemy();
+        }
+        profiler.endPhase(TickProfiler.SPAWN);
+
+        // 玩家坦克移动
+        tanks.setInput(TankStore.PLAYER, input.getKeys());
+        tanks.movePlayer(TankStore.PLAYER);
+        profiler.endPhase(TickProfiler.PLAYER);
+
+        // 敌人坦克移动和射击
+        if (aiScheduler != null) {
+            aiScheduler.schedule(tanks, tickCount);
+            navigation.prepare(tanks, aiScheduler.getDecisions());
+        } else {
+            navigation.prepare(tanks, null);
+        }
+        updateEnemies();
+        profiler.endPhase(TickProfiler.AI);
+
+        // 子弹移动，超出边界、撞墙或上一tick已命中的子弹被回收；被摧毁的砖墙用于修补流场并通知视图层
+        // 连续碰撞时撞墙和出界推迟到命中判定之后，这里没有被摧毁的砖墙
+        bullets.update();
+        tilesChanged();
+        profiler.endPhase(TickProfiler.BULLETS);
+
+        // 玩家子弹碰撞检测：敌人本阶段不再移动，先建网格，击毁的敌人最后统一移除
+        int slots = tanks.size();
+        if (enemyDestroyed.length < slots) {
+            enemyDestroyed = new boolean[slots * 2];
+        }
+        Arrays.fill(enemyDestroyed, 0, slots, false);
+        boolean useGrid = tanks.getEnemyCount() >= GRID_MIN_ENEMIES && bullets.size() > 0;
+        if (useGrid) {
+            enemyGrid.build(tanks);
+        }
+        boolean anyDestroyed = false;
+
+        for (int i = 0; i < bullets.size(); i++) {
+            if (bullets.getOwner(i) != BulletPool.OWNER_PLAYER) continue;
+            int hit = sweptCollision ? earliestHit(i, useGrid)
+                    : useGrid ? enemyGrid.firstHit(bullets, i, tanks, enemyDestroyed) : firstHit(i);
+            if (hit >= 0) {
+                bullets.setActive(i, false);
+                enemyDestroyed[hit] = true;
+                anyDestroyed = true;
+                listener.enemyDestroyed(hit);
+
+                // 玩家击败敌人后增加一滴血量
+                tanks.increaseHealth(TankStore.PLAYER);
+            }
+        }
+        if (anyDestroyed) {
+            tanks.removeDestroyed(enemyDestroyed);
+        }
+
+        // 敌人子弹碰撞检测
+        for (int i = 0; i < bullets.size(); i++) {
+            if (bullets.getOwner(i) != BulletPool.OWNER_ENEMY) continue;
+            boolean hit = sweptCollision ? bullets.timeOfImpact(i, tanks, TankStore.PLAYER) >= 0
+                    : bullets.checkCollision(i, tanks, TankStore.PLAYER);
+            if (hit) {
+                bullets.setActive(i, false);
+                tanks.reduceHealth(TankStore.PLAYER);
+                listener.playerHit();
+                if (!tanks.isAlive(TankStore.PLAYER)) {
+                    gameOver = true;
+                }
+            }
+        }
+
+        // 没有先命中坦克的子弹在接触点撞墙或出界
+        if (sweptCollision) {
+            bullets.resolveStops();
+            tilesChanged();
+        }
+
+        profiler.endPhase(TickProfiler.COLLISION);
+
+        // 检查是否击败所有敌人
+        if (tanks.getEnemyCount() == 0) {
+            gameOver = true;
+            won = true;
+        }
+    }
+
+    // 敌人AI分两步：决策阶段每辆坦克只改自身状态、只读玩家位置（本阶段不变），可并行；
+    // 提交阶段按槽位顺序串行写入子弹池，因此结果与串行执行逐位一致
+    private void updateEnemies() {
+        int slots = tanks.size();
+        if (aiScheduler != null) {
+            if (enemyFires.length < slots) {
+                enemyFires = new boolean[slots * 2];
+            }
+            aiScheduler.update(tanks, enemyFires,
+                    parallelAi && tanks.getEnemyCount() >= PARALLEL_AI_MIN_ENEMIES, profiler);
+            commitFires(slots);
+            return;
+        }
+        if (!parallelAi || tanks.getEnemyCount() < PARALLEL_AI_MIN_ENEMIES) {
+            for (int t = TankStore.FIRST_ENEMY; t < slots; t++) {
+                tanks.moveEnemy(t);
+                if (tanks.tickFireTimer(t)) {
+                    fire(t, BulletPool.OWNER_ENEMY);
+                }
+            }
+            return;
+        }
+
+        if (enemyFires.length < slots) {
+            enemyFires = new boolean[slots * 2];
+        }
+        boolean[] fires = enemyFires;
+        IntStream.range(TankStore.FIRST_ENEMY, slots).parallel().forEach(t -> {
+            tanks.moveEnemy(t);
+            fires[t] = tanks.tickFireTimer(t);
+        });
+        commitFires(slots);
+    }
+
+    private void commitFires(int slots) {
+        for (int t = TankStore.FIRST_ENEMY; t < slots; t++) {
+            if (enemyFires[t]) {
+                fire(t, BulletPool.OWNER_ENEMY);
+            }
+        }
+    }
+
+    private void fire(int t, byte owner) {
+        int b = tanks.fire(t, bullets, owner);
+        int half = bullets.getBulletSize() / 2;
+        listener.bulletFired(bullets.getX(b) + half, bullets.getY(b) + half, bullets.getDirection(b));
+    }
+
+    // 本tick被子弹摧毁的砖墙：修补流场并通知视图层
+    private void tilesChanged() {
+        for (int i = 0; i < map.getChangedCount(); i++) {
+            int col = map.getChanged(i) % map.getCols(), row = map.getChanged(i) / map.getCols();
+            navigation.tileCleared(col, row);
+            listener.tileDestroyed(col, row);
+        }
+        map.clearChanged();
+    }
+
+    // 连续碰撞：子弹本tick路径上最早接触的未被击毁敌人，同一时刻取槽位最小的，没有则返回-1
+    // 网格按坦克当前位置建立，查询范围是子弹扫过的矩形再向外扩一个tick的最大位移（子弹速度），覆盖坦克本tick的起点
+    private int earliestHit(int bullet, boolean useGrid) {
+        int best = -1;
+        double bestTime = Double.POSITIVE_INFINITY;
+        if (useGrid) {
+            int size = bullets.getBulletSize(), margin = bullets.getSpeed();
+            int x0 = Math.min(bullets.getPrevX(bullet), bullets.getX(bullet)) - margin;
+            int y0 = Math.min(bullets.getPrevY(bullet), bullets.getY(bullet)) - margin;
+            int x1 = Math.max(bullets.getPrevX(bullet), bullets.getX(bullet)) + size + margin;
+            int y1 = Math.max(bullets.getPrevY(bullet), bullets.getY(bullet)) + size + margin;
+            int n = enemyGrid.query(x0, y0, x1, y1);
+            int[] candidates = enemyGrid.getQueryResult();
+            for (int k = 0; k < n; k++) {
+                int t = candidates[k];
+                if (enemyDestroyed[t]) continue;
+                double time = bullets.timeOfImpact(bullet, tanks, t);
+                if (time >= 0 && time < bestTime) {
+                    best = t;
+                    bestTime = time;
+                }
+            }
+        } else {
+            for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+                if (enemyDestroyed[t]) continue;
+                double time = bullets.timeOfImpact(bullet, tanks, t);
+                if (time >= 0 && time < bestTime) {
+                    best = t;
+                    bestTime = time;
+                }
+            }
+        }
+        return best;
+    }
+
+    // 按槽位顺序找第一辆未被击毁且与子弹相交的敌人
+    private int firstHit(int bullet) {
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            if (!enemyDestroyed[t] && bullets.checkCollision(bullet, tanks, t)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    public void setListener(WorldListener listener) {
+        this.listener = listener != null ? listener : WorldListener.NONE;
+        bullets.setListener(this.listener);
+    }
+
+    // 关闭后敌人AI始终串行更新，用于对比和基准测试
+    public void setParallelAi(boolean parallelAi) {
+        this.parallelAi = parallelAi;
+    }
+
+    // 敌人AI的细节层次：budget为中远处敌人每tick的目标决策数，0表示关闭（所有敌人每tick完整决策）
+    // 影响模拟结果，须在第一个tick之前设置，回放头部和联机WELCOME会一并记录
+    public void setAiBudget(int budget) {
+        aiScheduler = budget > 0 ? new AiScheduler(budget) : null;
+    }
+
+    // 子弹连续碰撞：沿每颗子弹本tick的路径求与墙、地图边界和坦克最早接触的时刻，每tick的位移再大也不会穿过坦克或墙
+    // 关闭时按旧规则只判断移动后的位置（此前录制的回放按关闭重放）；与AI预算一样须在第一个tick之前设置，
+    // 回放头部、联机WELCOME和存档会一并记录
+    public void setSweptCollision(boolean swept) {
+        this.sweptCollision = swept;
+        bullets.setSwept(swept);
+    }
+
+    public boolean isSweptCollision() {
+        return sweptCollision;
+    }
+
+    // 伏击的敌人按视线缓存瞄准：等玩家进入自己的射击通道再开火，装填时让出通道（见TankStore.ambushMove()）
+    // 关闭时伏击只是原地等待（此前录制的回放按关闭重放）；影响模拟结果，与AI预算一样须在第一个tick之前设置，
+    // 回放头部、联机WELCOME和存档会一并记录
+    public void setAmbushAim(boolean ambushAim) {
+        tanks.setAmbushAim(ambushAim);
+    }
+
+    public boolean isAmbushAim() {
+        return tanks.isAmbushAim();
+    }
+
+    // 每个tick代表的游戏时间（毫秒），范围[MIN_TICK_MILLIS, MAX_TICK_MILLIS]：坦克和子弹每tick的位移、
+    // 敌人生成计时和以tick计的AI间隔都按它从默认值换算，默认值下与此前逐位一致；位移取整后速度略有偏差。
+    // 影响模拟结果，须在第一个tick之前设置，回放头部和存档会一并记录；界面和联机服务器固定使用默认值
+    public void setTickMillis(int tickMillis) {
+        if (tickMillis < MIN_TICK_MILLIS || tickMillis > MAX_TICK_MILLIS) {
+            throw new IllegalArgumentException("Tick length must be between " + MIN_TICK_MILLIS + " and "
+                    + MAX_TICK_MILLIS + " ms: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        bullets.setTickMillis(tickMillis);
+        tanks.setTickMillis(tickMillis);
+    }
+
+    public int getTickMillis() {
+        return tickMillis;
+    }
+
+    // 默认tick长度下每tick的位移换算为tickMillis下的位移（四舍五入，至少为1）
+    static int scaleSpeed(int speed, int tickMillis) {
+        return Math.max(1, (speed * tickMillis + TICK_MILLIS / 2) / TICK_MILLIS);
+    }
+
+    // 默认tick长度下的tick数换算为tickMillis下的tick数（四舍五入，至少为1），游戏时间不变
+    static int scaleTicks(int ticks, int tickMillis) {
+        return Math.max(1, (ticks * TICK_MILLIS + tickMillis / 2) / tickMillis);
+    }
+
+    // 敌人开火间隔和策略变更间隔（默认长度的tick，按tick长度换算），默认值见TankStore；只供BatchRunner调参，
+    // 不记录在回放、联机握手和存档中，修改后录制的回放无法重放
+    public void setEnemyTuning(int fireInterval, int strategyChangeInterval) {
+        tanks.setEnemyTuning(fireInterval, strategyChangeInterval);
+    }
+
+    public int getAiBudget() {
+        return aiScheduler != null ? aiScheduler.getBudget() : 0;
+    }
+
+    AiScheduler getAiScheduler() {
+        return aiScheduler;
+    }
+
+    // 各阶段结束时打点，由调用方负责beginTick()/endTick()
+    public void setProfiler(TickProfiler profiler) {
+        this.profiler = profiler != null ? profiler : TickProfiler.DISABLED;
+    }
+
+    // 保存/恢复完整的可变状态（回放关键帧），恢复目标须是用相同关卡、种子、尺寸和初始地图创建的世界
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(tickCount);
+        out.writeInt(enemySpawnTimer);
+        out.writeBoolean(gameOver);
+        out.writeBoolean(won);
+        rand.writeState(out);
+        map.writeState(out);
+        tanks.writeState(out);
+        bullets.writeState(out);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        tickCount = in.readLong();
+        enemySpawnTimer = in.readInt();
+        gameOver = in.readBoolean();
+        won = in.readBoolean();
+        rand = GameRandom.readState(in);
+        map.readState(in);
+        navigation.invalidate();
+        tanks.readState(in, enemySize); // 敌人的随机数源也一并恢复
+        bullets.readState(in);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getEnemySize() {
+        return enemySize;
+    }
+
+    public TankStore getTanks() {
+        return tanks;
+    }
+
+    public int getEnemyCount() {
+        return tanks.getEnemyCount();
+    }
+
+    public TileMap getMap() {
+        return map;
+    }
+
+    public Navigation getNavigation() {
+        return navigation;
+    }
+
+    public BulletPool getBullets() {
+        return bullets;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+}
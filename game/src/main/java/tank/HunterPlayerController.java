@@ -0,0 +1,82 @@
+package tank;
+
+import java.util.Random;
+
+// 脚本控制器：向最近的敌人靠拢到同一行或同一列，对齐后转向敌人并开火；原地卡住一段时间后随机换向绕行
+// 只读取世界状态，同一种子下行为确定，用于批量对局评估敌人AI
+class HunterPlayerController implements PlayerController {
+    private static final int[] DIRECTION_KEYS = {TickInput.UP, TickInput.DOWN, TickInput.LEFT, TickInput.RIGHT}; // 按Direction顺序
+    private static final int FIRE_COOLDOWN = 15; // 两次开火之间至少间隔的tick数
+    private static final int STUCK_TICKS = 20; // 按着方向键而位置连续这么多tick不变，视为被墙卡住
+    private static final int DETOUR_TICKS = 40; // 卡住后沿随机方向绕行的tick数
+    private final Random rand;
+    private int cooldown;
+    private int stuck;
+    private int detour;
+    private int detourKeys;
+    private int lastX = -1, lastY = -1;
+
+    public HunterPlayerController(long seed) {
+        this.rand = new Random(seed);
+    }
+
+    @Override
+    public void update(GameWorld world, TickInput input) {
+        TankStore tanks = world.getTanks();
+        int p = TankStore.PLAYER;
+        int px = tanks.getX(p) + tanks.getWidth(p) / 2, py = tanks.getY(p) + tanks.getHeight(p) / 2;
+        if (cooldown > 0) cooldown--;
+
+        int target = -1;
+        long best = Long.MAX_VALUE;
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            long distance = Math.abs(tanks.getX(t) + tanks.getWidth(t) / 2 - px)
+                    + Math.abs(tanks.getY(t) + tanks.getHeight(t) / 2 - py);
+            if (distance < best) {
+                best = distance;
+                target = t;
+            }
+        }
+
+        int keys = 0;
+        int fire = 0;
+        if (detour > 0) {
+            detour--;
+            keys = detourKeys;
+        } else if (target >= 0) {
+            int dx = tanks.getX(target) + tanks.getWidth(target) / 2 - px;
+            int dy = tanks.getY(target) + tanks.getHeight(target) / 2 - py;
+            Direction aim = null;
+            if (Math.abs(dx) < tanks.getWidth(target) / 2) {
+                aim = dy < 0 ? Direction.UP : Direction.DOWN;
+            } else if (Math.abs(dy) < tanks.getHeight(target) / 2) {
+                aim = dx < 0 ? Direction.LEFT : Direction.RIGHT;
+            }
+            if (aim != null) {
+                keys = DIRECTION_KEYS[aim.ordinal()];
+                // 子弹在下一个step开始时按当前朝向发射，已经朝向敌人才开火
+                if (cooldown == 0 && tanks.getDirection(p) == aim) {
+                    fire = 1;
+                    cooldown = FIRE_COOLDOWN;
+                }
+            } else if (Math.abs(dx) <= Math.abs(dy)) {
+                keys = dx < 0 ? TickInput.LEFT : TickInput.RIGHT; // 先消除较小的偏差，尽快对齐
+            } else {
+                keys = dy < 0 ? TickInput.UP : TickInput.DOWN;
+            }
+        }
+
+        if (keys != 0 && tanks.getX(p) == lastX && tanks.getY(p) == lastY) {
+            if (++stuck >= STUCK_TICKS) {
+                stuck = 0;
+                detour = DETOUR_TICKS;
+                detourKeys = DIRECTION_KEYS[rand.nextInt(DIRECTION_KEYS.length)];
+            }
+        } else {
+            stuck = 0;
+        }
+        lastX = tanks.getX(p);
+        lastY = tanks.getY(p);
+        input.set(keys, fire);
+    }
+}
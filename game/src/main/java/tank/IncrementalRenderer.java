@@ -0,0 +1,380 @@
+package tank;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// 增量渲染器：在离屏帧缓冲上只重画本帧的脏区域（各实体上一帧和本帧包围盒覆盖的格子）
+// 背景层（底色和视口内的墙体）与HUD层（血量和关卡）分别缓存，砖墙被摧毁时只重画该瓦片
+// 摄像机跟随玩家移动时，帧缓冲和背景整体平移，只补画新露出的条带；实体包围盒按世界坐标记录
+// 实体按GameRenderer的插值系数绘制，包围盒也按插值位置记录，没有推进tick的帧同样按脏区域重画
+// 特效粒子同样逐个记录包围盒，各块重画完之后一次性按颜色批量绘制，再把HUD盖回去
+// 关闭增量模式时每帧整屏重画；verify模式下每帧与整屏重画的结果逐像素比对
+class IncrementalRenderer {
+    private static final int TILE_SIZE = 32; // 脏区域的最小单位
+    private static final int HUD_HEIGHT = 70; // 血量和关卡文字所在区域高度（基线y=30和y=60）
+
+    private final GameRenderer renderer;
+    private final Camera camera;
+    private final int width, height;
+    private final int cols, rows;
+    private final boolean[] dirtyTiles;
+    private final BufferedImage frame; // 最近一帧的完整画面
+    private final BufferedImage background; // 黑色底色 + 墙体，与帧缓冲使用同一摄像机位置
+    private BufferedImage hudLayer; // 透明底的血量和关卡文字
+    private static final double FULL_REDRAW_RATIO = 0.5; // 脏区域超过屏幕面积此比例时直接整屏重画
+    private final int[] runs; // 本帧的脏矩形（每行合并后的连续格子），每4个int为x0, y0, x1, y1
+    private int runCount;
+    private final Rectangle dirtyBounds = new Rectangle();
+
+    // 上一帧绘制过的实体包围盒（以及之后变化的瓦片），世界坐标，下一帧都要重画
+    private int[] boundsX = new int[64], boundsY = new int[64], boundsW = new int[64], boundsH = new int[64];
+    private int boundsCount;
+
+    private GameWorld lastWorld;
+    private int lastCameraX, lastCameraY; // 帧缓冲和背景对应的摄像机位置
+    private boolean lastGameOver;
+    private int hudHealth;
+    private boolean incremental = true;
+    private boolean verify;
+    private BufferedImage verifyFrame;
+    private int[] verifyExpected, verifyActual;
+    private long lastFilledPixels; // 本帧实际重画的像素数
+
+    // gc为null时使用普通RGB图像
+    public IncrementalRenderer(GameRenderer renderer, GraphicsConfiguration gc, int width, int height) {
+        this.renderer = renderer;
+        this.camera = new Camera(width, height);
+        this.width = width;
+        this.height = height;
+        this.cols = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        this.dirtyTiles = new boolean[cols * rows];
+        this.runs = new int[cols * rows * 4];
+        this.frame = createImage(gc, width, height, Transparency.OPAQUE);
+        this.background = createImage(gc, width, height, Transparency.OPAQUE);
+        this.hudLayer = createImage(gc, width, HUD_HEIGHT, Transparency.BITMASK);
+    }
+
+    private static BufferedImage createImage(GraphicsConfiguration gc, int width, int height, int transparency) {
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height,
+                transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    // 根据世界当前状态更新帧缓冲，返回需要上屏的区域（宽度为0表示无变化）
+    public Rectangle update(GameWorld world) {
+        camera.follow(world.getTanks(), TankStore.PLAYER, world.getMap(), renderer.getAlpha());
+        boolean worldChanged = world != lastWorld;
+        lastWorld = world;
+        int dx = camera.getX() - lastCameraX, dy = camera.getY() - lastCameraY;
+
+        boolean full = !incremental || worldChanged || world.isGameOver() || lastGameOver
+                || Math.abs(dx) >= width || Math.abs(dy) >= height;
+        lastGameOver = world.isGameOver();
+        if (!full) {
+            Arrays.fill(dirtyTiles, false);
+            if (dx != 0 || dy != 0) {
+                scroll(world, dx, dy);
+            }
+            // 上一帧和本帧的包围盒都需要重画
+            for (int i = 0; i < boundsCount; i++) {
+                markDirty(boundsX[i], boundsY[i], boundsW[i], boundsH[i]);
+            }
+            boundsCount = 0;
+            recordBounds(world, true);
+            if (world.getTanks().getHealth(TankStore.PLAYER) != hudHealth) {
+                redrawHud(world);
+                markScreenDirty(0, 0, width, HUD_HEIGHT);
+            }
+            buildRuns();
+            full = lastFilledPixels > FULL_REDRAW_RATIO * width * height;
+        }
+
+        Graphics2D g = frame.createGraphics();
+        if (full) {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+            renderer.render(g, world, camera);
+            g.dispose();
+
+            redrawBackground(world);
+            boundsCount = 0;
+            recordBounds(world, false);
+            redrawHud(world);
+            dirtyBounds.setBounds(0, 0, width, height);
+            lastFilledPixels = (long) width * height;
+            return dirtyBounds;
+        }
+
+        // 逐块重画：矩形裁剪下拷贝背景，再画与该块相交的实体和HUD
+        for (int i = 0; i < runCount * 4; i += 4) {
+            int x0 = runs[i], y0 = runs[i + 1], x1 = runs[i + 2], y1 = runs[i + 3];
+            g.setClip(x0, y0, x1 - x0, y1 - y0);
+            g.drawImage(background, x0, y0, x1, y1, x0, y0, x1, y1, null);
+            renderer.drawEntities(g, world, camera, x0, y0, x1, y1);
+            if (y0 < HUD_HEIGHT) {
+                g.drawImage(hudLayer, 0, 0, null);
+            }
+        }
+        ParticlePool particles = renderer.getParticles();
+        if (particles != null && particles.size() > 0) {
+            g.setClip(null);
+            renderer.drawParticles(g, camera);
+            for (int i = 0; i < runCount * 4 && runs[i + 1] < HUD_HEIGHT; i += 4) {
+                g.setClip(runs[i], runs[i + 1], runs[i + 2] - runs[i], runs[i + 3] - runs[i + 1]);
+                g.drawImage(hudLayer, 0, 0, null);
+            }
+        }
+        g.dispose();
+
+        if (verify) {
+            verifyAgainstFullRedraw(world);
+        }
+        return dirtyBounds;
+    }
+
+    // 把帧缓冲画到目标上（目标的裁剪区决定实际拷贝的范围）
+    public void paint(Graphics g, GameWorld world) {
+        if (world != lastWorld) {
+            update(world);
+        }
+        g.drawImage(frame, 0, 0, null);
+    }
+
+    // 摄像机移动了(dx, dy)：帧缓冲和背景整体反向平移，补画背景新露出的条带并标记为脏；
+    // 平移后帧缓冲里的实体位置和背景一致，由包围盒照常重画，固定在屏幕上的HUD需要重画
+    private void scroll(GameWorld world, int dx, int dy) {
+        Graphics2D g = frame.createGraphics();
+        g.copyArea(0, 0, width, height, -dx, -dy);
+        g.dispose();
+        g = background.createGraphics();
+        g.copyArea(0, 0, width, height, -dx, -dy);
+        if (dx != 0) {
+            int x0 = dx > 0 ? width - dx : 0;
+            redrawBackground(g, world, x0, 0, x0 + Math.abs(dx), height);
+            markScreenDirty(x0, 0, Math.abs(dx), height);
+        }
+        if (dy != 0) {
+            int y0 = dy > 0 ? height - dy : 0;
+            redrawBackground(g, world, 0, y0, width, y0 + Math.abs(dy));
+            markScreenDirty(0, y0, width, Math.abs(dy));
+        }
+        g.dispose();
+        markScreenDirty(0, 0, width, HUD_HEIGHT);
+        lastCameraX = camera.getX();
+        lastCameraY = camera.getY();
+    }
+
+    private void redrawBackground(GameWorld world) {
+        Graphics2D g = background.createGraphics();
+        redrawBackground(g, world, 0, 0, width, height);
+        g.dispose();
+        lastCameraX = camera.getX();
+        lastCameraY = camera.getY();
+    }
+
+    // 按当前摄像机重画背景中的屏幕矩形[x0, x1) x [y0, y1)
+    private void redrawBackground(Graphics2D g, GameWorld world, int x0, int y0, int x1, int y1) {
+        g.setClip(x0, y0, x1 - x0, y1 - y0);
+        g.setColor(Color.BLACK);
+        g.fillRect(x0, y0, x1 - x0, y1 - y0);
+        renderer.drawMap(g, world.getMap(), camera, x0, y0, x1, y1);
+        g.setClip(null);
+    }
+
+    // 瓦片变化后只重画背景中的这一块，并记为待重画区域，下一次update()时上屏
+    // 两次update()之间摄像机不动，仍对应背景当前的位置
+    public void tileChanged(GameWorld world, int col, int row) {
+        if (world != lastWorld) return; // 下一次update()会整体重画背景
+        int x = col * TileMap.TILE_SIZE, y = row * TileMap.TILE_SIZE;
+        int sx = x - camera.getX(), sy = y - camera.getY();
+        if (sx >= width || sy >= height || sx + TileMap.TILE_SIZE <= 0 || sy + TileMap.TILE_SIZE <= 0) return;
+        Graphics2D g = background.createGraphics();
+        redrawBackground(g, world, sx, sy, sx + TileMap.TILE_SIZE, sy + TileMap.TILE_SIZE);
+        g.dispose();
+        addBounds(x, y, TileMap.TILE_SIZE, TileMap.TILE_SIZE, false);
+    }
+
+    private void redrawHud(GameWorld world) {
+        hudHealth = world.getTanks().getHealth(TankStore.PLAYER);
+        Graphics2D g = hudLayer.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, hudLayer.getWidth(), hudLayer.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        renderer.drawHud(g, world);
+        g.dispose();
+    }
+
+    // 记录本帧视口内实体的包围盒（世界坐标），mark为true时同时标记为脏；候选实体来自视口索引
+    private void recordBounds(GameWorld world, boolean mark) {
+        int m = GameRenderer.INTERPOLATION_MARGIN;
+        int x0 = camera.getX() - m, y0 = camera.getY() - m, x1 = camera.getX() + width + m, y1 = camera.getY() + height + m;
+        double alpha = renderer.getAlpha();
+        TankStore tanks = world.getTanks();
+        addBounds(tanks.getRenderX(TankStore.PLAYER, alpha), tanks.getRenderY(TankStore.PLAYER, alpha),
+                tanks.getWidth(TankStore.PLAYER), tanks.getHeight(TankStore.PLAYER), mark);
+
+        ViewIndex viewIndex = renderer.getViewIndex();
+        int count = viewIndex.queryEnemies(world, x0, y0, x1, y1);
+        int[] visible = viewIndex.getEnemyResult();
+        for (int i = 0; i < count; i++) {
+            int t = visible[i];
+            addBounds(tanks.getRenderX(t, alpha), tanks.getRenderY(t, alpha), tanks.getWidth(t), tanks.getHeight(t), mark);
+        }
+
+        BulletPool bullets = world.getBullets();
+        int size = bullets.getBulletSize();
+        count = viewIndex.queryBullets(world, x0, y0, x1, y1);
+        visible = viewIndex.getBulletResult();
+        for (int i = 0; i < count; i++) {
+            int b = visible[i];
+            addBounds(bullets.getRenderX(b, alpha), bullets.getRenderY(b, alpha), size, size, mark);
+        }
+
+        ParticlePool particles = renderer.getParticles();
+        if (particles != null) {
+            for (int i = 0; i < particles.size(); i++) {
+                int px = particles.getRenderX(i, alpha), py = particles.getRenderY(i, alpha), s = particles.getSize(i);
+                if (px + s > x0 && py + s > y0 && px < x1 && py < y1) {
+                    addBounds(px, py, s, s, mark);
+                }
+            }
+        }
+    }
+
+    private void addBounds(int x, int y, int w, int h, boolean mark) {
+        if (boundsCount == boundsX.length) {
+            int capacity = boundsCount * 2;
+            boundsX = Arrays.copyOf(boundsX, capacity);
+            boundsY = Arrays.copyOf(boundsY, capacity);
+            boundsW = Arrays.copyOf(boundsW, capacity);
+            boundsH = Arrays.copyOf(boundsH, capacity);
+        }
+        boundsX[boundsCount] = x;
+        boundsY[boundsCount] = y;
+        boundsW[boundsCount] = w;
+        boundsH[boundsCount] = h;
+        boundsCount++;
+        if (mark) {
+            markDirty(x, y, w, h);
+        }
+    }
+
+    // 世界坐标的矩形按当前摄像机换算为屏幕坐标
+    private void markDirty(int x, int y, int w, int h) {
+        markScreenDirty(x - camera.getX(), y - camera.getY(), w, h);
+    }
+
+    private void markScreenDirty(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0 || x >= width || y >= height || x + w <= 0 || y + h <= 0) return; // 完全在屏幕外
+        int c0 = Math.max(0, x / TILE_SIZE), c1 = Math.min(cols - 1, (x + w - 1) / TILE_SIZE);
+        int r0 = Math.max(0, y / TILE_SIZE), r1 = Math.min(rows - 1, (y + h - 1) / TILE_SIZE);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                dirtyTiles[r * cols + c] = true;
+            }
+        }
+    }
+
+    // 把每行连续的脏格子合并为矩形，同时计算外接矩形和重画面积
+    private void buildRuns() {
+        runCount = 0;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = 0, maxY = 0;
+        long filled = 0;
+        for (int r = 0; r < rows; r++) {
+            int c = 0;
+            while (c < cols) {
+                if (!dirtyTiles[r * cols + c]) {
+                    c++;
+                    continue;
+                }
+                int start = c;
+                while (c < cols && dirtyTiles[r * cols + c]) {
+                    c++;
+                }
+                int x0 = start * TILE_SIZE, x1 = Math.min(width, c * TILE_SIZE);
+                int y0 = r * TILE_SIZE, y1 = Math.min(height, (r + 1) * TILE_SIZE);
+                int k = runCount++ * 4;
+                runs[k] = x0;
+                runs[k + 1] = y0;
+                runs[k + 2] = x1;
+                runs[k + 3] = y1;
+                minX = Math.min(minX, x0);
+                minY = Math.min(minY, y0);
+                maxX = Math.max(maxX, x1);
+                maxY = Math.max(maxY, y1);
+                filled += (long) (x1 - x0) * (y1 - y0);
+            }
+        }
+        lastFilledPixels = filled;
+        if (filled == 0) {
+            dirtyBounds.setBounds(0, 0, 0, 0);
+        } else {
+            dirtyBounds.setBounds(minX, minY, maxX - minX, maxY - minY);
+        }
+    }
+
+    // 调试用：整屏重画到另一张图像上，与增量结果逐像素比较
+    private void verifyAgainstFullRedraw(GameWorld world) {
+        if (verifyFrame == null) {
+            verifyFrame = new BufferedImage(width, height, frame.getType());
+            verifyExpected = new int[width * height];
+            verifyActual = new int[width * height];
+        }
+        Graphics2D g = verifyFrame.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        renderer.render(g, world, camera);
+        g.dispose();
+
+        verifyFrame.getRGB(0, 0, width, height, verifyExpected, 0, width);
+        frame.getRGB(0, 0, width, height, verifyActual, 0, width);
+        int mismatches = 0;
+        for (int i = 0; i < verifyExpected.length; i++) {
+            if (verifyExpected[i] != verifyActual[i]) mismatches++;
+        }
+        if (mismatches > 0) {
+            System.err.println("Incremental frame differs from full redraw: " + mismatches + " pixels");
+        }
+    }
+
+    // 世界状态被整体替换（倒带）后调用，下一次update()整体重画，恢复的瓦片不会逐块通知tileChanged()
+    public void invalidate() {
+        lastWorld = null;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+
+    public boolean isVerify() {
+        return verify;
+    }
+
+    public long getLastFilledPixels() {
+        return lastFilledPixels;
+    }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    public void setAlpha(double alpha) {
+        renderer.setAlpha(alpha);
+    }
+
+    public BufferedImage getFrame() {
+        return frame;
+    }
+}
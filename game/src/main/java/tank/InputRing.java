@@ -0,0 +1,99 @@
+package tank;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 输入环形缓冲：单生产者（键盘事件线程）单消费者（tick线程），无锁
+// 事件带时间戳入队，每个tick开始时按顺序合并进TickInput；同时统计按键到tick消费、按键到画面上屏的延迟
+class InputRing {
+    static final int DEFAULT_CAPACITY = 256; // 必须是2的幂
+    private static final int PRESS = 1 << 8; // 事件编码：高位为类型，低8位为TickInput方向位
+    private static final int RELEASE = 2 << 8;
+    private static final int FIRE = 3 << 8;
+    private static final int KEY_MASK = 0xFF;
+
+    private final long[] times; // System.nanoTime()时间轴上的事件时间
+    private final int[] events;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // 下一个写入位置，只由生产者推进
+    private final AtomicLong tail = new AtomicLong(); // 下一个读取位置，只由消费者推进
+    private long cachedTail; // 生产者缓存的读取位置，只在看似已满时重新读取
+    private final long[] unpresented; // 已被tick消费、还没上屏的事件时间，只由消费者访问
+    private int unpresentedCount;
+
+    public InputRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.times = new long[capacity];
+        this.events = new int[capacity];
+        this.mask = capacity - 1;
+        this.unpresented = new long[capacity];
+    }
+
+    // 生产者：key为TickInput方向位，缓冲满时丢弃并返回false
+    public boolean press(int key, long nanos) {
+        return offer(PRESS | key, nanos);
+    }
+
+    public boolean release(int key, long nanos) {
+        return offer(RELEASE | key, nanos);
+    }
+
+    public boolean fire(long nanos) {
+        return offer(FIRE, nanos);
+    }
+
+    private boolean offer(int event, long nanos) {
+        long h = head.get();
+        if (h - cachedTail > mask) {
+            cachedTail = tail.get();
+            if (h - cachedTail > mask) return false;
+        }
+        int i = (int) h & mask;
+        times[i] = nanos;
+        events[i] = event;
+        head.lazySet(h + 1); // 发布：数组写入先于head对消费者可见
+        return true;
+    }
+
+    // 消费者：按事件顺序合并进input（方向键为位掩码，开火累加为本tick的命令），排队延迟记入profiler，返回事件数
+    public int drainTo(TickInput input, TickProfiler profiler) {
+        long t = tail.get();
+        long h = head.get();
+        for (long n = t; n < h; n++) {
+            int i = (int) n & mask;
+            int event = events[i];
+            switch (event & ~KEY_MASK) {
+                case PRESS:
+                    input.press(event & KEY_MASK);
+                    break;
+                case RELEASE:
+                    input.release(event & KEY_MASK);
+                    break;
+                default:
+                    input.fire();
+                    break;
+            }
+            profiler.record(TickProfiler.INPUT, times[i]);
+            if (unpresentedCount < unpresented.length) {
+                unpresented[unpresentedCount++] = times[i];
+            }
+        }
+        tail.lazySet(h);
+        return (int) (h - t);
+    }
+
+    // 消费者：一帧上屏之后调用，此前消费的事件记入按键到上屏的延迟
+    public void presented(TickProfiler profiler) {
+        for (int i = 0; i < unpresentedCount; i++) {
+            profiler.record(TickProfiler.PHOTON, unpresented[i]);
+        }
+        unpresentedCount = 0;
+    }
+
+    // 消费者：丢弃所有未处理的事件（换局时调用）
+    public void clear() {
+        tail.lazySet(head.get());
+        unpresentedCount = 0;
+    }
+}
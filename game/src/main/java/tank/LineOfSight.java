@@ -0,0 +1,106 @@
+package tank;
+
+// 视线：沿四个射击方向（即地图的行和列）的可见性缓存，格子即地图瓦片
+// 每个格子记下它在本行、本列所属的连续空地段的起点，两个格子在同一行（列）上互相可见当且仅当属于同一段，查询O(1)
+// 钢墙和砖墙都挡视线（砖墙要先被打掉）；砖墙被摧毁时只重建该瓦片所在的一行和一列
+// 与流场一样由Navigation在串行阶段维护，AI决策阶段（可能并行）只读
+class LineOfSight {
+    static final int BLOCKED = -1;
+    private static final int CELL_SIZE = TileMap.TILE_SIZE;
+
+    private final TileMap map;
+    private final int cols, rows;
+    private final int[] rowRun; // 按格子编号：所在行连续空地段的起始列，墙为BLOCKED
+    private final int[] columnRun; // 按格子编号：所在列连续空地段的起始行，墙为BLOCKED
+    private long rebuiltLines; // 累计重建的行数加列数，用于观察失效开销
+
+    public LineOfSight(TileMap map) {
+        this.map = map;
+        this.cols = map.getCols();
+        this.rows = map.getRows();
+        this.rowRun = new int[cols * rows];
+        this.columnRun = new int[cols * rows];
+        rebuild();
+    }
+
+    // 整张地图重建（恢复关键帧后）
+    public void rebuild() {
+        for (int row = 0; row < rows; row++) {
+            rebuildRow(row);
+        }
+        for (int col = 0; col < cols; col++) {
+            rebuildColumn(col);
+        }
+    }
+
+    // 瓦片变为空地：它两侧的段合并，只有这一行和这一列受影响
+    public void tileCleared(int col, int row) {
+        rebuildRow(row);
+        rebuildColumn(col);
+    }
+
+    private void rebuildRow(int row) {
+        int start = BLOCKED;
+        for (int col = 0, cell = row * cols; col < cols; col++, cell++) {
+            if (map.isSolidCell(cell)) {
+                start = BLOCKED;
+            } else if (start == BLOCKED) {
+                start = col;
+            }
+            rowRun[cell] = start;
+        }
+        rebuiltLines++;
+    }
+
+    private void rebuildColumn(int col) {
+        int start = BLOCKED;
+        for (int row = 0, cell = col; row < rows; row++, cell += cols) {
+            if (map.isSolidCell(cell)) {
+                start = BLOCKED;
+            } else if (start == BLOCKED) {
+                start = row;
+            }
+            columnRun[cell] = start;
+        }
+        rebuiltLines++;
+    }
+
+    private int column(int x) {
+        return Math.min(Math.max(x / CELL_SIZE, 0), cols - 1);
+    }
+
+    private int row(int y) {
+        return Math.min(Math.max(y / CELL_SIZE, 0), rows - 1);
+    }
+
+    // 像素y所在的行上，x0和x1两处之间没有墙
+    public boolean rowClear(int y, int x0, int x1) {
+        int base = row(y) * cols;
+        int run = rowRun[base + column(x0)];
+        return run != BLOCKED && run == rowRun[base + column(x1)];
+    }
+
+    // 像素x所在的列上，y0和y1两处之间没有墙
+    public boolean columnClear(int x, int y0, int y1) {
+        int col = column(x);
+        int run = columnRun[row(y0) * cols + col];
+        return run != BLOCKED && run == columnRun[row(y1) * cols + col];
+    }
+
+    // 从(x, y)出发沿哪个方向射击能打到矩形(tx, ty, tw, th)：射线穿过矩形且中间没有墙，否则返回null
+    // 只看射线中心所在的瓦片行/列，宽度不为0的子弹擦过相邻瓦片的情况不计
+    public Direction firingLane(int x, int y, int tx, int ty, int tw, int th) {
+        if (x >= tx && x < tx + tw) {
+            int targetY = ty + th / 2;
+            if (columnClear(x, y, targetY)) return targetY < y ? Direction.UP : Direction.DOWN;
+        } else if (y >= ty && y < ty + th) {
+            int targetX = tx + tw / 2;
+            if (rowClear(y, x, targetX)) return targetX < x ? Direction.LEFT : Direction.RIGHT;
+        }
+        return null;
+    }
+
+    public long getRebuiltLines() {
+        return rebuiltLines;
+    }
+}
@@ -0,0 +1,10 @@
+package tank;
+
+// 移动策略枚举（TankStore按序号保存，随机换策略时按声明顺序取值，不要调整顺序）
+enum MoveStrategy {
+    RANDOM,      // 随机移动
+    SEEK_PLAYER, // 追踪玩家
+    PATROL,      // 巡逻移动
+    AMBUSH,      // 伏击位置
+    RETREAT      // 撤退策略
+}
@@ -0,0 +1,128 @@
+package tank;
+
+// 敌人导航：追踪玩家的流场在玩家换格子且有敌人处于追踪状态时重建；撤退流场按目标格子缓存，同一格子的撤退目标共用一个
+// 砖墙被摧毁时已构建的流场原地修补，不整体重建
+// prepare()在敌人AI之前串行调用，AI决策阶段（可能并行）只读流场，不会触发构建；伏击用的视线缓存一并在这里维护
+class Navigation {
+    static final int CELL_SIZE = TileMap.TILE_SIZE; // 流场格子即地图瓦片，800x600共300个格子
+    private static final int MAX_CACHED_CELLS = 1 << 22; // 缓存的撤退流场格子总数上限，超出时整体清空（已取得的流场仍然有效）
+
+    private final TileMap map;
+    private final int cols, rows;
+    private final FlowField seekField;
+    private final FlowField[] retreatFields; // 按目标格子编号
+    private final FlowField[] cachedFields; // retreatFields中非空的项，墙体变化时逐个修补
+    private final int[] queue;
+    private final LineOfSight lineOfSight;
+    private int cachedCount;
+    private int mapVersion; // 每次墙体变化加一，修补过的流场记录当前版本，被清出缓存的流场随之过期
+    private int seekCell = -1;
+    private int builds; // 累计构建次数，用于观察缓存效果
+
+    public Navigation(TileMap map) {
+        this.map = map;
+        this.cols = map.getCols();
+        this.rows = map.getRows();
+        this.seekField = new FlowField(cols, rows, CELL_SIZE);
+        this.retreatFields = new FlowField[cols * rows];
+        this.cachedFields = new FlowField[Math.max(16, Math.min(256, MAX_CACHED_CELLS / (cols * rows)))];
+        this.queue = new int[cols * rows];
+        this.lineOfSight = new LineOfSight(map);
+    }
+
+    int cellOf(int x, int y) {
+        int col = Math.min(Math.max(x / CELL_SIZE, 0), cols - 1);
+        int row = Math.min(Math.max(y / CELL_SIZE, 0), rows - 1);
+        return row * cols + col;
+    }
+
+    // decide不为null时只为其中标出的坦克准备（见AiScheduler），本tick惯性移动的坦克不查流场
+    public void prepare(TankStore tanks, boolean[] decide) {
+        boolean anySeeking = false;
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            if (decide == null || decide[t]) {
+                anySeeking |= tanks.prepareNavigation(t, this);
+            }
+        }
+
+        // 流场只由玩家所在格子决定，推迟构建不影响结果
+        int cell = cellOf(tanks.getX(TankStore.PLAYER), tanks.getY(TankStore.PLAYER));
+        if (anySeeking && cell != seekCell) {
+            seekField.build(cell, map, queue);
+            seekCell = cell;
+            builds++;
+        }
+    }
+
+    public FlowField getSeekField() {
+        return seekField;
+    }
+
+    // 通往像素目标所在格子的流场，首次请求时构建；返回的流场在getMapVersion()变化前一直有效
+    FlowField retreatField(int x, int y) {
+        int cell = cellOf(x, y);
+        FlowField field = retreatFields[cell];
+        if (field == null) {
+            if (cachedCount == cachedFields.length) {
+                clearCache();
+            }
+            field = new FlowField(cols, rows, CELL_SIZE);
+            field.build(cell, map, queue);
+            field.setVersion(mapVersion);
+            retreatFields[cell] = field;
+            cachedFields[cachedCount++] = field;
+            builds++;
+        }
+        return field;
+    }
+
+    private void clearCache() {
+        for (int i = 0; i < cachedCount; i++) {
+            retreatFields[cachedFields[i].getTargetCell()] = null;
+            cachedFields[i] = null;
+        }
+        cachedCount = 0;
+    }
+
+    // 砖墙被摧毁：修补追踪流场、缓存中的撤退流场和视线，持有已清出缓存流场的坦克按版本号发现过期后重新获取
+    public void tileCleared(int col, int row) {
+        int cell = row * cols + col;
+        mapVersion++;
+        lineOfSight.tileCleared(col, row);
+        if (seekCell >= 0) {
+            seekField.tileCleared(cell, map, queue);
+        }
+        for (int i = 0; i < cachedCount; i++) {
+            cachedFields[i].tileCleared(cell, map, queue);
+            cachedFields[i].setVersion(mapVersion);
+        }
+    }
+
+    // 地图被整体替换（恢复关键帧）后所有流场和视线重建
+    public void invalidate() {
+        seekCell = -1;
+        clearCache();
+        mapVersion++;
+        lineOfSight.rebuild();
+    }
+
+    public LineOfSight getLineOfSight() {
+        return lineOfSight;
+    }
+
+    public int getMapVersion() {
+        return mapVersion;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getBuilds() {
+        return builds;
+    }
+}
@@ -0,0 +1,269 @@
+package tank;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// 联机客户端：每个本地tick上传一条输入，收到的快照差分还原后载入本地世界
+// 驾驶者做本地预测：载入权威状态后重放服务器尚未处理的输入，因此按键立即生效，误差在下一份快照到达时修正
+class NetClient implements Closeable {
+    private static final int PENDING = 256; // 未确认输入的上限，必须是2的幂
+
+    private final SocketChannel channel;
+    private final FrameBuffer in = new FrameBuffer();
+    private ByteBuffer out = ByteBuffer.allocate(1024);
+    private final byte[][] snapshots = new byte[NetProtocol.HISTORY][];
+    private final int[] snapshotIds = new int[NetProtocol.HISTORY];
+    private final CRC32 crc = new CRC32();
+    private int clientId = -1;
+    private GameWorld world; // 还没收到本局第一份快照时为null
+    private GameWorld nextWorld; // 收到WELCOME后新建，等第一份快照载入后替换world
+    private byte[] latest; // 最新一份尚未载入的快照
+    private int latestInputSeq;
+    private int ackId = -1;
+    private boolean pilot;
+    private int inputSeq;
+    private final int[] pendingKeys = new int[PENDING];
+    private final int[] pendingFires = new int[PENDING];
+    private int pendingHead; // 最早的未确认输入序号，序号seq存放在seq & (PENDING - 1)
+    private byte[] shownTiles = new byte[0]; // 上一次通知视图层时的瓦片，用来找出被快照改变的瓦片
+    private int serverTickMicros;
+    private PhaseHistogram serverTickHistogram; // 非null时记录每份快照附带的服务器tick耗时（微秒）
+    private boolean applyState = true; // 关闭后只还原和校验快照，不建世界（压测客户端）
+    private long bytesIn;
+    private int snapshotCount, fullSnapshotCount;
+    private int crcErrors;
+    private final TickInput replayInput = new TickInput();
+    private final ForwardingListener events = new ForwardingListener();
+
+    public NetClient(String host, int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+    }
+
+    // 每个本地tick调用一次：收取快照、上传本tick输入、推进本地世界，返回false表示连接已断开
+    // 视图层的事件只在首次预测到时回调；瓦片变化统一按与上一帧的差异通知，预测失误被快照纠正时也能重画
+    public boolean tick(TickInput input, WorldListener listener) throws IOException {
+        int read;
+        while ((read = in.fill(channel)) > 0) {
+            bytesIn += read;
+            readFrames();
+        }
+        if (read < 0) return false;
+
+        if (nextWorld != null && latest != null) {
+            world = nextWorld;
+            nextWorld = null;
+        }
+        int seq = ++inputSeq;
+        if (pilot) {
+            pendingKeys[seq & (PENDING - 1)] = input.getKeys();
+            pendingFires[seq & (PENDING - 1)] = input.getFireCount();
+            if (seq - pendingHead >= PENDING) pendingHead = seq - PENDING + 1;
+        }
+        out = NetProtocol.ensure(out, 4 + NetProtocol.INPUT_SIZE);
+        NetProtocol.putInput(out, seq, input.getKeys(), input.getFireCount(), ackId);
+        NetProtocol.flush(out, channel);
+
+        if (!applyState) {
+            latest = null;
+            return true;
+        }
+        if (world == null) return true;
+        events.target = listener;
+        events.enabled = false;
+        if (latest != null) {
+            world.readState(new DataInputStream(new ByteArrayInputStream(latest)));
+            latest = null;
+            if (pilot) {
+                // 重放服务器尚未处理的输入，最后一条是本tick的新输入
+                if (latestInputSeq - pendingHead >= 0) pendingHead = latestInputSeq + 1;
+                for (int s = pendingHead; s - seq <= 0; s++) {
+                    events.enabled = s == seq;
+                    replayInput.set(pendingKeys[s & (PENDING - 1)], pendingFires[s & (PENDING - 1)]);
+                    world.step(replayInput);
+                }
+            }
+        } else if (pilot) {
+            events.enabled = true;
+            world.step(input);
+        }
+        notifyTileChanges(listener);
+        return true;
+    }
+
+    private void readFrames() throws IOException {
+        ByteBuffer frame;
+        while ((frame = in.next()) != null) {
+            byte type = frame.get();
+            if (type == NetProtocol.WELCOME) {
+                readWelcome(frame);
+            } else if (type == NetProtocol.SNAPSHOT) {
+                readSnapshot(frame);
+            } else {
+                throw new IOException("Unknown frame type " + type);
+            }
+        }
+    }
+
+    // 新的一局：按服务器参数建世界（地图只需尺寸，瓦片随快照下发），之前的快照全部作废
+    private void readWelcome(ByteBuffer frame) {
+        clientId = frame.getInt();
+        int level = frame.getInt();
+        long seed = frame.getLong();
+        int playerSize = frame.getShort(), enemySize = frame.getShort(), bulletSize = frame.getShort();
+        int cols = frame.getInt(), rows = frame.getInt();
+        int aiBudget = frame.getInt();
+        boolean sweptCollision = frame.get() != 0;
+        boolean ambushAim = frame.get() != 0;
+        if (applyState) {
+            nextWorld = new GameWorld(level, seed, playerSize, enemySize, bulletSize, new TileMap(cols, rows));
+            nextWorld.setAiBudget(aiBudget);
+            nextWorld.setSweptCollision(sweptCollision);
+            nextWorld.setAmbushAim(ambushAim);
+            nextWorld.setListener(events);
+        }
+        Arrays.fill(snapshots, null);
+        latest = null;
+        ackId = -1;
+        pendingHead = inputSeq + 1;
+    }
+
+    private void readSnapshot(ByteBuffer frame) throws IOException {
+        int id = frame.getInt();
+        int baseId = frame.getInt();
+        int inputSeq = frame.getInt();
+        int flags = frame.get();
+        serverTickMicros = frame.getInt();
+        int expectedCrc = frame.getInt();
+        if (serverTickHistogram != null) serverTickHistogram.record(serverTickMicros);
+        byte[] base = null;
+        if (baseId >= 0) {
+            int slot = baseId & (NetProtocol.HISTORY - 1);
+            if (snapshotIds[slot] != baseId || snapshots[slot] == null) {
+                ackId = -1; // 基准已丢失（不应发生），请求完整快照
+                return;
+            }
+            base = snapshots[slot];
+        }
+        byte[] state = SnapshotDelta.decode(base, frame);
+        snapshotCount++;
+        if (base == null) fullSnapshotCount++;
+        crc.reset();
+        crc.update(state);
+        if ((int) crc.getValue() != expectedCrc) {
+            crcErrors++;
+            ackId = -1;
+            return;
+        }
+        int slot = id & (NetProtocol.HISTORY - 1);
+        snapshots[slot] = state;
+        snapshotIds[slot] = id;
+        ackId = id;
+        latest = state;
+        latestInputSeq = inputSeq;
+        boolean wasPilot = pilot;
+        pilot = (flags & NetProtocol.FLAG_PILOT) != 0;
+        if (pilot && !wasPilot) {
+            pendingHead = this.inputSeq + 1; // 刚接手驾驶，之前的输入服务器没有用过
+        }
+    }
+
+    private void notifyTileChanges(WorldListener listener) {
+        TileMap map = world.getMap();
+        int cols = map.getCols();
+        if (shownTiles.length != cols * map.getRows()) {
+            shownTiles = new byte[cols * map.getRows()]; // 新的一局由渲染器整体重画
+            for (int i = 0; i < shownTiles.length; i++) {
+                shownTiles[i] = map.getTile(i % cols, i / cols);
+            }
+            return;
+        }
+        for (int i = 0; i < shownTiles.length; i++) {
+            byte tile = map.getTile(i % cols, i / cols);
+            if (tile != shownTiles[i]) {
+                shownTiles[i] = tile;
+                listener.tileDestroyed(i % cols, i / cols);
+            }
+        }
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public boolean isPilot() {
+        return pilot;
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    public int getServerTickMicros() {
+        return serverTickMicros;
+    }
+
+    public void setApplyState(boolean applyState) {
+        this.applyState = applyState;
+    }
+
+    public void setServerTickHistogram(PhaseHistogram serverTickHistogram) {
+        this.serverTickHistogram = serverTickHistogram;
+    }
+
+    public int getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    public int getFullSnapshotCount() {
+        return fullSnapshotCount;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public int getCrcErrors() {
+        return crcErrors;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
+
+// 世界事件只在enabled时转发给视图层；瓦片变化由notifyTileChanges统一通知
+class ForwardingListener implements WorldListener {
+    WorldListener target;
+    boolean enabled;
+
+    @Override
+    public void enemyDestroyed(int tank) {
+        if (enabled && target != null) target.enemyDestroyed(tank);
+    }
+
+    @Override
+    public void playerHit() {
+        if (enabled && target != null) target.playerHit();
+    }
+
+    @Override
+    public void bulletFired(int x, int y, Direction direction) {
+        if (enabled && target != null) target.bulletFired(x, y, direction);
+    }
+
+    @Override
+    public void bulletHitWall(int x, int y) {
+        if (enabled && target != null) target.bulletHitWall(x, y);
+    }
+}
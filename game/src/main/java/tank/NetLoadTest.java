@@ -0,0 +1,171 @@
+package tank;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+// 联机压测：一个线程按tick速率驱动大量模拟客户端（随机输入），每秒报告每客户端的下行带宽和服务器tick耗时
+// 前--predict个客户端完整载入快照并做本地预测，其余只还原和校验快照；没有--connect时在本进程内启动服务器
+class NetLoadTest {
+    // 用法: java -cp tank.jar tank.NetLoadTest [--connect host:port] [--clients 100] [--seconds 10]
+    //       [--predict 1] [--level 3] [--seed 1] [--cols 0] [--match-size 4] [--ai-budget 0]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = null;
+        int port = NetProtocol.DEFAULT_PORT;
+        int clientCount = 100;
+        int seconds = 10;
+        int predict = 1;
+        int level = 3;
+        long seed = 1;
+        int mapCols = 0;
+        int matchSize = 4;
+        int aiBudget = 0;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for option " + args[i]);
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--connect":
+                    String[] parts = args[i + 1].split(":");
+                    host = parts[0];
+                    if (parts.length > 1) port = Integer.parseInt(parts[1]);
+                    break;
+                case "--clients":
+                    clientCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--predict":
+                    predict = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--level":
+                    level = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--cols":
+                    mapCols = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--match-size":
+                    matchSize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--ai-budget":
+                    aiBudget = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        NetServer server = null;
+        Thread serverThread = null;
+        if (host == null) {
+            server = new NetServer(0, level, seed, mapCols, matchSize);
+            server.setPrintStats(false);
+            server.setAiBudget(aiBudget);
+            serverThread = new Thread(server, "net-server");
+            serverThread.start();
+            host = "127.0.0.1";
+            port = server.getPort();
+        }
+
+        NetClient[] clients = new NetClient[clientCount];
+        PlayerController[] controllers = new PlayerController[clientCount];
+        TickInput[] inputs = new TickInput[clientCount];
+        PhaseHistogram serverTicks = new PhaseHistogram();
+        PhaseHistogram clientTicks = new PhaseHistogram();
+        WorldListener listener = new WorldListener() {
+        };
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new NetClient(host, port);
+            clients[i].setApplyState(i < predict);
+            controllers[i] = new RandomPlayerController(seed + i);
+            inputs[i] = new TickInput();
+        }
+        clients[0].setServerTickHistogram(serverTicks);
+        System.out.printf("connected %d clients to %s:%d%n", clientCount, host, port);
+
+        long[] counts = new long[PhaseHistogram.BUCKET_COUNT];
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long nextTick = start;
+        long reportStart = start;
+        long reportBytes = 0, reportSnapshots = 0;
+        long lateTicks = 0;
+        int disconnected = 0;
+        while (System.nanoTime() - end < 0 && disconnected < clientCount) {
+            for (int i = 0; i < clientCount; i++) {
+                if (clients[i] == null) continue;
+                controllers[i].update(null, inputs[i]);
+                long clientStart = i < predict ? System.nanoTime() : 0;
+                if (!clients[i].tick(inputs[i], listener)) {
+                    clients[i].close();
+                    clients[i] = null;
+                    disconnected++;
+                    continue;
+                }
+                if (i < predict) clientTicks.record(System.nanoTime() - clientStart);
+            }
+
+            long now = System.nanoTime();
+            if (now - reportStart >= 1_000_000_000L) {
+                long bytes = 0, snapshots = 0;
+                for (NetClient client : clients) {
+                    if (client == null) continue;
+                    bytes += client.getBytesIn();
+                    snapshots += client.getSnapshotCount();
+                }
+                double window = (now - reportStart) / 1e9;
+                int alive = clientCount - disconnected;
+                long[] serverStats = serverTicks.drainTo(counts);
+                long p50 = PhaseHistogram.percentile(counts, serverStats[0], 0.5);
+                long p99 = PhaseHistogram.percentile(counts, serverStats[0], 0.99);
+                long[] client = clientTicks.drainTo(counts);
+                System.out.printf("clients=%d down=%.2fKB/s per client snapshots=%.0f/s per client server tick p50=%dus p99=%dus max=%dus predict tick avg=%.1fus late=%d%n",
+                        alive, (bytes - reportBytes) / 1024.0 / window / Math.max(1, alive),
+                        (snapshots - reportSnapshots) / window / Math.max(1, alive), p50, p99, serverStats[2],
+                        client[0] > 0 ? client[1] / 1000.0 / client[0] : 0.0, lateTicks);
+                reportBytes = bytes;
+                reportSnapshots = snapshots;
+                reportStart = now;
+                lateTicks = 0;
+            }
+
+            nextTick += NetProtocol.TICK_NANOS;
+            long remaining = nextTick - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            } else if (remaining < -NetProtocol.TICK_NANOS) {
+                lateTicks++; // 压测端自己跟不上时不追赶，带宽会相应偏低
+                nextTick = System.nanoTime();
+            }
+        }
+
+        long bytes = 0, snapshots = 0, full = 0, crcErrors = 0;
+        for (NetClient client : clients) {
+            if (client == null) continue;
+            bytes += client.getBytesIn();
+            snapshots += client.getSnapshotCount();
+            full += client.getFullSnapshotCount();
+            crcErrors += client.getCrcErrors();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        int alive = clientCount - disconnected;
+        System.out.printf("total clients=%d disconnected=%d time=%.1fs down=%.2fKB/s per client avg snapshot=%.0f bytes full=%d crc errors=%d%n",
+                clientCount, disconnected, elapsed, bytes / 1024.0 / elapsed / Math.max(1, alive),
+                snapshots > 0 ? (double) bytes / snapshots : 0.0, full, crcErrors);
+
+        // 先停服务器再断开客户端，服务器不会把客户端关闭当作错误报告
+        if (server != null) {
+            server.close();
+            serverThread.join();
+        }
+        for (NetClient client : clients) {
+            if (client != null) client.close();
+        }
+        if (crcErrors > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,55 @@
+package tank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// 联机协议（TCP，大端）：每帧 = int长度（不含自身）+ 1字节类型 + 内容
+//   WELCOME  服务器→客户端  客户端编号, 关卡, 种子, 玩家/敌人/子弹尺寸(short), 地图列数, 行数, AI预算, 连续碰撞(1字节),
+//                           伏击瞄准(1字节)；每开一局发一次
+//   SNAPSHOT 服务器→客户端  快照编号, 基准编号(-1为完整快照), 已处理的最后输入序号, 标志, 上一tick服务器耗时(微秒), CRC32, 差分数据
+//   INPUT    客户端→服务器  输入序号, 方向键, 射击次数, 已确认的快照编号
+// 快照内容就是GameWorld.writeState，客户端用同样的参数建世界后readState即可，预测时直接推进本地世界
+class NetProtocol {
+    static final int DEFAULT_PORT = 7777;
+    static final byte WELCOME = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte INPUT = 3;
+    static final int FLAG_PILOT = 1; // 收到快照的客户端控制本局的玩家坦克
+    static final int FLAG_STALE = 2; // 服务器还没有收到该客户端的新输入，重复了上一次的方向键
+    static final int HISTORY = 64; // 服务器和客户端各保留最近的快照作为差分基准（按编号取模）
+    static final int MAX_FRAME = 1 << 24;
+    static final int WELCOME_SIZE = 1 + 4 + 4 + 8 + 2 * 3 + 4 + 4 + 4 + 1 + 1;
+    static final int SNAPSHOT_HEADER_SIZE = 1 + 4 + 4 + 4 + 1 + 4 + 4;
+    static final int INPUT_SIZE = 1 + 4 + 1 + 1 + 4;
+    static final long TICK_NANOS = GameWorld.TICK_MILLIS * 1_000_000L;
+
+    static void putInput(ByteBuffer out, int seq, int keys, int fireCount, int ackId) {
+        out.putInt(INPUT_SIZE);
+        out.put(INPUT);
+        out.putInt(seq);
+        out.put((byte) keys);
+        out.put((byte) Math.min(fireCount, 127));
+        out.putInt(ackId);
+    }
+
+    // 写缓冲区满时扩容，保留未发送的内容
+    static ByteBuffer ensure(ByteBuffer out, int extra) {
+        if (out.remaining() >= extra) return out;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + extra));
+        out.flip();
+        bigger.put(out);
+        return bigger;
+    }
+
+    // 尽量写出缓冲区（写模式）中的内容，返回是否已全部写出
+    static boolean flush(ByteBuffer out, WritableByteChannel channel) throws IOException {
+        out.flip();
+        try {
+            channel.write(out);
+            return !out.hasRemaining();
+        } finally {
+            out.compact();
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package tank;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// 服务器端的一个连接：收输入、记录确认的快照编号，写缓冲区有积压时跳过快照
+class ClientSession {
+    private static final int INPUT_QUEUE = 32; // 必须是2的幂
+    private static final int MAX_INPUT_BACKLOG = 8; // 积压超过时一个tick合并多条输入追上客户端
+
+    final int id;
+    final SocketChannel channel;
+    final FrameBuffer in = new FrameBuffer();
+    ByteBuffer out = ByteBuffer.allocate(16 * 1024);
+    Match match;
+    int ackId = -1; // 客户端已还原的最新快照编号
+    boolean ready; // 收到第一条输入后才下发快照，客户端还在初始化时不会积压一串完整快照
+    private final int[] inputSeqs = new int[INPUT_QUEUE];
+    private final int[] inputKeys = new int[INPUT_QUEUE];
+    private final int[] inputFires = new int[INPUT_QUEUE];
+    private int inputHead, inputTail;
+    int lastInputSeq; // 最后一条已用于推进世界的输入
+    private int lastKeys;
+    boolean stale; // 本tick没有新输入
+    long bytesOut;
+    int skippedSnapshots;
+
+    ClientSession(int id, SocketChannel channel) {
+        this.id = id;
+        this.channel = channel;
+    }
+
+    void readFrames() throws IOException {
+        ByteBuffer frame;
+        while ((frame = in.next()) != null) {
+            if (frame.get() != NetProtocol.INPUT || frame.remaining() < NetProtocol.INPUT_SIZE - 1) {
+                throw new IOException("Unexpected frame from client " + id);
+            }
+            int seq = frame.getInt();
+            int keys = frame.get() & 0xF;
+            int fireCount = frame.get();
+            int ack = frame.getInt();
+            ready = true;
+            if (ack > ackId) ackId = ack; // TCP保证有序，取最大值即可
+            if (seq - lastInputSeq <= 0) continue; // 重复或过期
+            if (inputTail - inputHead == INPUT_QUEUE) inputHead++; // 队列满时丢弃最旧的
+            int slot = inputTail++ & (INPUT_QUEUE - 1);
+            inputSeqs[slot] = seq;
+            inputKeys[slot] = keys;
+            inputFires[slot] = fireCount;
+        }
+    }
+
+    // 取出本tick的输入：通常一条；没有新输入时沿用上一次的方向键、不开火；积压过多时合并
+    void takeInput(TickInput input) {
+        if (inputHead == inputTail) {
+            input.set(lastKeys, 0);
+            stale = true;
+            return;
+        }
+        int fireCount = 0;
+        do {
+            int slot = inputHead++ & (INPUT_QUEUE - 1);
+            lastInputSeq = inputSeqs[slot];
+            lastKeys = inputKeys[slot];
+            fireCount += inputFires[slot];
+        } while (inputTail - inputHead > MAX_INPUT_BACKLOG);
+        input.set(lastKeys, fireCount);
+        stale = false;
+    }
+
+    void clearInputs() {
+        inputHead = inputTail;
+        lastKeys = 0;
+    }
+}
+
+// 一局比赛：一个权威的GameWorld，第一个客户端控制玩家坦克，其余旁观；结束后换种子重开
+class Match {
+    private static final int RESTART_DELAY_TICKS = 300;
+    private static final int ENCODE_CACHE = 4; // 同一tick内按基准编号缓存差分结果，确认进度相同的客户端共用
+
+    final List<ClientSession> clients = new ArrayList<>();
+    private final int level;
+    private final long baseSeed;
+    private final int playerSize, enemySize, bulletSize;
+    private final int mapCols;
+    private final int aiBudget;
+    private int games;
+    private GameWorld world;
+    private final TickInput input = new TickInput();
+    private int restartCountdown;
+    private int nextSnapshotId;
+    private final byte[][] history = new byte[NetProtocol.HISTORY][];
+    private final int[] historyIds = new int[NetProtocol.HISTORY];
+    private final int[] historyCrcs = new int[NetProtocol.HISTORY];
+    private final ByteArrayOutputStream stateBytes = new ByteArrayOutputStream();
+    private final DataOutputStream stateOut = new DataOutputStream(stateBytes);
+    private final CRC32 crc = new CRC32();
+    private final int[] cacheBaseIds = new int[ENCODE_CACHE];
+    private final ByteBuffer[] cacheBodies = new ByteBuffer[ENCODE_CACHE];
+    private int cacheCount;
+
+    Match(int level, long baseSeed, int playerSize, int enemySize, int bulletSize, int mapCols, int aiBudget) {
+        this.level = level;
+        this.baseSeed = baseSeed;
+        this.playerSize = playerSize;
+        this.enemySize = enemySize;
+        this.bulletSize = bulletSize;
+        this.mapCols = mapCols;
+        this.aiBudget = aiBudget;
+        for (int i = 0; i < ENCODE_CACHE; i++) {
+            cacheBodies[i] = ByteBuffer.allocate(4096);
+        }
+        startGame();
+    }
+
+    private void startGame() {
+        long seed = baseSeed + games++;
+        TileMap map = mapCols > 0 ? TileMap.generate(mapCols, mapCols * 3 / 4, seed) : TileMap.forLevel(level);
+        world = new GameWorld(level, seed, playerSize, enemySize, bulletSize, map);
+        world.setAiBudget(aiBudget);
+        Arrays.fill(history, null);
+        for (ClientSession client : clients) {
+            client.ackId = -1;
+            client.clearInputs();
+            sendWelcome(client);
+        }
+    }
+
+    void add(ClientSession client) {
+        clients.add(client);
+        client.match = this;
+        sendWelcome(client);
+    }
+
+    void remove(ClientSession client) {
+        if (clients.indexOf(client) == 0 && clients.size() > 1) {
+            clients.get(1).clearInputs(); // 新的驾驶者从自己的下一条输入开始
+        }
+        clients.remove(client);
+        client.match = null;
+    }
+
+    private void sendWelcome(ClientSession client) {
+        client.out = NetProtocol.ensure(client.out, 4 + NetProtocol.WELCOME_SIZE);
+        ByteBuffer out = client.out;
+        out.putInt(NetProtocol.WELCOME_SIZE);
+        out.put(NetProtocol.WELCOME);
+        out.putInt(client.id);
+        out.putInt(level);
+        out.putLong(world.getSeed());
+        out.putShort((short) playerSize);
+        out.putShort((short) enemySize);
+        out.putShort((short) bulletSize);
+        out.putInt(world.getMap().getCols());
+        out.putInt(world.getMap().getRows());
+        out.putInt(aiBudget);
+        out.put((byte) (world.isSweptCollision() ? 1 : 0));
+        out.put((byte) (world.isAmbushAim() ? 1 : 0));
+    }
+
+    // 推进一个tick并把快照写入各客户端的写缓冲区（不做网络IO）
+    void tick(int lastTickMicros) {
+        if (world.isGameOver() && --restartCountdown <= 0) {
+            startGame();
+        }
+        ClientSession pilot = clients.get(0);
+        pilot.takeInput(input);
+        if (!world.isGameOver()) {
+            world.step(input);
+            if (world.isGameOver()) restartCountdown = RESTART_DELAY_TICKS;
+        }
+
+        stateBytes.reset();
+        try {
+            world.writeState(stateOut);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // 写入内存不会失败
+        }
+        int id = nextSnapshotId++;
+        int slot = id & (NetProtocol.HISTORY - 1);
+        byte[] state = stateBytes.toByteArray();
+        crc.reset();
+        crc.update(state);
+        history[slot] = state;
+        historyIds[slot] = id;
+        historyCrcs[slot] = (int) crc.getValue();
+
+        cacheCount = 0;
+        for (int i = 0; i < clients.size(); i++) {
+            ClientSession client = clients.get(i);
+            if (!client.ready) continue;
+            if (client.out.position() > 0) { // 上一个快照还没写完，等客户端跟上后再按它确认的编号差分
+                client.skippedSnapshots++;
+                continue;
+            }
+            int flags = (i == 0 ? NetProtocol.FLAG_PILOT : 0) | (i == 0 && pilot.stale ? NetProtocol.FLAG_STALE : 0);
+            writeSnapshot(client, id, state, flags, lastTickMicros);
+        }
+    }
+
+    private void writeSnapshot(ClientSession client, int id, byte[] state, int flags, int lastTickMicros) {
+        int baseId = -1;
+        if (client.ackId >= 0 && id - client.ackId < NetProtocol.HISTORY) {
+            int baseSlot = client.ackId & (NetProtocol.HISTORY - 1);
+            if (history[baseSlot] != null && historyIds[baseSlot] == client.ackId) baseId = client.ackId;
+        }
+        ByteBuffer body = encode(baseId, state);
+        client.out = NetProtocol.ensure(client.out, 4 + NetProtocol.SNAPSHOT_HEADER_SIZE + body.remaining());
+        ByteBuffer out = client.out;
+        out.putInt(NetProtocol.SNAPSHOT_HEADER_SIZE + body.remaining());
+        out.put(NetProtocol.SNAPSHOT);
+        out.putInt(id);
+        out.putInt(baseId);
+        out.putInt(client == clients.get(0) ? client.lastInputSeq : 0);
+        out.put((byte) flags);
+        out.putInt(lastTickMicros);
+        out.putInt(historyCrcs[id & (NetProtocol.HISTORY - 1)]);
+        out.put(body.duplicate());
+    }
+
+    // 返回处于读模式的差分数据，同一tick内相同基准只编码一次
+    private ByteBuffer encode(int baseId, byte[] state) {
+        for (int i = 0; i < cacheCount; i++) {
+            if (cacheBaseIds[i] == baseId) return cacheBodies[i];
+        }
+        int i = cacheCount < ENCODE_CACHE ? cacheCount++ : ENCODE_CACHE - 1;
+        int maxSize = SnapshotDelta.maxEncodedSize(state.length);
+        if (cacheBodies[i].capacity() < maxSize) {
+            cacheBodies[i] = ByteBuffer.allocate(maxSize);
+        }
+        ByteBuffer body = cacheBodies[i];
+        body.clear();
+        byte[] base = baseId >= 0 ? history[baseId & (NetProtocol.HISTORY - 1)] : null;
+        SnapshotDelta.encode(base, base != null ? base.length : 0, state, state.length, body);
+        body.flip();
+        cacheBaseIds[i] = baseId;
+        return body;
+    }
+
+    GameWorld getWorld() {
+        return world;
+    }
+}
+
+// 权威服务器：单线程Selector非阻塞收发，固定tick速率推进所有比赛；客户端只上传输入
+// 新客户端加入未满的比赛，没有则新开一局；每秒在标准输出打印tick耗时和出站带宽
+class NetServer implements Runnable, Closeable {
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final int level;
+    private final long seed;
+    private final int mapCols;
+    private final int matchSize;
+    private final int playerSize, enemySize, bulletSize;
+    private int aiBudget; // 见GameWorld.setAiBudget，只影响之后新开的对局
+    private final List<Match> matches = new ArrayList<>();
+    private final List<ClientSession> sessions = new ArrayList<>();
+    private int nextClientId;
+    private long matchesStarted;
+    private volatile boolean running = true;
+    private boolean printStats = true;
+    private int lastTickMicros;
+    // 每秒的统计
+    private long statTicks, statTickNanos, statMaxTickNanos, statBytesOut, statStart;
+
+    public NetServer(int port, int level, long seed, int mapCols, int matchSize) throws IOException {
+        this.level = level;
+        this.seed = seed;
+        this.mapCols = mapCols;
+        this.matchSize = matchSize;
+        int[] sizes = spriteSizes();
+        this.playerSize = sizes[0];
+        this.enemySize = sizes[1];
+        this.bulletSize = sizes[2];
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // 与GamePanel一致：尺寸取自贴图，读不到时用默认值，这样联机画面与单机相同
+    static int[] spriteSizes() {
+        URL playerResource = NetServer.class.getResource(AssetManager.PLAYER_IMAGE);
+        URL enemyResource = NetServer.class.getResource(AssetManager.ENEMY_IMAGE);
+        if (playerResource == null || enemyResource == null) {
+            System.err.println("Error loading images: missing " + (playerResource == null ? AssetManager.PLAYER_IMAGE : AssetManager.ENEMY_IMAGE));
+        } else {
+            try {
+                BufferedImage player = ImageIO.read(playerResource);
+                BufferedImage enemy = ImageIO.read(enemyResource);
+                if (player != null && enemy != null) {
+                    return new int[]{player.getWidth(), enemy.getWidth(), AssetManager.BULLET_SIZE};
+                }
+                System.err.println("Error loading images: unsupported image format");
+            } catch (IOException e) {
+                System.err.println("Error loading images: " + e.getMessage());
+            }
+        }
+        return new int[]{GameWorld.DEFAULT_TANK_SIZE, GameWorld.DEFAULT_TANK_SIZE, GameWorld.DEFAULT_BULLET_SIZE};
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public void setPrintStats(boolean printStats) {
+        this.printStats = printStats;
+    }
+
+    // 须在run()之前调用
+    public void setAiBudget(int aiBudget) {
+        this.aiBudget = aiBudget;
+    }
+
+    // 测试用：第index局的权威世界；run()结束后比赛随客户端一起移除，须在close()之前取出，join之后再读内容
+    GameWorld getMatchWorld(int index) {
+        return matches.get(index).getWorld();
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime();
+        statStart = nextTick;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 1_000_000) {
+                    selector.select(wait / 1_000_000);
+                } else {
+                    selector.selectNow();
+                }
+                handleKeys();
+
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    long end = System.nanoTime();
+                    recordTick(end - now, end);
+                    nextTick += NetProtocol.TICK_NANOS;
+                    if (end - nextTick > 10 * NetProtocol.TICK_NANOS) {
+                        nextTick = end; // 落后太多时不追赶
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            ClientSession client = (ClientSession) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    if (client.in.fill(client.channel) < 0) {
+                        disconnect(client);
+                        continue;
+                    }
+                    client.readFrames();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush(client);
+                }
+            } catch (IOException e) {
+                System.err.println("Client " + client.id + " error: " + e.getMessage());
+                disconnect(client);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ClientSession client = new ClientSession(nextClientId++, channel);
+            channel.register(selector, SelectionKey.OP_READ, client);
+            sessions.add(client);
+            Match match = null;
+            for (Match m : matches) {
+                if (m.clients.size() < matchSize) {
+                    match = m;
+                    break;
+                }
+            }
+            if (match == null) {
+                match = new Match(level, seed + matchesStarted++ * 1000, playerSize, enemySize, bulletSize, mapCols, aiBudget);
+                matches.add(match);
+            }
+            match.add(client);
+        }
+    }
+
+    private void tick() {
+        for (Match match : matches) {
+            match.tick(lastTickMicros);
+        }
+        // 复制一份，写失败时会从列表中移除
+        for (ClientSession client : sessions.toArray(new ClientSession[0])) {
+            if (client.out.position() == 0) continue;
+            try {
+                flush(client);
+            } catch (IOException e) {
+                System.err.println("Client " + client.id + " error: " + e.getMessage());
+                disconnect(client);
+            }
+        }
+    }
+
+    // 写不完的部分等通道可写时继续
+    private void flush(ClientSession client) throws IOException {
+        int before = client.out.position();
+        boolean done = NetProtocol.flush(client.out, client.channel);
+        int written = before - client.out.position();
+        client.bytesOut += written;
+        statBytesOut += written;
+        SelectionKey key = client.channel.keyFor(selector);
+        key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void disconnect(ClientSession client) {
+        sessions.remove(client);
+        Match match = client.match;
+        if (match != null) {
+            match.remove(client);
+            if (match.clients.isEmpty()) matches.remove(match);
+        }
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing client: " + e.getMessage());
+        }
+    }
+
+    private void recordTick(long nanos, long now) {
+        lastTickMicros = (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+        statTicks++;
+        statTickNanos += nanos;
+        statMaxTickNanos = Math.max(statMaxTickNanos, nanos);
+        if (now - statStart >= 1_000_000_000L) {
+            if (printStats) {
+                double seconds = (now - statStart) / 1e9;
+                System.out.printf("clients=%d matches=%d ticks=%d tick avg=%dus max=%dus out=%.1fKB/s (%.2fKB/s per client)%n",
+                        sessions.size(), matches.size(), statTicks, statTickNanos / statTicks / 1000, statMaxTickNanos / 1000,
+                        statBytesOut / 1024.0 / seconds, sessions.isEmpty() ? 0.0 : statBytesOut / 1024.0 / seconds / sessions.size());
+            }
+            statTicks = 0;
+            statTickNanos = 0;
+            statMaxTickNanos = 0;
+            statBytesOut = 0;
+            statStart = now;
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void closeAll() {
+        for (ClientSession client : sessions.toArray(new ClientSession[0])) {
+            disconnect(client);
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing server: " + e.getMessage());
+        }
+    }
+
+    // 用法: java -cp tank.jar tank.NetServer [--port 7777] [--level 3] [--seed 1] [--cols 0] [--match-size 4] [--ai-budget 0]
+    // --cols大于0时每局使用按种子生成的大地图，--match-size为每局最多的客户端数（第一个驾驶，其余旁观）
+    // --ai-budget大于0时开启敌人AI的细节层次，值为中远处敌人每tick的目标决策数
+    public static void main(String[] args) throws IOException {
+        int port = NetProtocol.DEFAULT_PORT;
+        int level = 3;
+        long seed = 1;
+        int mapCols = 0;
+        int matchSize = 4;
+        int aiBudget = 0;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for option " + args[i]);
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--level":
+                    level = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--cols":
+                    mapCols = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--match-size":
+                    matchSize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--ai-budget":
+                    aiBudget = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        NetServer server = new NetServer(port, level, seed, mapCols, matchSize);
+        server.setAiBudget(aiBudget);
+        System.out.println("Listening on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,216 @@
+package tank;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+// 粒子池（结构数组）：炮口火光、命中火花和爆炸，纯视觉效果，不属于世界状态，不影响模拟、回放和联机
+// 容量固定，创建后不再分配内存；超过半满后每次喷发的粒子数按剩余空间线性减少，满载时新粒子直接丢弃，
+// 任意负载下每tick更新和每帧绘制的开销都以容量为上限
+// 每tick在一个循环里推进全部粒子，寿命耗尽的与末尾交换移除；绘制时按颜色分桶，每种颜色只设置一次
+class ParticlePool {
+    static final int DEFAULT_CAPACITY = 16384;
+    static final int MAX_SIZE = 4; // 粒子最大边长，渲染器据此扩大可见范围
+    private static final byte FLASH = 0; // 粒子种类即调色板的行
+    private static final byte SPARK = 1;
+    private static final byte FIRE = 2;
+    private static final byte SMOKE = 3;
+    private static final int SHADES = 4; // 每种粒子按剩余寿命分4档，越接近消失越暗
+    private static final Color[] PALETTE = {
+            new Color(255, 255, 220), new Color(255, 240, 150), new Color(230, 200, 90), new Color(160, 130, 60),
+            new Color(255, 250, 200), new Color(255, 200, 80), new Color(220, 130, 40), new Color(140, 70, 20),
+            new Color(255, 230, 120), new Color(255, 150, 40), new Color(210, 70, 20), new Color(120, 30, 10),
+            new Color(150, 150, 150), new Color(115, 115, 115), new Color(80, 80, 80), new Color(50, 50, 50)
+    };
+    private static final int ANGLES = 64; // 喷发方向取自单位向量表，不在运行时调用三角函数
+    private static final float[] COS = new float[ANGLES], SIN = new float[ANGLES];
+    private static final float DRAG = 0.9f; // 每tick速度衰减
+
+    static {
+        for (int a = 0; a < ANGLES; a++) {
+            COS[a] = (float) Math.cos(2 * Math.PI * a / ANGLES);
+            SIN[a] = (float) Math.sin(2 * Math.PI * a / ANGLES);
+        }
+    }
+
+    private final int capacity;
+    private final float[] x, y, vx, vy;
+    private final short[] life, maxLife;
+    private final byte[] kind;
+    private final byte[] size;
+    private int count;
+    private final GameRandom rand;
+    private int viewX0 = Integer.MIN_VALUE, viewY0 = Integer.MIN_VALUE; // 喷发范围（世界坐标），之外的效果不生成
+    private int viewX1 = Integer.MAX_VALUE, viewY1 = Integer.MAX_VALUE;
+    private long emitted, dropped;
+
+    // 绘制时的分桶：shade[i]为粒子i本帧的调色板下标（不可见为-1），order按颜色排列可见粒子
+    private final byte[] shade;
+    private final int[] order;
+    private final int[] bucketStart = new int[PALETTE.length + 1];
+
+    public ParticlePool(int capacity, long seed) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new short[capacity];
+        maxLife = new short[capacity];
+        kind = new byte[capacity];
+        size = new byte[capacity];
+        shade = new byte[capacity];
+        order = new int[capacity];
+        rand = new GameRandom(seed);
+    }
+
+    // 只在这个矩形（世界坐标，通常是视口外扩一圈）内生成效果，大地图上视口外的开火和爆炸不占容量
+    public void setView(int x0, int y0, int x1, int y1) {
+        viewX0 = x0;
+        viewY0 = y0;
+        viewX1 = x1;
+        viewY1 = y1;
+    }
+
+    public void muzzleFlash(int cx, int cy, Direction dir) {
+        burst(cx, cy, 6, FLASH, dir, 2.5f, 4, 5, 3);
+    }
+
+    public void sparks(int cx, int cy) {
+        burst(cx, cy, 10, SPARK, null, 3f, 8, 8, 2);
+    }
+
+    public void explosion(int cx, int cy) {
+        burst(cx, cy, 40, FIRE, null, 3.5f, 18, 22, 4);
+        burst(cx, cy, 16, SMOKE, null, 1f, 40, 30, 4);
+    }
+
+    private boolean inView(int cx, int cy) {
+        return cx >= viewX0 && cx < viewX1 && cy >= viewY0 && cy < viewY1;
+    }
+
+    // 在(cx, cy)喷发最多n个粒子：速度在[0.5, 1]倍speed之间，dir不为null时集中在该方向左右45度内，寿命[minLife, minLife + lifeRange)
+    private void burst(int cx, int cy, int n, byte k, Direction dir, float speed, int minLife, int lifeRange, int side) {
+        if (!inView(cx, cy)) return;
+        int granted = grant(n);
+        dropped += n - granted;
+        emitted += granted;
+        int base = dir == null ? 0 : dir == Direction.RIGHT ? 0 : dir == Direction.DOWN ? ANGLES / 4
+                : dir == Direction.LEFT ? ANGLES / 2 : ANGLES * 3 / 4;
+        for (int j = 0; j < granted; j++) {
+            int i = count++;
+            int angle = dir == null ? rand.nextInt(ANGLES) : (base - ANGLES / 8 + rand.nextInt(ANGLES / 4 + 1)) & (ANGLES - 1);
+            float v = speed * (0.5f + rand.nextInt(64) / 128f);
+            x[i] = cx;
+            y[i] = cy;
+            vx[i] = COS[angle] * v;
+            vy[i] = SIN[angle] * v;
+            life[i] = maxLife[i] = (short) (minLife + rand.nextInt(lifeRange));
+            kind[i] = k;
+            size[i] = (byte) side;
+        }
+    }
+
+    // 半满之前照单全收，之后按剩余空间占后一半容量的比例缩减，满载时为0
+    private int grant(int n) {
+        int free = capacity - count;
+        int half = capacity / 2;
+        if (count > half) {
+            n = (int) ((long) n * free / (capacity - half));
+        }
+        return Math.min(n, free);
+    }
+
+    // 推进一个tick
+    public void update() {
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0) {
+                int last = --count;
+                x[i] = x[last];
+                y[i] = y[last];
+                vx[i] = vx[last];
+                vy[i] = vy[last];
+                life[i] = life[last];
+                maxLife[i] = maxLife[last];
+                kind[i] = kind[last];
+                size[i] = size[last];
+                continue;
+            }
+            x[i] += vx[i];
+            y[i] += vy[i];
+            vx[i] *= DRAG;
+            vy[i] *= DRAG;
+            i++;
+        }
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    // 按插值系数绘制与屏幕矩形相交的粒子（(x0, y0)是屏幕左上角的世界坐标）：先按颜色分桶，每桶设置一次颜色后连续填充
+    public void draw(Graphics g, int x0, int y0, int width, int height, double alpha) {
+        Arrays.fill(bucketStart, 0);
+        for (int i = 0; i < count; i++) {
+            int px = getRenderX(i, alpha) - x0, py = getRenderY(i, alpha) - y0;
+            if (px + size[i] <= 0 || py + size[i] <= 0 || px >= width || py >= height) {
+                shade[i] = -1;
+                continue;
+            }
+            int c = kind[i] * SHADES + (SHADES - 1) - (life[i] * SHADES - 1) / maxLife[i];
+            shade[i] = (byte) c;
+            bucketStart[c + 1]++;
+        }
+        for (int c = 0; c < PALETTE.length; c++) {
+            bucketStart[c + 1] += bucketStart[c];
+        }
+        for (int i = 0; i < count; i++) {
+            if (shade[i] >= 0) {
+                order[bucketStart[shade[i]]++] = i;
+            }
+        }
+        // 放置后每个桶的起点移到了下一个桶的起点，从后往前依次画
+        int end = bucketStart[PALETTE.length - 1];
+        for (int c = PALETTE.length - 1; c >= 0; c--) {
+            int start = c > 0 ? bucketStart[c - 1] : 0;
+            if (start == end) continue;
+            g.setColor(PALETTE[c]);
+            for (int k = start; k < end; k++) {
+                int i = order[k];
+                g.fillRect(getRenderX(i, alpha) - x0, getRenderY(i, alpha) - y0, size[i], size[i]);
+            }
+            end = start;
+        }
+    }
+
+    // 本tick之前的位置由当前位置和（衰减后的）速度反推
+    public int getRenderX(int i, double alpha) {
+        return (int) (x[i] - vx[i] / DRAG * (1 - alpha));
+    }
+
+    public int getRenderY(int i, double alpha) {
+        return (int) (y[i] - vy[i] / DRAG * (1 - alpha));
+    }
+
+    public int getSize(int i) {
+        return size[i];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 累计生成的粒子数和因负载被削减的粒子数
+    public long getEmitted() {
+        return emitted;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,6 @@
+package tank;
+
+// 玩家控制器：每个tick开始前写入本tick的输入
+interface PlayerController {
+    void update(GameWorld world, TickInput input);
+}
@@ -0,0 +1,56 @@
+package tank;
+
+// 一个统计窗口的汇总结果（不可变，供覆盖层、JMX和文件输出共享）
+class ProfileReport {
+    static final ProfileReport EMPTY = new ProfileReport(0, new long[TickProfiler.PHASE_COUNT],
+            new long[TickProfiler.PHASE_COUNT], new long[TickProfiler.PHASE_COUNT],
+            new long[TickProfiler.PHASE_COUNT], new long[TickProfiler.PHASE_COUNT], 0, 0, 0, 0,
+            new int[AiScheduler.TIER_COUNT], new int[AiScheduler.TIER_COUNT]);
+    static final int LINE_COUNT = TickProfiler.PHASE_COUNT + 2; // 实体数、各阶段、AI分级
+
+    final long windowNanos;
+    final long[] counts, meanNanos, p50Nanos, p99Nanos, maxNanos; // 按阶段编号
+    final int enemies, bullets; // 窗口结束时的实体数
+    final int maxEnemies, maxBullets; // 窗口内的峰值
+    final int[] tierTanks, tierDecisions; // 窗口最后一个tick各级AI的坦克数和完整决策数（细节层次关闭时为0）
+
+    ProfileReport(long windowNanos, long[] counts, long[] meanNanos, long[] p50Nanos, long[] p99Nanos,
+                  long[] maxNanos, int enemies, int bullets, int maxEnemies, int maxBullets,
+                  int[] tierTanks, int[] tierDecisions) {
+        this.windowNanos = windowNanos;
+        this.counts = counts;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.enemies = enemies;
+        this.bullets = bullets;
+        this.maxEnemies = maxEnemies;
+        this.maxBullets = maxBullets;
+        this.tierTanks = tierTanks;
+        this.tierDecisions = tierDecisions;
+    }
+
+    static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+    // 每个阶段一行，单位微秒
+    public String[] lines() {
+        String[] lines = new String[LINE_COUNT];
+        lines[0] = String.format("enemies %d (max %d)  bullets %d (max %d)", enemies, maxEnemies, bullets, maxBullets);
+        for (int p = 0; p < TickProfiler.PHASE_COUNT; p++) {
+            lines[p + 1] = String.format("%-9s n=%-5d p50 %7s  p99 %7s  max %8s us", TickProfiler.PHASE_NAMES[p],
+                    counts[p], micros(p50Nanos[p]), micros(p99Nanos[p]), micros(maxNanos[p]));
+        }
+        lines[LINE_COUNT - 1] = String.format("ai decided/tanks  near %d/%d  mid %d/%d  far %d/%d",
+                tierDecisions[AiScheduler.NEAR], tierTanks[AiScheduler.NEAR], tierDecisions[AiScheduler.MID],
+                tierTanks[AiScheduler.MID], tierDecisions[AiScheduler.FAR], tierTanks[AiScheduler.FAR]);
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(), lines());
+    }
+}
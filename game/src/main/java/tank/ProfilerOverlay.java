@@ -0,0 +1,52 @@
+package tank;
+
+import java.awt.*;
+
+// 剖析数据覆盖层：画在帧缓冲之上，不进入增量渲染的脏区域记录；文本只在窗口报告更新时重新格式化
+class ProfilerOverlay {
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final int LINE_HEIGHT = 13;
+    static final int WIDTH = 370;
+    static final int HEIGHT = ProfileReport.LINE_COUNT * LINE_HEIGHT + 8;
+    static final int X = GameWorld.MAP_WIDTH - WIDTH - 5;
+    static final int Y = 5;
+
+    private final TickProfiler profiler;
+    private boolean visible;
+    private ProfileReport shown;
+    private String[] lines = new String[0];
+
+    public ProfilerOverlay(TickProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // 报告更新后返回true，调用方据此重画覆盖层区域
+    public boolean refresh() {
+        ProfileReport report = profiler.getLatest();
+        if (!visible || report == shown) return false;
+        shown = report;
+        lines = report.lines();
+        return true;
+    }
+
+    public void draw(Graphics g) {
+        if (!visible) return;
+        g.setColor(BACKGROUND);
+        g.fillRect(X, Y, WIDTH, HEIGHT);
+        g.setColor(Color.GREEN);
+        g.setFont(FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], X + 4, Y + (i + 1) * LINE_HEIGHT);
+        }
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        shown = null;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+}
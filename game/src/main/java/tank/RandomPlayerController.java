@@ -0,0 +1,26 @@
+package tank;
+
+import java.util.Random;
+
+// 随机控制器：每隔一段时间随机换方向，并按概率开火，用于压测和机器人对局
+class RandomPlayerController implements PlayerController {
+    private static final int[] KEY_CHOICES = {
+            0, TickInput.UP, TickInput.DOWN, TickInput.LEFT, TickInput.RIGHT,
+            TickInput.UP | TickInput.LEFT, TickInput.UP | TickInput.RIGHT,
+            TickInput.DOWN | TickInput.LEFT, TickInput.DOWN | TickInput.RIGHT
+    };
+    private final Random rand;
+    private int keys;
+
+    public RandomPlayerController(long seed) {
+        this.rand = new Random(seed);
+    }
+
+    @Override
+    public void update(GameWorld world, TickInput input) {
+        if (rand.nextInt(20) == 0) { // 平均每20个tick换一次方向
+            keys = KEY_CHOICES[rand.nextInt(KEY_CHOICES.length)];
+        }
+        input.set(keys, rand.nextInt(10) == 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,81 @@
+package tank;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// 回放命令行：录制机器人对局，或无界面回放并校验结果，用作回归用例集
+class Replay {
+    // 用法:
+    //   java -cp tank.jar tank.Replay record <文件> [关卡=3] [种子=1] [最多tick数=100000]
+    //   java -cp tank.jar tank.Replay play [--speed 倍速(0为全速)] [--seek tick] <文件>...
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("record")) {
+            record(Paths.get(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 3,
+                    args.length > 3 ? Long.parseLong(args[3]) : 1L,
+                    args.length > 4 ? Long.parseLong(args[4]) : 100_000L);
+        } else if (args.length >= 2 && args[0].equals("play")) {
+            int speed = 0;
+            long seekTick = 0;
+            boolean allPassed = true;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--speed")) {
+                    speed = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--seek")) {
+                    seekTick = Long.parseLong(args[++i]);
+                } else {
+                    allPassed &= play(Paths.get(args[i]), speed, seekTick);
+                }
+            }
+            if (!allPassed) System.exit(1);
+        } else {
+            System.err.println("Usage: Replay record <file> [level] [seed] [maxTicks] | Replay play [--speed N] [--seek tick] <file>...");
+            System.exit(2);
+        }
+    }
+
+    private static void record(Path file, int level, long seed, long maxTicks) throws IOException {
+        GameWorld world = new GameWorld(level, seed);
+        PlayerController controller = new RandomPlayerController(seed);
+        TickInput input = new TickInput();
+        try (ReplayWriter writer = new ReplayWriter(file, world, ReplayWriter.DEFAULT_KEYFRAME_INTERVAL)) {
+            while (world.getTickCount() < maxTicks && !world.isGameOver()) {
+                controller.update(world, input);
+                writer.record(input);
+                world.step(input);
+            }
+        }
+        System.out.printf("%s level=%d seed=%d ticks=%d won=%b size=%d bytes%n",
+                file, level, seed, world.getTickCount(), world.isWon(), Files.size(file));
+    }
+
+    // 回放到结尾并校验关键帧和最终状态，返回是否一致
+    private static boolean play(Path file, int speed, long seekTick) throws IOException {
+        try (ReplayReader reader = new ReplayReader(file)) {
+            long seekStart = System.nanoTime();
+            GameWorld world = seekTick > 0 ? reader.seek(seekTick) : reader.newWorld();
+            double seekMillis = (System.nanoTime() - seekStart) / 1e6;
+
+            long firstTick = world.getTickCount();
+            int ticksPerSecond = speed > 0 ? speed * 1000 / world.getTickMillis() : 0;
+            long start = System.nanoTime();
+            long ticks = new Simulation(world, reader, ticksPerSecond).run(reader.getTotalTicks() - firstTick);
+            long elapsed = System.nanoTime() - start;
+
+            String status;
+            if (reader.getDesyncTick() >= 0) {
+                status = "DESYNC@" + reader.getDesyncTick();
+            } else if (world.getTickCount() != reader.getTotalTicks() || !reader.matchesFinalState(world)) {
+                status = "MISMATCH";
+            } else {
+                status = "OK";
+            }
+            System.out.printf("%s ticks=%d-%d status=%s won=%b seek=%.1fms time=%.1fms %.0f ns/tick %.0fx realtime%n",
+                    file, firstTick, world.getTickCount(), status, world.isWon(), seekMillis, elapsed / 1e6,
+                    ticks > 0 ? (double) elapsed / ticks : 0.0,
+                    elapsed > 0 ? ticks * world.getTickMillis() * 1e6 / elapsed : 0.0);
+            return status.equals("OK");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package tank;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// 回放读取器：作为PlayerController按tick提供录制的输入，并在每个关键帧处与实时状态比对；
+// seek()从不晚于目标的最近关键帧恢复，最多再推进一个关键帧间隔
+class ReplayReader implements PlayerController, Closeable {
+    private final FileChannel channel;
+    private final int level;
+    private final long seed;
+    private final int playerSize, enemySize, bulletSize;
+    private final int keyframeInterval;
+    private final int aiBudget;
+    private final boolean sweptCollision;
+    private final boolean ambushAim;
+    private final int tickMillis;
+    private final TileMap initialMap;
+    private final long bodyOffset;
+    private final long totalTicks;
+    private final long[] keyframeOffsets;
+    private final byte[] finalState;
+    private DataInputStream in;
+    private long restoredTick = -1; // 由seek()恢复的关键帧，正文中的同一关键帧不再比对
+    private long desyncTick = -1;
+
+    public ReplayReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer trailer = ByteBuffer.allocate(12);
+            channel.read(trailer, channel.size() - 12);
+            trailer.flip();
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != ReplayWriter.MAGIC) {
+                throw new IOException("Not a replay file or recording was not closed: " + file);
+            }
+
+            DataInputStream header = streamAt(0);
+            int version = header.readInt() == ReplayWriter.MAGIC ? header.readShort() : -1;
+            if (version < 2 || version > ReplayWriter.VERSION) {
+                throw new IOException("Unsupported replay file: " + file);
+            }
+            level = header.readByte();
+            seed = header.readLong();
+            playerSize = header.readShort();
+            enemySize = header.readShort();
+            bulletSize = header.readShort();
+            keyframeInterval = header.readInt();
+            aiBudget = version >= 3 ? header.readInt() : 0;
+            sweptCollision = version >= 4 && header.readBoolean();
+            ambushAim = version >= 5 && header.readBoolean();
+            tickMillis = version >= 6 ? header.readShort() : GameWorld.TICK_MILLIS;
+            if (tickMillis < GameWorld.MIN_TICK_MILLIS || tickMillis > GameWorld.MAX_TICK_MILLIS) {
+                throw new IOException("Unsupported replay file: " + file);
+            }
+            int cols = header.readInt(), rows = header.readInt();
+            initialMap = new TileMap(cols, rows);
+            initialMap.readState(header);
+            bodyOffset = ReplayWriter.FIXED_HEADER_SIZE - (version >= 3 ? 0 : 4) - (version >= 4 ? 0 : 1) - (version >= 5 ? 0 : 1)
+                    - (version >= 6 ? 0 : 2) + (long) cols * rows;
+
+            DataInputStream footer = streamAt(footerOffset);
+            totalTicks = footer.readLong();
+            keyframeOffsets = new long[footer.readInt()];
+            for (int i = 0; i < keyframeOffsets.length; i++) {
+                keyframeOffsets[i] = footer.readLong();
+            }
+            finalState = new byte[footer.readInt()];
+            footer.readFully(finalState);
+
+            in = streamAt(bodyOffset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private DataInputStream streamAt(long offset) throws IOException {
+        channel.position(offset);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+    }
+
+    // 与录制时相同参数和地图的初始世界
+    public GameWorld newWorld() {
+        GameWorld world = new GameWorld(level, seed, playerSize, enemySize, bulletSize, initialMap.copy());
+        world.setAiBudget(aiBudget);
+        world.setSweptCollision(sweptCollision);
+        world.setAmbushAim(ambushAim);
+        world.setTickMillis(tickMillis);
+        return world;
+    }
+
+    // 返回推进到tick时刻的世界，之后继续用本读取器作为控制器即可接着回放
+    public GameWorld seek(long tick) throws IOException {
+        tick = Math.min(tick, totalTicks);
+        GameWorld world = newWorld();
+        int keyframe = (int) Math.min(Math.max(tick, 0) / keyframeInterval, keyframeOffsets.length - 1);
+        if (keyframe < 0) {
+            in = streamAt(bodyOffset);
+            return world;
+        }
+        in = streamAt(keyframeOffsets[keyframe]);
+        byte[] state = new byte[in.readInt()];
+        in.readFully(state);
+        world.readState(new DataInputStream(new ByteArrayInputStream(state)));
+        restoredTick = world.getTickCount();
+
+        TickInput input = new TickInput();
+        while (world.getTickCount() < tick && !world.isGameOver()) {
+            update(world, input);
+            world.step(input);
+        }
+        return world;
+    }
+
+    @Override
+    public void update(GameWorld world, TickInput input) {
+        long tick = world.getTickCount();
+        if (tick >= totalTicks) {
+            input.clear();
+            return;
+        }
+        try {
+            if (tick % keyframeInterval == 0 && tick != restoredTick) {
+                byte[] recorded = new byte[in.readInt()];
+                in.readFully(recorded);
+                if (desyncTick < 0 && !Arrays.equals(recorded, ReplayWriter.stateOf(world))) {
+                    desyncTick = tick;
+                }
+            }
+
+            int frame = in.readUnsignedByte();
+            int fireCount = frame >>> 4;
+            if (fireCount == 15) {
+                fireCount = in.readInt();
+            }
+            input.set(frame & 0x0F, fireCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    // 第一个与录制状态不一致的关键帧，-1表示一致
+    public long getDesyncTick() {
+        return desyncTick;
+    }
+
+    public boolean matchesFinalState(GameWorld world) {
+        return Arrays.equals(finalState, ReplayWriter.stateOf(world));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
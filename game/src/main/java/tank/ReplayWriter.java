@@ -0,0 +1,108 @@
+package tank;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// 回放文件格式（大端）：
+//   头部   MAGIC, 版本, 关卡, 种子, 玩家/敌人/子弹尺寸, 关键帧间隔, AI预算（版本3起）, 连续碰撞（版本4起，1字节）,
+//          伏击瞄准（版本5起，1字节）, tick长度（版本6起，short毫秒）,
+//          地图列数/行数, 初始瓦片
+//   正文   每个tick一帧输入；tick为关键帧间隔的整数倍时，输入之前先写一个完整状态关键帧（长度 + GameWorld.writeState）
+//   尾部   总tick数, 关键帧偏移表, 结束时的完整状态, 尾部偏移, MAGIC
+// 输入帧通常只有1字节：低4位方向键，高4位射击次数（15表示后面跟一个int）
+class ReplayWriter implements Closeable {
+    static final int MAGIC = 0x544B5250; // "TKRP"
+    static final int VERSION = 6; // 版本2起头部包含地图，版本3起包含AI预算（版本2按0读取），版本4起包含连续碰撞（此前按关闭读取），
+                                  // 版本5起包含伏击瞄准（此前按关闭读取），版本6起包含tick长度（此前按默认值读取）
+    static final int DEFAULT_KEYFRAME_INTERVAL = 500; // 5秒游戏时间
+    static final int FIXED_HEADER_SIZE = 4 + 2 + 1 + 8 + 2 * 3 + 4 + 4 + 1 + 1 + 2 + 4 * 2; // 之后是列数*行数字节的瓦片
+
+    private final DataOutputStream out;
+    private final GameWorld world;
+    private final int keyframeInterval;
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount;
+    private long ticks;
+
+    // 必须在世界推进第一个tick之前创建
+    public ReplayWriter(Path file, GameWorld world, int keyframeInterval) throws IOException {
+        if (world.getTickCount() != 0) {
+            throw new IllegalStateException("Replay must start at tick 0");
+        }
+        this.world = world;
+        this.keyframeInterval = keyframeInterval;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(world.getLevel());
+        out.writeLong(world.getSeed());
+        out.writeShort(world.getTanks().getWidth(TankStore.PLAYER));
+        out.writeShort(world.getEnemySize());
+        out.writeShort(world.getBullets().getBulletSize());
+        out.writeInt(keyframeInterval);
+        out.writeInt(world.getAiBudget());
+        out.writeBoolean(world.isSweptCollision());
+        out.writeBoolean(world.isAmbushAim());
+        out.writeShort(world.getTickMillis());
+        TileMap map = world.getMap();
+        out.writeInt(map.getCols());
+        out.writeInt(map.getRows());
+        map.writeState(out);
+    }
+
+    static byte[] stateOf(GameWorld world) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            world.writeState(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // 写入内存不会失败
+        }
+        return bytes.toByteArray();
+    }
+
+    // 在world.step(input)之前调用
+    public void record(TickInput input) throws IOException {
+        if (world.getTickCount() % keyframeInterval == 0) {
+            if (keyframeCount == keyframeOffsets.length) {
+                keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+            }
+            keyframeOffsets[keyframeCount++] = out.size();
+            byte[] state = stateOf(world);
+            out.writeInt(state.length);
+            out.write(state);
+        }
+
+        int fireCount = input.getFireCount();
+        if (fireCount < 15) {
+            out.writeByte(input.getKeys() | fireCount << 4);
+        } else {
+            out.writeByte(input.getKeys() | 0xF0);
+            out.writeInt(fireCount);
+        }
+        ticks++;
+    }
+
+    // 写入尾部并关闭，此时世界状态即为回放的最终结果
+    @Override
+    public void close() throws IOException {
+        long footerOffset = out.size();
+        out.writeLong(ticks);
+        out.writeInt(keyframeCount);
+        for (int i = 0; i < keyframeCount; i++) {
+            out.writeLong(keyframeOffsets[i]);
+        }
+        byte[] state = stateOf(world);
+        out.writeInt(state.length);
+        out.write(state);
+        out.writeLong(footerOffset);
+        out.writeInt(MAGIC);
+        out.close();
+    }
+}
@@ -0,0 +1,112 @@
+package tank;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// 倒带缓冲：每interval个tick把完整世界状态（GameWorld.writeState）写进堆外环形缓冲的一个定长槽位，保留最近slots份
+// 槽位长度按最大的一份状态自动翻倍，不够时连同已有快照一起搬到新缓冲；常规关卡一份状态约几KB，抓取一次只是一段顺序写
+class RewindBuffer {
+    static final int DEFAULT_INTERVAL = 10; // 100毫秒游戏时间
+    static final int DEFAULT_SLOTS = 50; // 最近5秒
+    private static final int INITIAL_SLOT_BYTES = 16 * 1024;
+
+    private final int interval;
+    private final int slots;
+    private final long[] ticks;
+    private final int[] lengths;
+    private int slotBytes;
+    private BufferDataOutput out;
+    private BufferDataInput in;
+    private int newest = -1; // 最新快照的槽位
+    private int count;
+
+    public RewindBuffer(int interval, int slots) {
+        this.interval = interval;
+        this.slots = slots;
+        this.ticks = new long[slots];
+        this.lengths = new int[slots];
+        allocate(INITIAL_SLOT_BYTES);
+    }
+
+    private void allocate(int bytes) {
+        // 快照只在本进程内读写，用本机字节序省去逐字段的字节交换
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.multiplyExact(slots, bytes)).order(ByteOrder.nativeOrder());
+        if (out != null) {
+            ByteBuffer old = out.getBuffer();
+            for (int i = 0; i < slots; i++) {
+                old.limit(i * slotBytes + lengths[i]).position(i * slotBytes);
+                buffer.limit(i * bytes + lengths[i]).position(i * bytes);
+                buffer.put(old);
+            }
+        }
+        slotBytes = bytes;
+        out = new BufferDataOutput(buffer);
+        in = new BufferDataInput(buffer.duplicate().order(buffer.order()));
+    }
+
+    // 在world.step()之前调用，tick为interval的整数倍时抓取一份（同一tick只抓一次）
+    public void capture(GameWorld world) {
+        long tick = world.getTickCount();
+        if (tick % interval != 0 || (count > 0 && ticks[newest] == tick)) return;
+        int slot = (newest + 1) % slots;
+        while (true) {
+            ByteBuffer buffer = out.getBuffer();
+            buffer.limit(slot * slotBytes + slotBytes).position(slot * slotBytes);
+            try {
+                world.writeState(out);
+                lengths[slot] = buffer.position() - slot * slotBytes;
+                break;
+            } catch (BufferOverflowException e) {
+                allocate(Math.multiplyExact(slotBytes, 2));
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // 写入内存不会失败
+            }
+        }
+        ticks[slot] = tick;
+        newest = slot;
+        count = Math.min(count + 1, slots);
+    }
+
+    // 恢复到早于世界当前tick的最近一份快照，该快照之后的都丢弃；没有更早的快照时返回false，世界不变
+    // world必须是抓取快照的同一个世界（或用相同参数创建的）
+    public boolean rewind(GameWorld world) throws IOException {
+        while (count > 0 && ticks[newest] >= world.getTickCount()) {
+            drop();
+        }
+        if (count == 0) return false;
+        ByteBuffer buffer = in.getBuffer();
+        buffer.limit(newest * slotBytes + lengths[newest]).position(newest * slotBytes);
+        world.readState(in);
+        return true;
+    }
+
+    private void drop() {
+        newest = (newest + slots - 1) % slots;
+        count--;
+    }
+
+    // 换局或读档之后调用，旧世界的快照不再适用
+    public void clear() {
+        newest = -1;
+        count = 0;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // 当前缓冲区最早可以倒回的tick，没有快照时为-1
+    public long getOldestTick() {
+        return count == 0 ? -1 : ticks[(newest - count + 1 + slots) % slots];
+    }
+
+    public long getCapacityBytes() {
+        return (long) slots * slotBytes;
+    }
+}
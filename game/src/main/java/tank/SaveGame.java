@@ -0,0 +1,142 @@
+package tank;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// 存档：完整世界状态存为一个文件，经堆外缓冲区整块读写，10万个实体的世界存取也只需数毫秒
+// 格式（大端）：MAGIC, 版本, 关卡, 种子, 玩家/敌人/子弹尺寸, AI预算, 连续碰撞（版本2起，1字节）,
+//       伏击瞄准（版本3起，1字节）, tick长度（版本4起，short毫秒）, 地图列数/行数, 状态长度, GameWorld.writeState
+// 状态里已包含全部瓦片，读档时用同样尺寸的空地图创建世界后整体恢复，与NetClient根据快照重建世界的方式相同
+class SaveGame {
+    static final int MAGIC = 0x544B5356; // "TKSV"
+    static final int VERSION = 4; // 版本2起包含连续碰撞（版本1按关闭读取），版本3起包含伏击瞄准（此前按关闭读取），
+                                  // 版本4起包含tick长度（此前按默认值读取）
+    static final int HEADER_SIZE = 4 + 2 + 1 + 8 + 2 * 3 + 4 + 1 + 1 + 2 + 4 * 2 + 4;
+    private static final int MIN_HEADER_SIZE = HEADER_SIZE - 1 - 1 - 2; // 版本1
+    private static final int INITIAL_STATE_BYTES = 64 * 1024;
+
+    private final Path file;
+    private BufferDataOutput scratch = new BufferDataOutput(ByteBuffer.allocateDirect(INITIAL_STATE_BYTES)); // 重复使用
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_SIZE);
+
+    public SaveGame(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // 状态写进堆外暂存区后，与文件头一起整块写入同目录下的临时文件，写完再原子改名替换旧存档：中途失败时旧存档原样保留
+    // 存取都不映射文件（MappedByteBuffer要到GC才解除映射，Windows上无法替换仍被映射的文件），读写都经过堆外缓冲区，
+    // 不经过堆上的字节数组；不调用force()，写回磁盘交给操作系统
+    public void save(GameWorld world) throws IOException {
+        ByteBuffer state = serialize(world);
+        TileMap map = world.getMap();
+        header.clear();
+        header.putInt(MAGIC);
+        header.putShort((short) VERSION);
+        header.put((byte) world.getLevel());
+        header.putLong(world.getSeed());
+        header.putShort((short) world.getTanks().getWidth(TankStore.PLAYER));
+        header.putShort((short) world.getEnemySize());
+        header.putShort((short) world.getBullets().getBulletSize());
+        header.putInt(world.getAiBudget());
+        header.put((byte) (world.isSweptCollision() ? 1 : 0));
+        header.put((byte) (world.isAmbushAim() ? 1 : 0));
+        header.putShort((short) world.getTickMillis());
+        header.putInt(map.getCols());
+        header.putInt(map.getRows());
+        header.putInt(state.remaining());
+        header.flip();
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "save", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer[] parts = {header, state};
+                while (header.hasRemaining() || state.hasRemaining()) {
+                    channel.write(parts);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private ByteBuffer serialize(GameWorld world) {
+        while (true) {
+            ByteBuffer buffer = scratch.getBuffer();
+            buffer.clear();
+            try {
+                world.writeState(scratch);
+                return buffer.flip();
+            } catch (BufferOverflowException e) {
+                scratch = new BufferDataOutput(ByteBuffer.allocateDirect(Math.multiplyExact(buffer.capacity(), 2)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // 写入内存不会失败
+            }
+        }
+    }
+
+    // 读档复用存档的暂存区，容量不够时换一个更大的；readState把状态全部拷进世界，返回后缓冲区可以再用
+    private ByteBuffer scratchOf(int size) {
+        if (scratch.getBuffer().capacity() < size) {
+            scratch = new BufferDataOutput(ByteBuffer.allocateDirect(size));
+        }
+        ByteBuffer buffer = scratch.getBuffer();
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
+    // 返回新建的世界，调用方需要重新设置监听器和剖析器
+    public GameWorld load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Save file is too large: " + file);
+            }
+            ByteBuffer buffer = scratchOf((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("Save file is truncated: " + file);
+            }
+            buffer.flip();
+            if (buffer.remaining() < MIN_HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a save file or save was not completed: " + file);
+            }
+            int version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported save file: " + file);
+            }
+            int level = buffer.get();
+            long seed = buffer.getLong();
+            int playerSize = buffer.getShort(), enemySize = buffer.getShort(), bulletSize = buffer.getShort();
+            int aiBudget = buffer.getInt();
+            boolean sweptCollision = version >= 2 && buffer.get() != 0;
+            boolean ambushAim = version >= 3 && buffer.get() != 0;
+            int tickMillis = version >= 4 ? buffer.getShort() : GameWorld.TICK_MILLIS;
+            int cols = buffer.getInt(), rows = buffer.getInt();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Save file is truncated: " + file);
+            }
+            buffer.limit(buffer.position() + length);
+            GameWorld world = new GameWorld(level, seed, playerSize, enemySize, bulletSize, new TileMap(cols, rows));
+            world.setAiBudget(aiBudget);
+            world.setSweptCollision(sweptCollision);
+            world.setAmbushAim(ambushAim);
+            world.setTickMillis(tickMillis);
+            world.readState(new BufferDataInput(buffer));
+            return world;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt save file: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package tank;
+
+import java.util.concurrent.locks.LockSupport;
+
+// 无界面模拟驱动：以固定tick速率或全速推进GameWorld
+class Simulation {
+    private final GameWorld world;
+    private final PlayerController controller;
+    private final TickInput input = new TickInput();
+    private final long tickNanos; // 每个tick的实际时长，0表示全速运行
+
+    // ticksPerSecond <= 0 时不限速
+    public Simulation(GameWorld world, PlayerController controller, int ticksPerSecond) {
+        this.world = world;
+        this.controller = controller;
+        this.tickNanos = ticksPerSecond > 0 ? 1_000_000_000L / ticksPerSecond : 0;
+    }
+
+    // 推进最多maxTicks个tick或直到游戏结束，返回实际执行的tick数
+    public long run(long maxTicks) {
+        long ticks = 0;
+        long deadline = System.nanoTime();
+        while (ticks < maxTicks && !world.isGameOver()) {
+            controller.update(world, input);
+            world.step(input);
+            ticks++;
+
+            if (tickNanos > 0) {
+                deadline += tickNanos;
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    LockSupport.parkNanos(remaining);
+                } else if (remaining < -tickNanos) {
+                    // 落后超过一个tick时不追赶，避免突发连跑
+                    deadline = System.nanoTime();
+                }
+            }
+        }
+        return ticks;
+    }
+
+    // 用法: java Simulation [关卡=3] [总tick数=1000000] [tick速率=0(全速)] [种子=1] [地图列数=0] [AI预算=0] [tick长度=10]
+    // 地图列数大于0时改用按种子生成的大地图（行数为列数的3/4），否则使用关卡地图
+    // AI预算大于0时开启AI细节层次（见AiScheduler）；tick长度为每个tick代表的游戏时间（毫秒，见GameWorld.setTickMillis）
+    public static void main(String[] args) {
+        int level = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        long totalTicks = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000L;
+        int ticksPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        int mapCols = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        int aiBudget = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        int tickMillis = args.length > 6 ? Integer.parseInt(args[6]) : GameWorld.TICK_MILLIS;
+
+        PlayerController controller = new RandomPlayerController(seed);
+        long ticks = 0;
+        int matches = 0;
+        int wins = 0;
+        long start = System.nanoTime();
+        while (ticks < totalTicks) {
+            // 一局结束后用新种子重开，直到跑满总tick数
+            GameWorld world = mapCols > 0
+                    ? new GameWorld(level, seed + matches, GameWorld.DEFAULT_TANK_SIZE, GameWorld.DEFAULT_TANK_SIZE,
+                    GameWorld.DEFAULT_BULLET_SIZE, TileMap.generate(mapCols, mapCols * 3 / 4, seed + matches))
+                    : new GameWorld(level, seed + matches);
+            world.setAiBudget(aiBudget);
+            world.setTickMillis(tickMillis);
+            ticks += new Simulation(world, controller, ticksPerSecond).run(totalTicks - ticks);
+            matches++;
+            if (world.isWon()) wins++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("level=%d map=%s aiBudget=%d tickMillis=%d ticks=%d matches=%d wins=%d time=%.3fs throughput=%.0f ticks/s%n",
+                level, mapCols > 0 ? mapCols + "x" + mapCols * 3 / 4 : "level", aiBudget, tickMillis, ticks, matches, wins,
+                seconds, ticks / seconds);
+    }
+}
@@ -0,0 +1,81 @@
+package tank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// 快照差分：与基准逐字节异或，连续的0只记长度（基准比目标短的部分按0计）
+// 格式：目标长度varint，之后重复 [相同字节数varint][不同字节数varint][异或后的字节]
+// 坐标等字段大多只有低位字节变化，静止的实体和未变化的瓦片不占带宽
+class SnapshotDelta {
+    private static final int MIN_GAP = 4; // 不到这么多的相同字节并入前后的不同段，省去两个varint
+
+    // 编码结果的最大长度，调用方据此预留写缓冲区
+    static int maxEncodedSize(int targetLength) {
+        return targetLength + targetLength / MIN_GAP * 2 + 16;
+    }
+
+    // base为null时编码完整快照
+    static void encode(byte[] base, int baseLength, byte[] target, int targetLength, ByteBuffer out) {
+        putVarint(out, targetLength);
+        int i = 0;
+        while (i < targetLength) {
+            int start = i;
+            while (i < targetLength && diff(base, baseLength, target, i) == 0) i++;
+            putVarint(out, i - start);
+            int literalEnd = i;
+            for (int j = i; j < targetLength && j - literalEnd < MIN_GAP; j++) {
+                if (diff(base, baseLength, target, j) != 0) literalEnd = j + 1;
+            }
+            putVarint(out, literalEnd - i);
+            for (; i < literalEnd; i++) {
+                out.put((byte) diff(base, baseLength, target, i));
+            }
+        }
+    }
+
+    // 从in的当前位置解码到末尾，返回还原出的快照
+    static byte[] decode(byte[] base, ByteBuffer in) throws IOException {
+        int length = getVarint(in);
+        if (length < 0 || length > NetProtocol.MAX_FRAME) throw new IOException("Bad snapshot length " + length);
+        byte[] target = new byte[length];
+        int baseLength = base != null ? base.length : 0;
+        int pos = 0;
+        while (pos < length) {
+            int same = getVarint(in);
+            if (same < 0 || same > length - pos) throw new IOException("Bad snapshot delta");
+            if (pos < baseLength) {
+                System.arraycopy(base, pos, target, pos, Math.min(same, baseLength - pos));
+            }
+            pos += same;
+            int changed = getVarint(in);
+            if (changed < 0 || changed > length - pos || changed > in.remaining()) throw new IOException("Bad snapshot delta");
+            for (int end = pos + changed; pos < end; pos++) {
+                target[pos] = (byte) (in.get() ^ (pos < baseLength ? base[pos] : 0));
+            }
+        }
+        return target;
+    }
+
+    private static int diff(byte[] base, int baseLength, byte[] target, int i) {
+        return (target[i] ^ (i < baseLength ? base[i] : 0)) & 0xFF;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!in.hasRemaining()) throw new IOException("Truncated varint");
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Varint too long");
+    }
+}
@@ -0,0 +1,157 @@
+package tank;
+
+import java.util.Arrays;
+
+// 均匀网格空间索引：每tick按坦克当前位置重建，子弹只检测自己覆盖的格子里的坦克；也用于按视口查询可见的坦克和子弹
+class SpatialGrid {
+    private final int cellSize;
+    private final int cols, rows;
+    private final int[] cellStart; // 每个格子在cellItems中的起始位置（CSR布局），长度为格子数+1
+    private final int[] cellCursor; // 重建时的写入游标
+    private int[] cellItems = new int[64]; // 按格子排列的物体下标，格内按下标升序
+    private int[] queryStamp = new int[64]; // 按物体下标，等于queryGeneration表示本次查询已收集
+    private int queryGeneration;
+    private int[] queryResult = new int[64];
+
+    public SpatialGrid(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.cellStart = new int[cols * rows + 1];
+        this.cellCursor = new int[cols * rows];
+    }
+
+    // 坐标换算为格子行列，越界的坐标夹到边缘格子，相交的矩形夹完后仍然相交
+    private int col(int x) {
+        return Math.max(0, Math.min(cols - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+
+    // 两遍计数排序重建索引，容量足够时不分配内存；只索引敌人，物体下标即TankStore槽位
+    public void build(TankStore tanks) {
+        int total = 0;
+        beginBuild();
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            total += count(tanks.getX(t), tanks.getY(t), tanks.getWidth(t), tanks.getHeight(t));
+        }
+        beginPlace(total, tanks.size());
+        for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+            place(t, tanks.getX(t), tanks.getY(t), tanks.getWidth(t), tanks.getHeight(t));
+        }
+    }
+
+    // 按子弹池下标建立索引，用于视口查询
+    public void build(BulletPool bullets) {
+        int size = bullets.getBulletSize();
+        int total = 0;
+        beginBuild();
+        for (int i = 0; i < bullets.size(); i++) {
+            total += count(bullets.getX(i), bullets.getY(i), size, size);
+        }
+        beginPlace(total, bullets.size());
+        for (int i = 0; i < bullets.size(); i++) {
+            place(i, bullets.getX(i), bullets.getY(i), size, size);
+        }
+    }
+
+    private void beginBuild() {
+        Arrays.fill(cellStart, 0);
+    }
+
+    // 第一遍：统计每个格子覆盖的物体数，返回本物体覆盖的格子数
+    private int count(int x, int y, int w, int h) {
+        int c0 = col(x), c1 = col(x + w - 1);
+        int r0 = row(y), r1 = row(y + h - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                cellStart[r * cols + c + 1]++;
+            }
+        }
+        return (c1 - c0 + 1) * (r1 - r0 + 1);
+    }
+
+    private void beginPlace(int total, int itemCount) {
+        int cellCount = cols * rows;
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (cellItems.length < total) {
+            cellItems = new int[Math.max(total, cellItems.length * 2)];
+        }
+        if (queryStamp.length < itemCount) {
+            queryStamp = new int[Math.max(itemCount, queryStamp.length * 2)];
+            queryGeneration = 0;
+        }
+        System.arraycopy(cellStart, 0, cellCursor, 0, cellCount);
+    }
+
+    // 第二遍：按下标顺序写入，保证格内升序
+    private void place(int i, int x, int y, int w, int h) {
+        int c0 = col(x), c1 = col(x + w - 1);
+        int r0 = row(y), r1 = row(y + h - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                cellItems[cellCursor[r * cols + c]++] = i;
+            }
+        }
+    }
+
+    // 收集与[x0, x1) x [y0, y1)覆盖的格子里的物体下标，去重后升序排列，调用方再做精确相交判断
+    // 返回个数，结果在getQueryResult()中，下一次查询前有效
+    public int query(int x0, int y0, int x1, int y1) {
+        if (x1 <= x0 || y1 <= y0) return 0;
+        if (++queryGeneration == 0) { // 代数回绕时清空标记
+            Arrays.fill(queryStamp, 0);
+            queryGeneration = 1;
+        }
+        int c0 = col(x0), c1 = col(x1 - 1);
+        int r0 = row(y0), r1 = row(y1 - 1);
+        int n = 0;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int index = cellItems[k];
+                    if (queryStamp[index] == queryGeneration) continue;
+                    queryStamp[index] = queryGeneration;
+                    if (n == queryResult.length) {
+                        queryResult = Arrays.copyOf(queryResult, n * 2);
+                    }
+                    queryResult[n++] = index;
+                }
+            }
+        }
+        Arrays.sort(queryResult, 0, n);
+        return n;
+    }
+
+    public int[] getQueryResult() {
+        return queryResult;
+    }
+
+    // 返回与子弹相交、未被击毁且槽位最小的坦克，没有则返回-1
+    // 槽位最小即与逐个遍历时第一个命中的坦克相同
+    public int firstHit(BulletPool bullets, int bullet, TankStore tanks, boolean[] destroyed) {
+        int size = bullets.getBulletSize();
+        int c0 = col(bullets.getX(bullet)), c1 = col(bullets.getX(bullet) + size - 1);
+        int r0 = row(bullets.getY(bullet)), r1 = row(bullets.getY(bullet) + size - 1);
+        int best = -1;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int index = cellItems[k];
+                    if (best >= 0 && index >= best) break; // 格内升序，后面不会更小
+                    if (!destroyed[index] && bullets.checkCollision(bullet, tanks, index)) {
+                        best = index;
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
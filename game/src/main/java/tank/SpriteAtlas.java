@@ -0,0 +1,111 @@
+package tank;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+// 精灵图集：把所有帧打包进一张与屏幕格式兼容的图像，有显示设备时再拷贝到VolatileImage以便硬件加速
+// 显存内容丢失或显示配置变化时，从系统内存副本恢复
+class SpriteAtlas {
+    private static final int MAX_ROW_WIDTH = 1024;
+    private static final int PADDING = 1; // 帧之间留空，避免采样到相邻帧
+
+    private final int[] frameX, frameY, frameWidth, frameHeight;
+    private final BufferedImage image; // 图集的系统内存副本，也是恢复显存内容的来源
+    private VolatileImage volatileImage;
+    private Image surface; // 本帧绘制使用的图像
+
+    // gc为null时（无显示设备或离屏绘制）使用普通ARGB图像
+    public SpriteAtlas(GraphicsConfiguration gc, BufferedImage[] frames) {
+        int count = frames.length;
+        frameX = new int[count];
+        frameY = new int[count];
+        frameWidth = new int[count];
+        frameHeight = new int[count];
+
+        // 按行依次摆放，一行放不下时换行
+        int x = 0, y = 0, rowHeight = 0, width = 0;
+        for (int i = 0; i < count; i++) {
+            int w = frames[i].getWidth();
+            int h = frames[i].getHeight();
+            if (x > 0 && x + w > MAX_ROW_WIDTH) {
+                x = 0;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            frameX[i] = x;
+            frameY[i] = y;
+            frameWidth[i] = w;
+            frameHeight[i] = h;
+            x += w + PADDING;
+            rowHeight = Math.max(rowHeight, h);
+            width = Math.max(width, x);
+        }
+        int height = y + rowHeight;
+
+        image = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        for (int i = 0; i < count; i++) {
+            g2d.drawImage(frames[i], frameX[i], frameY[i], null);
+        }
+        g2d.dispose();
+        surface = image;
+    }
+
+    // 每帧绘制前调用：屏幕目标使用VolatileImage并在需要时恢复，离屏目标直接使用系统内存副本
+    public void beginFrame(Graphics g) {
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+        if (gc == null || gc.getDevice().getType() == GraphicsDevice.TYPE_IMAGE_BUFFER) {
+            surface = image;
+            return;
+        }
+
+        if (volatileImage == null) {
+            createVolatile(gc);
+        } else {
+            int status = volatileImage.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                volatileImage.flush();
+                createVolatile(gc);
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                restoreVolatile();
+            }
+        }
+        surface = volatileImage != null && !volatileImage.contentsLost() ? volatileImage : image;
+    }
+
+    private void createVolatile(GraphicsConfiguration gc) {
+        try {
+            volatileImage = gc.createCompatibleVolatileImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            volatileImage = null; // 不支持半透明加速表面时退回系统内存图像
+            return;
+        }
+        restoreVolatile();
+    }
+
+    private void restoreVolatile() {
+        Graphics2D g2d = volatileImage.createGraphics();
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+    }
+
+    public void draw(Graphics g, int sprite, int x, int y) {
+        int sx = frameX[sprite];
+        int sy = frameY[sprite];
+        int w = frameWidth[sprite];
+        int h = frameHeight[sprite];
+        g.drawImage(surface, x, y, x + w, y + h, sx, sy, sx + w, sy + h, null);
+    }
+
+    public int getWidth(int sprite) {
+        return frameWidth[sprite];
+    }
+
+    public int getHeight(int sprite) {
+        return frameHeight[sprite];
+    }
+}
@@ -0,0 +1,289 @@
+package tank;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// GC停顿统计：订阅各收集器的结束通知，累计次数、总时长和最长一次
+// 名字以Cycles结尾的收集器（ZGC、Shenandoah的并发周期）不是停顿，不计入
+class GcMonitor implements NotificationListener {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private final List<String> collectors = new ArrayList<>();
+
+    public GcMonitor() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc.getName().endsWith("Cycles")) continue;
+            collectors.add(gc.getName());
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        if (!collectors.contains(info.getGcName())) return;
+        long millis = info.getGcInfo().getDuration();
+        count.incrementAndGet();
+        totalMillis.addAndGet(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    // 取出上次调用以来的统计并清零，返回[次数, 总毫秒, 最长毫秒]
+    public long[] drain() {
+        return new long[]{count.getAndSet(0), totalMillis.getAndSet(0), maxMillis.getAndSet(0)};
+    }
+
+    public List<String> getCollectors() {
+        return collectors;
+    }
+}
+
+// 压力测试：在大地图上分级把坦克和子弹加到上限，每级按固定时长全速推进，报告每级的tick速率、
+// tick和帧耗时百分位、堆占用和GC停顿；同样的参数和种子每级的负载相同，报告可以在不同构建之间对比
+// 每个tick先把实体补到本级目标（子弹随机撒在空地上，归敌人所有），补充本身不计时；玩家无敌，不会被击毁
+class StressTest {
+    private static final int TANK_SIZE = GameWorld.DEFAULT_TANK_SIZE;
+    private static final int BULLET_SIZE = GameWorld.DEFAULT_BULLET_SIZE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final String COLUMNS = "step,target_tanks,target_bullets,avg_tanks,avg_bullets,ticks,ticks_per_s,"
+            + "tick_p50_us,tick_p99_us,tick_p999_us,tick_max_us,frame_p50_us,frame_p99_us,frame_max_us,"
+            + "heap_used_mb,heap_peak_mb,gc_count,gc_total_ms,gc_max_ms";
+
+    private final GameWorld world;
+    private final GameRandom rand;
+    private final PlayerController controller; // 为null时玩家不动也不开火
+    private final IncrementalRenderer renderer; // 为null时不绘制，帧耗时等于tick耗时
+    private final TickInput input = new TickInput();
+    private final GcMonitor gc = new GcMonitor();
+    private final PhaseHistogram ticks = new PhaseHistogram();
+    private final PhaseHistogram frames = new PhaseHistogram();
+    private final long[] counts = new long[PhaseHistogram.BUCKET_COUNT];
+
+    public StressTest(GameWorld world, long seed, PlayerController controller, IncrementalRenderer renderer) {
+        this.world = world;
+        this.rand = new GameRandom(seed);
+        this.controller = controller;
+        this.renderer = renderer;
+        world.getTanks().setPlayerInvulnerable(true);
+    }
+
+    // 补充被击毁的坦克和回收的子弹，直到达到目标数量
+    private void topUp(int tanks, int bullets) {
+        TileMap map = world.getMap();
+        while (world.getEnemyCount() < tanks) {
+            int x = rand.nextInt(map.getWidth() - TANK_SIZE), y = rand.nextInt(map.getHeight() - TANK_SIZE);
+            if (!map.isBlocked(x, y, TANK_SIZE, TANK_SIZE)) {
+                world.addEnemy(x, y);
+            }
+        }
+        BulletPool pool = world.getBullets();
+        while (pool.size() < bullets) {
+            int x = rand.nextInt(map.getWidth() - BULLET_SIZE), y = rand.nextInt(map.getHeight() - BULLET_SIZE);
+            if (!map.isBlocked(x, y, BULLET_SIZE, BULLET_SIZE)) {
+                pool.add(x, y, DIRECTIONS[rand.nextInt(DIRECTIONS.length)], BulletPool.OWNER_ENEMY);
+            }
+        }
+    }
+
+    // 以目标负载运行指定时长，返回本级的报告行（CSV格式，列见COLUMNS）；record为false时只用于预热
+    public String run(int step, int tanks, int bullets, long nanos, boolean record) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        gc.drain();
+        ticks.drainTo(counts);
+        frames.drainTo(counts);
+        long tickCount = 0, busyNanos = 0, tankSum = 0, bulletSum = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < nanos && !world.isGameOver()) {
+            topUp(tanks, bullets);
+            tankSum += world.getEnemyCount();
+            bulletSum += world.getBullets().size();
+            long frameStart = System.nanoTime();
+            if (controller != null) controller.update(world, input);
+            world.step(input);
+            long tickEnd = System.nanoTime();
+            if (renderer != null) renderer.update(world);
+            long frameEnd = System.nanoTime();
+            ticks.record(tickEnd - frameStart);
+            frames.record(frameEnd - frameStart);
+            busyNanos += frameEnd - frameStart;
+            tickCount++;
+        }
+        if (!record) return null;
+
+        // 百分位按桶上界报告，不超过实际最大值
+        long[] tick = ticks.drainTo(counts);
+        long tickP50 = Math.min(PhaseHistogram.percentile(counts, tick[0], 0.5), tick[2]);
+        long tickP99 = Math.min(PhaseHistogram.percentile(counts, tick[0], 0.99), tick[2]);
+        long tickP999 = Math.min(PhaseHistogram.percentile(counts, tick[0], 0.999), tick[2]);
+        long[] frame = frames.drainTo(counts);
+        long frameP50 = Math.min(PhaseHistogram.percentile(counts, frame[0], 0.5), frame[2]);
+        long frameP99 = Math.min(PhaseHistogram.percentile(counts, frame[0], 0.99), frame[2]);
+        long heapUsed = 0, heapPeak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            heapUsed += pool.getUsage().getUsed();
+            heapPeak += pool.getPeakUsage().getUsed();
+        }
+        long[] pauses = gc.drain();
+        long n = Math.max(1, tickCount);
+        return String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%.1f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d",
+                step, tanks, bullets, tankSum / n, bulletSum / n, tickCount,
+                busyNanos > 0 ? tickCount * 1e9 / busyNanos : 0.0,
+                tickP50 / 1000, tickP99 / 1000, tickP999 / 1000, tick[2] / 1000,
+                frameP50 / 1000, frameP99 / 1000, frame[2] / 1000,
+                heapUsed >> 20, heapPeak >> 20, pauses[0], pauses[1], pauses[2]);
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public GcMonitor getGcMonitor() {
+        return gc;
+    }
+
+    // 用法: java -cp tank.jar tank.StressTest [--tanks 50000] [--bullets 500000] [--steps 5] [--seconds 10]
+    //       [--warmup 5] [--cols 250] [--seed 1] [--ai-budget 0] [--swept true] [--autoplay false] [--render false]
+    //       [--csv 文件]
+    // 第k级（1..steps）的目标为上限的k/steps；预热按第1级的负载运行，不计入报告
+    // ticks_per_s按计时部分（tick和绘制）计算，不含补充实体的时间
+    public static void main(String[] args) throws IOException {
+        int maxTanks = 50_000;
+        int maxBullets = 500_000;
+        int steps = 5;
+        int seconds = 10;
+        int warmup = 5;
+        int mapCols = 250;
+        long seed = 1;
+        int aiBudget = 0;
+        boolean swept = true;
+        boolean autoplay = false;
+        boolean render = false;
+        String csv = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for option " + args[i]);
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--tanks":
+                    maxTanks = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--bullets":
+                    maxBullets = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--steps":
+                    steps = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--cols":
+                    mapCols = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--ai-budget":
+                    aiBudget = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--swept":
+                    swept = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--autoplay":
+                    autoplay = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--render":
+                    render = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--csv":
+                    csv = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        GameWorld world = new GameWorld(3, seed, TANK_SIZE, TANK_SIZE, BULLET_SIZE,
+                TileMap.generate(mapCols, mapCols * 3 / 4, seed));
+        world.setAiBudget(aiBudget);
+        world.setSweptCollision(swept);
+        IncrementalRenderer renderer = null;
+        if (render) {
+            BufferedImage[] sprites = null;
+            try {
+                sprites = new AssetManager(null).loadSprites().join();
+            } catch (CompletionException e) {
+                System.err.println("Error loading images: " + e.getCause().getMessage());
+            }
+            renderer = new IncrementalRenderer(new GameRenderer(sprites != null ? new SpriteAtlas(null, sprites) : null),
+                    null, GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT);
+        }
+        StressTest test = new StressTest(world, seed, autoplay ? new RandomPlayerController(seed) : null, renderer);
+
+        // 报告头：配置和运行环境，对比不同构建时应保证这些行一致
+        List<String> header = new ArrayList<>();
+        header.add(String.format("# tanks=%d bullets=%d steps=%d seconds=%d warmup=%d map=%dx%d seed=%d aiBudget=%d swept=%b autoplay=%b render=%b",
+                maxTanks, maxBullets, steps, seconds, warmup, mapCols, mapCols * 3 / 4, seed, aiBudget, swept, autoplay, render));
+        header.add(String.format("# java=%s %s cpus=%d maxHeap=%dMB gc=%s", System.getProperty("java.vm.name"),
+                System.getProperty("java.vm.version"), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() >> 20, String.join("+", test.getGcMonitor().getCollectors())));
+        header.add(COLUMNS);
+        for (String line : header) {
+            System.out.println(line);
+        }
+
+        List<String> rows = new ArrayList<>();
+        if (warmup > 0) {
+            test.run(0, maxTanks / steps, maxBullets / steps, warmup * 1_000_000_000L, false);
+        }
+        for (int step = 1; step <= steps && !world.isGameOver(); step++) {
+            String row = test.run(step, (int) ((long) maxTanks * step / steps), (int) ((long) maxBullets * step / steps),
+                    seconds * 1_000_000_000L, true);
+            System.out.println(row);
+            rows.add(row);
+        }
+        if (world.isGameOver()) {
+            System.out.println("# stopped early: game over at tick " + world.getTickCount());
+        }
+
+        if (csv != null) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(csv)))) {
+                for (String line : header) {
+                    out.println(line);
+                }
+                for (String row : rows) {
+                    out.println(row);
+                }
+            }
+        }
+    }
+}
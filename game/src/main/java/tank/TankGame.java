@@ -0,0 +1,590 @@
+package tank;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// 游戏面板类：GameWorld之上的视图层，负责贴图、输入采集、对话框和绘制
+// 模拟按固定tick推进，与帧率无关：GameLoop按目标帧率驱动frame()，每帧追赶流逝的tick后按插值系数绘制一次
+// 主动渲染模式下绘制交给内嵌的GameCanvas，每帧直接上屏；联机时世界由NetClient按服务器快照驱动
+// 本地游戏按住退格键倒带（见RewindBuffer），F8存档、F9读档（见SaveGame）
+class GamePanel extends JPanel implements KeyListener, WorldListener {
+    static final int MAX_CATCH_UP_TICKS = 25; // 一帧最多追赶的tick数（250毫秒），超出的停顿不再补
+    private GameWorld world;
+    private IncrementalRenderer renderer;
+    private GameCanvas canvas; // 仅主动渲染模式使用
+    private final InputRing inputRing = new InputRing(InputRing.DEFAULT_CAPACITY); // 键盘事件到tick的队列
+    private final TickInput input = new TickInput(); // 每个tick开始时由inputRing合并得到的玩家输入
+    private boolean tickedSincePaint; // 被动渲染：上次paintComponent之后推进过tick，本次重绘才算输入上屏
+    private final GameLoop loop;
+    private final FixedStepClock clock = new FixedStepClock(GameWorld.TICK_MILLIS * 1_000_000L, MAX_CATCH_UP_TICKS);
+    private int currentLevel;
+    private final AssetManager assets;
+    private BufferedImage[] sprites; // 按GameRenderer图集顺序的全部帧（各方向的坦克和子弹）
+    private boolean imagesLoaded = false; // 图像是否加载成功
+    private long levelDialogMillis; // 启动时停在选关对话框上的时间，不计入启动耗时
+    private boolean startupReported;
+    private AudioMixer audio; // 音效混音器
+    private int hitSound; // 打击音效编号
+    private final TickProfiler profiler = new TickProfiler(); // 常开的分阶段计时
+    private final ProfilerOverlay overlay = new ProfilerOverlay(profiler); // F3切换显示
+    private final long baseSeed; // 第n局使用baseSeed + n，固定后每局都可复现
+    private final Path replayFile; // 为null时不录制
+    private ReplayWriter recorder;
+    private int gamesStarted;
+    private final NetClient client; // 联机时非null，本地不推进世界，也不录制
+    private final RewindBuffer rewind = new RewindBuffer(RewindBuffer.DEFAULT_INTERVAL, RewindBuffer.DEFAULT_SLOTS);
+    private boolean rewinding; // 退格键按住期间为true
+    private int rewindTicks; // 倒带中累积的tick数，每满一个快照间隔倒回一份，与正常速度相同
+    private final SaveGame saveGame;
+    private final ParticlePool particles; // 开火、命中和爆炸的特效，只在这里生成和推进，不属于世界状态
+
+    // sprites是assets已经开始的加载，选关对话框显示期间在后台进行
+    public GamePanel(boolean activeRendering, int framesPerSecond, long baseSeed, Path replayFile, NetClient client,
+                     Path saveFile, AssetManager assets, CompletableFuture<BufferedImage[]> sprites) {
+        this.assets = assets;
+        this.baseSeed = baseSeed;
+        this.replayFile = replayFile;
+        this.client = client;
+        this.saveGame = new SaveGame(saveFile);
+        setPreferredSize(new Dimension(GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT));
+        setBackground(Color.BLACK);
+
+        // 初始化打击音效：启动时解码一次，之后由混音线程播放
+        audio = new AudioMixer(16);
+        hitSound = audio.load("/ciallo.wav");
+        audio.start();
+
+        // 每秒汇总一次，同时注册JMX；-Dtank.profile.file=路径 时追加写入文件
+        profiler.startReportingFromProperties();
+
+        // 本地先选关卡，再等贴图；联机时关卡由服务器决定，收到第一份快照后才有世界
+        if (client == null) {
+            long start = System.nanoTime();
+            currentLevel = chooseLevel();
+            levelDialogMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        loadImages(sprites);
+        GraphicsConfiguration gc = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        GameRenderer gameRenderer = new GameRenderer(imagesLoaded ? buildAtlas(gc) : null);
+        particles = new ParticlePool(ParticlePool.DEFAULT_CAPACITY, baseSeed);
+        gameRenderer.setParticles(particles);
+        renderer = new IncrementalRenderer(gameRenderer, gc, GameWorld.MAP_WIDTH, GameWorld.MAP_HEIGHT);
+
+        if (activeRendering) {
+            setLayout(new BorderLayout());
+            canvas = new GameCanvas(renderer, overlay);
+            canvas.addKeyListener(this);
+            add(canvas, BorderLayout.CENTER);
+        } else {
+            setFocusable(true);
+            addKeyListener(this);
+        }
+
+        if (!imagesLoaded) {
+            JOptionPane.showMessageDialog(this, "Failed to load images. The game will use default shapes.", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        if (client == null) {
+            initializeGame();
+        }
+
+        loop = new GameLoop(framesPerSecond, this::frame);
+        loop.start();
+    }
+
+    private void loadImages(CompletableFuture<BufferedImage[]> loading) {
+        try {
+            sprites = loading.join();
+            imagesLoaded = true;
+        } catch (CompletionException e) {
+            System.err.println("Error loading images: " + e.getCause().getMessage());
+            imagesLoaded = false;
+        }
+    }
+
+    // 所有方向的坦克帧和子弹已按GameRenderer中的编号排列，直接打包成图集
+    private SpriteAtlas buildAtlas(GraphicsConfiguration gc) {
+        return new SpriteAtlas(gc, sprites);
+    }
+
+    private void selectLevel() {
+        currentLevel = chooseLevel();
+        initializeGame();
+    }
+
+    private static int chooseLevel() {
+        String[] options = {"Level 1", "Level 2", "Level 3"};
+        int choice = JOptionPane.showOptionDialog(null, "Select a level:", "Level Selection",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        return choice + 1;
+    }
+
+    private void initializeGame() {
+        // 如果图像加载失败，使用默认的坦克尺寸
+        long seed = baseSeed + gamesStarted++;
+        if (imagesLoaded) {
+            world = new GameWorld(currentLevel, seed, sprites[GameRenderer.PLAYER_SPRITES].getWidth(),
+                    sprites[GameRenderer.ENEMY_SPRITES].getWidth(), sprites[GameRenderer.BULLET_SPRITE].getWidth());
+        } else {
+            world = new GameWorld(currentLevel, seed);
+        }
+        world.setListener(this);
+        world.setProfiler(profiler);
+        inputRing.clear();
+        input.clear();
+        clock.reset();
+        rewind.clear();
+        particles.clear();
+        startRecording();
+    }
+
+    private void quickSave() {
+        try {
+            long start = System.nanoTime();
+            saveGame.save(world);
+            System.out.printf("Saved tick %d to %s in %.1f ms%n", world.getTickCount(), saveGame.getFile(),
+                    (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.err.println("Error saving game: " + e.getMessage());
+        }
+    }
+
+    // 读档得到新的世界对象，渲染器会整体重画；回放只能从第0个tick连续录制，读档或倒带之后这一局不再录制
+    private void quickLoad() {
+        GameWorld loaded;
+        long start = System.nanoTime();
+        try {
+            loaded = saveGame.load();
+        } catch (IOException e) {
+            System.err.println("Error loading game: " + e.getMessage());
+            return;
+        }
+        System.out.printf("Loaded tick %d from %s in %.1f ms%n", loaded.getTickCount(), saveGame.getFile(),
+                (System.nanoTime() - start) / 1e6);
+        stopRecording();
+        world = loaded;
+        world.setListener(this);
+        world.setProfiler(profiler);
+        currentLevel = world.getLevel();
+        rewind.clear();
+        particles.clear();
+        clock.reset();
+    }
+
+    // 倒带：每经过一个快照间隔的时间恢复前一份快照，世界不推进；倒到缓冲区最早的快照后停住
+    private void rewindFrame(int steps) {
+        stopRecording();
+        rewindTicks += steps;
+        boolean restored = false;
+        while (rewindTicks >= rewind.getInterval()) {
+            rewindTicks -= rewind.getInterval();
+            try {
+                restored |= rewind.rewind(world);
+            } catch (IOException e) {
+                System.err.println("Error rewinding: " + e.getMessage());
+                rewind.clear();
+            }
+        }
+        if (restored) {
+            particles.clear();
+            renderer.invalidate();
+        }
+        renderer.setAlpha(1);
+        present(false);
+    }
+
+    // 每局一个回放文件，第二局起文件名加上局数
+    private void startRecording() {
+        stopRecording();
+        if (replayFile == null) return;
+        Path file = replayFile;
+        if (gamesStarted > 1) {
+            String name = replayFile.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            name = dot > 0 ? name.substring(0, dot) + "-" + gamesStarted + name.substring(dot) : name + "-" + gamesStarted;
+            file = replayFile.resolveSibling(name);
+        }
+        try {
+            recorder = new ReplayWriter(file, world, ReplayWriter.DEFAULT_KEYFRAME_INTERVAL);
+        } catch (IOException e) {
+            System.err.println("Error creating replay: " + e.getMessage());
+        }
+    }
+
+    // 关闭窗口时也要调用，否则回放缺少尾部无法读取
+    void stopRecording() {
+        if (recorder == null) return;
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("Error writing replay: " + e.getMessage());
+        }
+        recorder = null;
+    }
+
+    @Override
+    public void enemyDestroyed(int tank) {
+        // 播放打击音效
+        long start = profiler.start();
+        audio.play(hitSound);
+        profiler.record(TickProfiler.AUDIO, start);
+        TankStore tanks = eventWorld().getTanks();
+        particles.explosion(tanks.getX(tank) + tanks.getWidth(tank) / 2, tanks.getY(tank) + tanks.getHeight(tank) / 2);
+    }
+
+    @Override
+    public void playerHit() {
+        TankStore tanks = eventWorld().getTanks();
+        int t = TankStore.PLAYER;
+        particles.sparks(tanks.getX(t) + tanks.getWidth(t) / 2, tanks.getY(t) + tanks.getHeight(t) / 2);
+    }
+
+    @Override
+    public void bulletFired(int x, int y, Direction direction) {
+        particles.muzzleFlash(x, y, direction);
+    }
+
+    @Override
+    public void bulletHitWall(int x, int y) {
+        particles.sparks(x, y);
+    }
+
+    // 联机时事件在client.tick()里发出，此时world字段可能还是换局前的世界
+    private GameWorld eventWorld() {
+        return client != null ? client.getWorld() : world;
+    }
+
+    // 只在视口外扩一圈的范围内生成特效，刚移出视口的粒子仍能画完
+    private void updateParticleView() {
+        Camera camera = renderer.getCamera();
+        int margin = 2 * TileMap.TILE_SIZE;
+        particles.setView(camera.getX() - margin, camera.getY() - margin,
+                camera.getX() + camera.getWidth() + margin, camera.getY() + camera.getHeight() + margin);
+    }
+
+    @Override
+    public void tileDestroyed(int col, int row) {
+        renderer.tileChanged(world, col, row);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = profiler.start();
+        super.paintComponent(g);
+        if (world != null) renderer.paint(g, world);
+        overlay.draw(g);
+        profiler.record(TickProfiler.PAINT, start);
+        if (canvas == null && tickedSincePaint) {
+            inputRing.presented(profiler);
+            tickedSincePaint = false;
+        }
+    }
+
+    // 每帧由GameLoop在事件分发线程上调用：推进流逝的tick（可能为0个），再按插值系数绘制一次
+    // 负载过高时一帧推进多个tick（跳帧），模拟速度不变；输入在本帧第一个tick之前合并
+    // 高刷新率下多数帧不推进tick，这些帧不合并输入也不记上屏，否则按键延迟会算到还没有处理它的帧上
+    private void frame() {
+        int steps = clock.advance(System.nanoTime());
+        if (client != null) {
+            remoteFrame(steps);
+            return;
+        }
+        if (rewinding) {
+            rewindFrame(steps);
+            return;
+        }
+        if (world.isGameOver()) {
+            // 主动渲染不响应系统重绘，结束画面也要持续绘制
+            if (canvas != null) canvas.render(world);
+            return;
+        }
+
+        profiler.beginTick();
+        if (steps > 0) {
+            inputRing.drainTo(input, profiler);
+        }
+        updateParticleView();
+        for (int i = 0; i < steps && !world.isGameOver(); i++) {
+            rewind.capture(world);
+            if (recorder != null) {
+                try {
+                    recorder.record(input);
+                } catch (IOException ex) {
+                    System.err.println("Error writing replay: " + ex.getMessage());
+                    recorder = null;
+                }
+            }
+            world.step(input);
+            particles.update();
+            input.clearFire();
+        }
+        if (world.isGameOver()) {
+            stopRecording();
+        }
+
+        renderer.setAlpha(world.isGameOver() ? 1 : clock.alpha());
+        present(steps > 0);
+        profiler.endPhase(TickProfiler.RENDER);
+        profiler.endTick(world.getEnemyCount(), world.getBullets().size());
+
+        // 检查是否击败所有敌人（模态对话框放在计时结束之后，关闭后时钟重新开始，不追赶对话框期间的时间）
+        if (world.isWon()) {
+            int choice = JOptionPane.showConfirmDialog(null, "You won! Do you want to select another level?", "Level Cleared", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                selectLevel();
+            }
+            clock.reset();
+        }
+    }
+
+    // 联机：每个tick的输入交给NetClient上传并做本地预测，服务器换局时世界是新的对象，渲染器会整体重画
+    private void remoteFrame(int steps) {
+        profiler.beginTick();
+        if (steps > 0) {
+            inputRing.drainTo(input, profiler);
+        }
+        updateParticleView();
+        for (int i = 0; i < steps; i++) {
+            try {
+                if (!client.tick(input, this)) {
+                    disconnected("Server closed the connection.");
+                    return;
+                }
+            } catch (IOException ex) {
+                System.err.println("Network error: " + ex.getMessage());
+                disconnected("Network error: " + ex.getMessage());
+                return;
+            }
+            particles.update();
+            input.clearFire();
+        }
+        world = client.getWorld();
+        if (world == null) return; // 还没收到第一份快照
+        renderer.setAlpha(clock.alpha());
+        present(steps > 0);
+        profiler.endPhase(TickProfiler.RENDER);
+        profiler.endTick(world.getEnemyCount(), world.getBullets().size());
+    }
+
+    private void disconnected(String message) {
+        loop.stop();
+        JOptionPane.showMessageDialog(this, message, "Disconnected", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // ticked：本帧推进过tick，画面包含了本帧合并的输入
+    private void present(boolean ticked) {
+        if (canvas != null) {
+            canvas.render(world);
+            if (ticked) {
+                inputRing.presented(profiler);
+            }
+        } else {
+            tickedSincePaint |= ticked;
+            // 只重画帧缓冲中变化的区域
+            Rectangle dirty = renderer.update(world);
+            if (!dirty.isEmpty()) {
+                repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+            }
+            if (overlay.refresh()) {
+                repaintOverlay();
+            }
+        }
+        if (!startupReported) {
+            reportStartup();
+        }
+    }
+
+    // 第一帧画出后报告一次启动耗时：贴图加载（缓存未命中为冷启动）和从JVM启动到第一帧，不含选关对话框
+    private void reportStartup() {
+        startupReported = true;
+        long firstFrame = ManagementFactory.getRuntimeMXBean().getUptime() - levelDialogMillis;
+        String status = !imagesLoaded ? "failed" : assets.isCacheHit() ? "warm, cache hit" : "cold";
+        System.out.printf("startup: sprites %.1f ms (%s), first frame %d ms after JVM start (excluding %d ms in level dialog)%n",
+                assets.getLoadNanos() / 1e6, status, firstFrame, levelDialogMillis);
+    }
+
+    private void repaintOverlay() {
+        repaint(ProfilerOverlay.X, ProfilerOverlay.Y, ProfilerOverlay.WIDTH, ProfilerOverlay.HEIGHT);
+    }
+
+    // 将移动键映射为TickInput位掩码，非移动键返回0
+    private static int keyBit(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_W:
+                return TickInput.UP;
+            case KeyEvent.VK_S:
+                return TickInput.DOWN;
+            case KeyEvent.VK_A:
+                return TickInput.LEFT;
+            case KeyEvent.VK_D:
+                return TickInput.RIGHT;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int keyCode = e.getKeyCode();
+
+        // F3切换剖析覆盖层，F5切换增量/整屏重画，F6开启逐像素比对
+        if (keyCode == KeyEvent.VK_F3) {
+            overlay.setVisible(!overlay.isVisible());
+            overlay.refresh();
+            repaintOverlay();
+            return;
+        } else if (keyCode == KeyEvent.VK_F5) {
+            renderer.setIncremental(!renderer.isIncremental());
+            return;
+        } else if (keyCode == KeyEvent.VK_F6) {
+            renderer.setVerify(!renderer.isVerify());
+            return;
+        }
+
+        // 退格键倒带、F8存档、F9读档只用于本地游戏，结束画面上也可以倒带或读档
+        if (client == null && world != null) {
+            if (keyCode == KeyEvent.VK_BACK_SPACE) {
+                if (!rewinding) rewindTicks = rewind.getInterval(); // 按下立即倒回一份
+                rewinding = true;
+                return;
+            } else if (keyCode == KeyEvent.VK_F8) {
+                quickSave();
+                return;
+            } else if (keyCode == KeyEvent.VK_F9) {
+                quickLoad();
+                return;
+            }
+        }
+
+        if (world == null || world.isGameOver()) return;
+
+        // 处理空格键（射击）和移动键：只入队，下一个tick开始时生效，子弹在该tick生成
+        boolean queued = true;
+        if (keyCode == KeyEvent.VK_SPACE) {
+            queued = inputRing.fire(eventNanos(e));
+        } else if (keyBit(keyCode) != 0) {
+            queued = inputRing.press(keyBit(keyCode), eventNanos(e));
+        }
+        if (!queued) {
+            System.err.println("Input buffer full, key dropped: " + KeyEvent.getKeyText(keyCode));
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+            rewinding = false;
+            return;
+        }
+        if (world == null || world.isGameOver()) return;
+
+        // 处理移动键释放
+        int bit = keyBit(e.getKeyCode());
+        if (bit != 0 && !inputRing.release(bit, eventNanos(e))) {
+            System.err.println("Input buffer full, key dropped: " + KeyEvent.getKeyText(e.getKeyCode()));
+        }
+    }
+
+    // 把事件的系统时间戳（毫秒）换算到nanoTime时间轴，计入事件在AWT队列中等待的时间
+    private static long eventNanos(KeyEvent e) {
+        long now = System.nanoTime();
+        long queued = System.currentTimeMillis() - e.getWhen();
+        return queued > 0 ? now - queued * 1_000_000L : now;
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+        // 不需要实现
+    }
+}
+
+// 主游戏类
+public class TankGame extends JFrame {
+    public TankGame(boolean activeRendering, int framesPerSecond, long seed, Path replayFile, NetClient client,
+                    Path saveFile, AssetManager assets, CompletableFuture<BufferedImage[]> sprites) {
+        setTitle("Tank Game");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setResizable(false);
+
+        GamePanel gamePanel = new GamePanel(activeRendering, framesPerSecond, seed, replayFile, client, saveFile, assets, sprites);
+        add(gamePanel);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                gamePanel.stopRecording();
+            }
+        });
+
+        pack();
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    // 参数 --active 使用Canvas + BufferStrategy主动渲染，默认为Swing被动绘制
+    //      --seed <n> 固定世界种子，--record <文件> 把每局录制为回放（见Replay）
+    //      --connect <主机[:端口]> 连接NetServer联机，本地只采集输入和绘制
+    //      --fps <n> 目标帧率，默认为显示器刷新率（取不到时60），与模拟速度无关
+    //      --save <文件> F8存档、F9读档使用的文件，默认为当前目录下的quicksave.tks
+    //      -Dtank.cache.dir=<目录> 贴图缓存位置（见AssetManager）
+    public static void main(String[] args) {
+        // 贴图加载最先开始，与参数解析、连接服务器、建窗口和选关对话框并行
+        AssetManager assets = AssetManager.fromProperties();
+        CompletableFuture<BufferedImage[]> sprites = assets.loadSprites();
+        boolean activeRendering = false;
+        int framesPerSecond = 0;
+        long seed = System.nanoTime();
+        Path replayFile = null;
+        Path saveFile = Paths.get("quicksave.tks");
+        String server = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--active")) {
+                activeRendering = true;
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--record") && i + 1 < args.length) {
+                replayFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--connect") && i + 1 < args.length) {
+                server = args[++i];
+            } else if (args[i].equals("--fps") && i + 1 < args.length) {
+                framesPerSecond = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--save") && i + 1 < args.length) {
+                saveFile = Paths.get(args[++i]);
+            }
+        }
+        if (framesPerSecond <= 0) {
+            framesPerSecond = displayRefreshRate();
+        }
+        NetClient client = null;
+        if (server != null) {
+            String[] parts = server.split(":");
+            try {
+                client = new NetClient(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : NetProtocol.DEFAULT_PORT);
+            } catch (IOException e) {
+                System.err.println("Error connecting to server: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        boolean active = activeRendering;
+        int fps = framesPerSecond;
+        long baseSeed = seed;
+        Path file = replayFile;
+        Path save = saveFile;
+        NetClient netClient = client;
+        SwingUtilities.invokeLater(() -> new TankGame(active, fps, baseSeed, file, netClient, save, assets, sprites));
+    }
+
+    private static int displayRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) return 60;
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return rate != DisplayMode.REFRESH_RATE_UNKNOWN ? rate : 60;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,793 @@
+package tank;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 坦克存储（结构数组）：位置、方向、速度、贴图、AI状态和计时器、血量各占一个按槽位排列的基本类型数组，
+// 取代原来每辆坦克一个对象（外加各自的巡逻点数组和随机数对象）；移动、AI、开火和绘制都按下标线性遍历
+// 槽位0是玩家，之后是按生成顺序排列的敌人；敌人AI与原EnemyTank逐句对应，随机数序列和状态字节完全相同
+class TankStore {
+    static final int PLAYER = 0;
+    static final int FIRST_ENEMY = 1;
+    static final byte SPRITE_PLAYER = 0; // 贴图组，GameRenderer按组和方向选帧
+    static final byte SPRITE_ENEMY = 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final MoveStrategy[] STRATEGIES = MoveStrategy.values();
+    // 速度和以tick计的间隔都按默认tick长度（GameWorld.TICK_MILLIS）给出，实际值见setTickMillis()
+    private static final int PLAYER_SPEED = 5; // 基础速度
+    private static final int ENEMY_SPEED = 3; // 敌人坦克速度降低，比玩家慢
+    static final int DEFAULT_STRATEGY_CHANGE_INTERVAL = 300; // 策略变更间隔
+    private static final int AMBUSH_TICKS = 120; // 伏击持续时间
+    private static final int AMBUSH_RELOAD_TICKS = 30; // 伏击时两次开火的最短间隔
+    static final int DEFAULT_FIRE_INTERVAL = 60; // 敌人开火间隔
+    private static final int SEEK_DODGE_RANGE = 150; // 追踪时离玩家小于此距离开始侧向躲闪
+    private static final int[] PATROL_X = {200, 600, 600, 200}; // 预设巡逻点，所有敌人共用
+    private static final int[] PATROL_Y = {150, 150, 450, 450};
+    private static final int TILE = TileMap.TILE_SIZE;
+
+    private int size;
+    private int[] x, y;
+    private int[] prevX, prevY; // 本tick开始时的位置，用于渲染插值和子弹的连续碰撞，不属于需要保存的状态
+    private byte[] direction; // Direction序号
+    private byte[] speed;
+    private short[] width, height; // 坦克尺寸（取自贴图，无贴图时为默认值）
+    private byte[] sprite;
+    private byte[] input; // 当前按下的方向键（TickInput位掩码），只有玩家使用
+    private int[] health; // 只有玩家使用
+    private byte[] strategy; // MoveStrategy序号
+    private int[] strategyTimer;
+    private byte[] patrolIndex; // 巡逻路径索引
+    private int[] ambushTimer;
+    private boolean[] ambushing;
+    private int[] retreatTimer;
+    private boolean[] retreating;
+    private int[] retreatX, retreatY; // 撤退目标点
+    private int[] fireTimer;
+    private long[] rngSeed, rngGamma; // 每辆坦克独占的随机数源（GameRandom的状态），由世界种子派生，可在并行决策中使用
+    private FlowField[] retreatField; // 当前撤退目标的流场，由prepareNavigation()设置，不属于需要保存的状态
+    private TileMap map = TileMap.DEFAULT; // 移动时查询的阻挡位图，由GameWorld设置
+    private Navigation navigation; // 为null时按原有贪心方式直线逼近
+    private int tickMillis = GameWorld.TICK_MILLIS;
+    private int playerSpeed = PLAYER_SPEED; // 按tick长度换算后的速度和间隔
+    private int enemySpeed = ENEMY_SPEED;
+    private int ambushTicks = AMBUSH_TICKS;
+    private int ambushReloadTicks = AMBUSH_RELOAD_TICKS;
+    private int baseStrategyChangeInterval = DEFAULT_STRATEGY_CHANGE_INTERVAL; // 调参用，见setEnemyTuning()
+    private int baseFireInterval = DEFAULT_FIRE_INTERVAL;
+    private int strategyChangeInterval = DEFAULT_STRATEGY_CHANGE_INTERVAL;
+    private int fireInterval = DEFAULT_FIRE_INTERVAL;
+    private boolean ambushAim; // 伏击时按视线瞄准射击，见setAmbushAim()
+    private boolean playerInvulnerable; // 见setPlayerInvulnerable()
+
+    public TankStore(int capacity) {
+        allocate(Math.max(capacity, 2));
+    }
+
+    private void allocate(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        prevX = new int[capacity];
+        prevY = new int[capacity];
+        direction = new byte[capacity];
+        speed = new byte[capacity];
+        width = new short[capacity];
+        height = new short[capacity];
+        sprite = new byte[capacity];
+        input = new byte[capacity];
+        health = new int[capacity];
+        strategy = new byte[capacity];
+        strategyTimer = new int[capacity];
+        patrolIndex = new byte[capacity];
+        ambushTimer = new int[capacity];
+        ambushing = new boolean[capacity];
+        retreatTimer = new int[capacity];
+        retreating = new boolean[capacity];
+        retreatX = new int[capacity];
+        retreatY = new int[capacity];
+        fireTimer = new int[capacity];
+        rngSeed = new long[capacity];
+        rngGamma = new long[capacity];
+        retreatField = new FlowField[capacity];
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        sprite = Arrays.copyOf(sprite, capacity);
+        input = Arrays.copyOf(input, capacity);
+        health = Arrays.copyOf(health, capacity);
+        strategy = Arrays.copyOf(strategy, capacity);
+        strategyTimer = Arrays.copyOf(strategyTimer, capacity);
+        patrolIndex = Arrays.copyOf(patrolIndex, capacity);
+        ambushTimer = Arrays.copyOf(ambushTimer, capacity);
+        ambushing = Arrays.copyOf(ambushing, capacity);
+        retreatTimer = Arrays.copyOf(retreatTimer, capacity);
+        retreating = Arrays.copyOf(retreating, capacity);
+        retreatX = Arrays.copyOf(retreatX, capacity);
+        retreatY = Arrays.copyOf(retreatY, capacity);
+        fireTimer = Arrays.copyOf(fireTimer, capacity);
+        rngSeed = Arrays.copyOf(rngSeed, capacity);
+        rngGamma = Arrays.copyOf(rngGamma, capacity);
+        retreatField = Arrays.copyOf(retreatField, capacity);
+    }
+
+    // 追加一个槽位，所有组件重置为初始值（被移除的槽位会被复用）
+    private int add(int x, int y, Direction direction, int speed, int width, int height, byte sprite) {
+        if (size == this.x.length) {
+            grow();
+        }
+        int t = size++;
+        this.x[t] = x;
+        this.y[t] = y;
+        prevX[t] = x; // 新坦克不插值
+        prevY[t] = y;
+        this.direction[t] = (byte) direction.ordinal();
+        this.speed[t] = (byte) speed;
+        this.width[t] = (short) width;
+        this.height[t] = (short) height;
+        this.sprite[t] = sprite;
+        input[t] = 0;
+        health[t] = 0;
+        strategy[t] = (byte) MoveStrategy.RANDOM.ordinal(); // 默认随机移动
+        strategyTimer[t] = 0;
+        patrolIndex[t] = 0;
+        ambushTimer[t] = 0;
+        ambushing[t] = false;
+        retreatTimer[t] = 0;
+        retreating[t] = false;
+        retreatX[t] = x; // 初始撤退点为出生点
+        retreatY[t] = y;
+        fireTimer[t] = 0;
+        rngSeed[t] = 0;
+        rngGamma[t] = 0;
+        retreatField[t] = null;
+        return t;
+    }
+
+    // 玩家必须最先添加，占槽位0
+    public int addPlayer(int x, int y, Direction direction, int health, int width, int height) {
+        if (size != PLAYER) throw new IllegalStateException("Player must be added first");
+        int t = add(x, y, direction, playerSpeed, width, height, SPRITE_PLAYER);
+        this.health[t] = health;
+        return t;
+    }
+
+    // 随机数源从source中split出来，与原来每个敌人new一个rand.split()的消耗相同
+    public int addEnemy(int x, int y, Direction direction, int width, int height, GameRandom source) {
+        int t = add(x, y, direction, enemySpeed, width, height, SPRITE_ENEMY);
+        source.splitInto(rngSeed, rngGamma, t);
+        return t;
+    }
+
+    // 移除destroyed中标记的敌人（按槽位），剩余敌人保持先后顺序
+    public void removeDestroyed(boolean[] destroyed) {
+        int kept = FIRST_ENEMY;
+        for (int t = FIRST_ENEMY; t < size; t++) {
+            if (destroyed[t]) continue;
+            if (kept != t) {
+                copySlot(t, kept);
+            }
+            kept++;
+        }
+        for (int t = kept; t < size; t++) {
+            retreatField[t] = null; // 不再引用流场
+        }
+        size = kept;
+    }
+
+    private void copySlot(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        prevX[to] = prevX[from];
+        prevY[to] = prevY[from];
+        direction[to] = direction[from];
+        speed[to] = speed[from];
+        width[to] = width[from];
+        height[to] = height[from];
+        sprite[to] = sprite[from];
+        input[to] = input[from];
+        health[to] = health[from];
+        strategy[to] = strategy[from];
+        strategyTimer[to] = strategyTimer[from];
+        patrolIndex[to] = patrolIndex[from];
+        ambushTimer[to] = ambushTimer[from];
+        ambushing[to] = ambushing[from];
+        retreatTimer[to] = retreatTimer[from];
+        retreating[to] = retreating[from];
+        retreatX[to] = retreatX[from];
+        retreatY[to] = retreatY[from];
+        fireTimer[to] = fireTimer[from];
+        rngSeed[to] = rngSeed[from];
+        rngGamma[to] = rngGamma[from];
+        retreatField[to] = retreatField[from];
+    }
+
+    // 玩家移动：优先处理垂直方向（上/下），再处理水平方向（左/右）
+    public void movePlayer(int t) {
+        int oldX = x[t], oldY = y[t];
+        int keys = input[t];
+        if ((keys & TickInput.UP) != 0) {
+            direction[t] = (byte) Direction.UP.ordinal();
+            y[t] -= speed[t];
+        } else if ((keys & TickInput.DOWN) != 0) {
+            direction[t] = (byte) Direction.DOWN.ordinal();
+            y[t] += speed[t];
+        }
+        if ((keys & TickInput.LEFT) != 0) {
+            direction[t] = (byte) Direction.LEFT.ordinal();
+            x[t] -= speed[t];
+        } else if ((keys & TickInput.RIGHT) != 0) {
+            direction[t] = (byte) Direction.RIGHT.ordinal();
+            x[t] += speed[t];
+        }
+        resolveMove(t, oldX, oldY, false);
+    }
+
+    // 从(oldX, oldY)移动到当前位置后的边界和墙体处理：先夹紧到地图边界，再先垂直后水平逐轴检查新进入的条带，
+    // 撞墙时贴到墙边（每步移动小于一个瓦片，条带内最多跨一条瓦片边界）
+    // slide为true时，被墙挡住且与瓦片列/行没有对齐的坦克沿与移动方向垂直的方向滑向空着的一侧，便于钻过缺口
+    void resolveMove(int t, int oldX, int oldY, boolean slide) {
+        int w = width[t], h = height[t];
+        int newX = Math.max(0, Math.min(x[t], map.getWidth() - w));
+        int newY = Math.max(0, Math.min(y[t], map.getHeight() - h));
+        x[t] = newX;
+        y[t] = newY;
+        if (map.isOpen()) return;
+
+        x[t] = oldX;
+        if (newY > oldY) {
+            if (map.isBlocked(oldX, oldY + h, w, newY - oldY)) {
+                int snapped = (newY + h) / TILE * TILE - h;
+                y[t] = snapped > oldY && !map.isBlocked(oldX, oldY + h, w, snapped - oldY) ? snapped : oldY;
+                if (slide && y[t] == oldY) slideX(t, oldY + h);
+            }
+        } else if (newY < oldY) {
+            if (map.isBlocked(oldX, newY, w, oldY - newY)) {
+                int snapped = (newY + TILE - 1) / TILE * TILE;
+                y[t] = snapped < oldY && !map.isBlocked(oldX, snapped, w, oldY - snapped) ? snapped : oldY;
+                if (slide && y[t] == oldY) slideX(t, oldY - 1);
+            }
+        }
+        if (x[t] != oldX) return; // 已经滑动过，本tick不再水平移动
+
+        x[t] = newX;
+        int cy = y[t];
+        if (newX > oldX) {
+            if (map.isBlocked(oldX + w, cy, newX - oldX, h)) {
+                int snapped = (newX + w) / TILE * TILE - w;
+                x[t] = snapped > oldX && !map.isBlocked(oldX + w, cy, snapped - oldX, h) ? snapped : oldX;
+                if (slide && x[t] == oldX) slideY(t, oldX + w);
+            }
+        } else if (newX < oldX) {
+            if (map.isBlocked(newX, cy, oldX - newX, h)) {
+                int snapped = (newX + TILE - 1) / TILE * TILE;
+                x[t] = snapped < oldX && !map.isBlocked(snapped, cy, oldX - snapped, h) ? snapped : oldX;
+                if (slide && x[t] == oldX) slideY(t, oldX - 1);
+            }
+        }
+    }
+
+    // 前方的像素行edgeY被挡住时，水平滑向最近的、前方空着的瓦片列对齐位置
+    private void slideX(int t, int edgeY) {
+        int tx = x[t], w = width[t];
+        int offset = tx % TILE;
+        if (offset == 0) return;
+        int left = tx - offset, right = left + TILE;
+        boolean leftFree = !map.isBlocked(left, edgeY, w, 1);
+        boolean rightFree = right + w <= map.getWidth() && !map.isBlocked(right, edgeY, w, 1);
+        if (!leftFree && !rightFree) return;
+        int target = leftFree && (!rightFree || offset <= TILE / 2) ? left : right;
+        int next = target < tx ? Math.max(target, tx - speed[t]) : Math.min(target, tx + speed[t]);
+        if (!map.isBlocked(next, y[t], w, height[t])) {
+            x[t] = next;
+        }
+    }
+
+    // 前方的像素列edgeX被挡住时，垂直滑向最近的、前方空着的瓦片行对齐位置
+    private void slideY(int t, int edgeX) {
+        int ty = y[t], h = height[t];
+        int offset = ty % TILE;
+        if (offset == 0) return;
+        int top = ty - offset, bottom = top + TILE;
+        boolean topFree = !map.isBlocked(edgeX, top, 1, h);
+        boolean bottomFree = bottom + h <= map.getHeight() && !map.isBlocked(edgeX, bottom, 1, h);
+        if (!topFree && !bottomFree) return;
+        int target = topFree && (!bottomFree || offset <= TILE / 2) ? top : bottom;
+        int next = target < ty ? Math.max(target, ty - speed[t]) : Math.min(target, ty + speed[t]);
+        if (!map.isBlocked(x[t], next, width[t], h)) {
+            y[t] = next;
+        }
+    }
+
+    // 敌人AI：到点随机换策略，按当前策略移动，最后做边界和墙体检测（被挡住时滑向缺口）
+    // 只写本槽位、只读玩家位置，不同槽位可以并行
+    public void moveEnemy(int t) {
+        int oldX = x[t], oldY = y[t];
+
+        strategyTimer[t]++;
+        if (strategyTimer[t] >= strategyChangeInterval) {
+            changeStrategyRandomly(t);
+            strategyTimer[t] = 0;
+        }
+
+        switch (STRATEGIES[strategy[t]]) {
+            case RANDOM:
+                randomMove(t);
+                break;
+            case SEEK_PLAYER:
+                seekPlayerMove(t);
+                break;
+            case PATROL:
+                patrolMove(t);
+                break;
+            case AMBUSH:
+                ambushMove(t);
+                break;
+            case RETREAT:
+                retreatMove(t);
+                break;
+        }
+
+        resolveMove(t, oldX, oldY, true);
+    }
+
+    // 细节层次降低时两次决策之间的tick（见AiScheduler）：不取随机数、不查流场，只推进计时器并沿当前方向惯性移动
+    // 巡逻和撤退时不越过目标点所在的行/列，下一次决策仍能准确到达目标
+    public void coastEnemy(int t) {
+        int oldX = x[t], oldY = y[t];
+        strategyTimer[t]++;
+        MoveStrategy current = STRATEGIES[strategy[t]];
+        if (current == MoveStrategy.AMBUSH) {
+            if (ambushing[t]) ambushTimer[t]++; // 到时由下一次决策结束伏击
+            return;
+        }
+        if (current == MoveStrategy.RETREAT && retreating[t]) {
+            retreatTimer[t]++;
+        }
+        advance(t, direction[t]);
+        if (current == MoveStrategy.PATROL) {
+            clampToTarget(t, oldX, oldY, PATROL_X[patrolIndex[t]], PATROL_Y[patrolIndex[t]]);
+        } else if (current == MoveStrategy.RETREAT) {
+            clampToTarget(t, oldX, oldY, retreatX[t], retreatY[t]);
+        }
+        resolveMove(t, oldX, oldY, true);
+    }
+
+    private void clampToTarget(int t, int oldX, int oldY, int targetX, int targetY) {
+        if (oldX <= targetX && x[t] > targetX || oldX >= targetX && x[t] < targetX) x[t] = targetX;
+        if (oldY <= targetY && y[t] > targetY || oldY >= targetY && y[t] < targetY) y[t] = targetY;
+    }
+
+    private void changeStrategyRandomly(int t) {
+        int randomNum = nextInt(t, 5); // 0-4
+        strategy[t] = (byte) randomNum; // 与MoveStrategy的声明顺序一致
+        if (randomNum == MoveStrategy.RETREAT.ordinal()) {
+            retreatX[t] = nextInt(t, map.getWidth() - 100) + 50;
+            retreatY[t] = nextInt(t, map.getHeight() - 100) + 50;
+            retreatField[t] = null; // 下一tick由Navigation.prepare()取得新目标的流场
+        }
+    }
+
+    void randomMove(int t) {
+        if (nextInt(t, 100) < 5) { // 5%概率改变方向
+            direction[t] = (byte) nextInt(t, 4);
+        }
+        advance(t, direction[t]);
+    }
+
+    void seekPlayerMove(int t) {
+        int dx = x[PLAYER] - x[t];
+        int dy = y[PLAYER] - y[t];
+
+        // 距离判断：比较距离的平方，省去开方（平方溢出为负时与原来的sqrt结果NaN一样视为不近）
+        int distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared >= 0 && distanceSquared < SEEK_DODGE_RANGE * SEEK_DODGE_RANGE && nextBoolean(t)) {
+            // 接近玩家时，增加侧向移动概率，更难被击中
+            if (Math.abs(dx) > Math.abs(dy)) {
+                step(t, dy > 0 ? Direction.DOWN : Direction.UP);
+            } else {
+                step(t, dx > 0 ? Direction.RIGHT : Direction.LEFT);
+            }
+            return;
+        }
+
+        // 正常追踪：按共享流场绕开障碍，进入玩家所在格子后直接逼近
+        Direction next = navigation != null ? navigation.getSeekField().directionAt(x[t], y[t]) : null;
+        if (next != null) {
+            step(t, next);
+        } else if (Math.abs(dx) > Math.abs(dy)) {
+            step(t, dx > 0 ? Direction.RIGHT : Direction.LEFT);
+        } else {
+            step(t, dy > 0 ? Direction.DOWN : Direction.UP);
+        }
+    }
+
+    // 朝指定方向移动一步
+    private void step(int t, Direction next) {
+        direction[t] = (byte) next.ordinal();
+        advance(t, direction[t]);
+    }
+
+    private void advance(int t, int dir) {
+        switch (DIRECTIONS[dir]) {
+            case UP:
+                y[t] -= speed[t];
+                break;
+            case DOWN:
+                y[t] += speed[t];
+                break;
+            case LEFT:
+                x[t] -= speed[t];
+                break;
+            case RIGHT:
+                x[t] += speed[t];
+                break;
+        }
+    }
+
+    void patrolMove(int t) {
+        int targetX = PATROL_X[patrolIndex[t]];
+        int targetY = PATROL_Y[patrolIndex[t]];
+        moveToward(t, targetX, targetY);
+
+        if (x[t] == targetX && y[t] == targetY) {
+            patrolIndex[t] = (byte) ((patrolIndex[t] + 1) % PATROL_X.length);
+        }
+    }
+
+    // 先水平后垂直，每tick只走一个轴
+    private void moveToward(int t, int targetX, int targetY) {
+        if (x[t] < targetX) {
+            step(t, Direction.RIGHT);
+        } else if (x[t] > targetX) {
+            step(t, Direction.LEFT);
+        } else if (y[t] < targetY) {
+            step(t, Direction.DOWN);
+        } else if (y[t] > targetY) {
+            step(t, Direction.UP);
+        }
+    }
+
+    // 伏击：原地等待，玩家进入射击通道且装填完毕时转向玩家，本tick由tickFireTimer()开火；
+    // 装填期间仍在通道里就横向让出通道躲避还击。未开启ambushAim时只原地等待
+    private void ambushMove(int t) {
+        if (!ambushing[t]) {
+            ambushing[t] = true;
+            ambushTimer[t] = 0;
+        }
+        ambushTimer[t]++;
+        Direction lane = ambushAim ? firingLane(t) : null;
+        if (lane != null) {
+            if (fireTimer[t] + 1 >= ambushReloadTicks) {
+                direction[t] = (byte) lane.ordinal();
+            } else if (lane == Direction.UP || lane == Direction.DOWN) {
+                step(t, x[t] + width[t] / 2 < x[PLAYER] + width[PLAYER] / 2 ? Direction.LEFT : Direction.RIGHT);
+            } else {
+                step(t, y[t] + height[t] / 2 < y[PLAYER] + height[PLAYER] / 2 ? Direction.UP : Direction.DOWN);
+            }
+        }
+        if (ambushTimer[t] >= ambushTicks) { // 伏击一段时间后结束
+            ambushing[t] = false;
+            changeStrategyRandomly(t);
+        }
+    }
+
+    void retreatMove(int t) {
+        if (!retreating[t]) {
+            retreating[t] = true;
+            retreatTimer[t] = 0;
+        }
+        retreatTimer[t]++;
+
+        int targetX = retreatX[t];
+        int targetY = retreatY[t];
+
+        // 先沿撤退流场走到目标格子，再精确逼近目标点
+        Direction next = retreatField[t] != null ? retreatField[t].directionAt(x[t], y[t]) : null;
+        if (next != null) {
+            step(t, next);
+        } else {
+            moveToward(t, targetX, targetY);
+        }
+
+        if (x[t] == targetX && y[t] == targetY) {
+            retreating[t] = false;
+            changeStrategyRandomly(t);
+        }
+    }
+
+    // AI决策之前串行调用：撤退中的坦克取得目标流场（流场只由目标和地图决定，不属于需要保存的状态）
+    // 返回本tick是否可能用到追踪流场：已在追踪，或本tick到点换策略后可能立即追踪
+    boolean prepareNavigation(int t, Navigation navigation) {
+        if (strategy[t] == MoveStrategy.RETREAT.ordinal()
+                && (retreatField[t] == null || retreatField[t].getVersion() != navigation.getMapVersion())) {
+            retreatField[t] = navigation.retreatField(retreatX[t], retreatY[t]);
+        }
+        return strategy[t] == MoveStrategy.SEEK_PLAYER.ordinal() || strategyTimer[t] + 1 >= strategyChangeInterval;
+    }
+
+    // 推进开火计时，返回本tick是否开火；不写共享的子弹池，可在并行决策中调用
+    // 伏击中不按间隔盲射，只在朝向玩家所在的射击通道且装填完毕时开火
+    boolean tickFireTimer(int t) {
+        fireTimer[t]++;
+        if (ambushAim && ambushing[t] && strategy[t] == MoveStrategy.AMBUSH.ordinal()) {
+            if (fireTimer[t] >= ambushReloadTicks && firingLane(t) == DIRECTIONS[direction[t]]) {
+                fireTimer[t] = 0;
+                return true;
+            }
+            return false;
+        }
+        if (fireTimer[t] >= fireInterval) {
+            fireTimer[t] = 0;
+            return true;
+        }
+        return false;
+    }
+
+    // 从坦克中心发出的子弹沿哪个方向能打到玩家（中间没有墙），没有时返回null；只读玩家位置和视线缓存
+    private Direction firingLane(int t) {
+        if (navigation == null) return null;
+        return navigation.getLineOfSight().firingLane(x[t] + width[t] / 2, y[t] + height[t] / 2,
+                x[PLAYER], y[PLAYER], width[PLAYER], height[PLAYER]);
+    }
+
+    // 射击方法，调整子弹发射位置到坦克朝向的中间，返回新子弹的下标
+    public int fire(int t, BulletPool bullets, byte owner) {
+        int tankX = x[t], tankY = y[t];
+        int tankWidth = width[t], tankHeight = height[t];
+        int bulletSize = bullets.getBulletSize();
+
+        // 根据坦克方向精确调整子弹初始位置
+        int bulletX = tankX + tankWidth / 2 - bulletSize / 2;
+        int bulletY = tankY + tankHeight / 2 - bulletSize / 2;
+        Direction dir = DIRECTIONS[direction[t]];
+        switch (dir) {
+            case UP:
+                bulletX = tankX + (tankWidth - bulletSize) / 2; // 水平居中
+                bulletY = tankY - bulletSize / 2; // 上方中间
+                break;
+            case DOWN:
+                bulletX = tankX + (tankWidth - bulletSize) / 2; // 水平居中
+                bulletY = tankY + tankHeight - bulletSize / 2; // 下方中间
+                break;
+            case LEFT:
+                bulletX = tankX - bulletSize / 2; // 左侧中间
+                bulletY = tankY + (tankHeight - bulletSize) / 2; // 垂直居中
+                break;
+            case RIGHT:
+                bulletX = tankX + tankWidth - bulletSize / 2; // 右侧中间
+                bulletY = tankY + (tankHeight - bulletSize) / 2; // 垂直居中
+                break;
+        }
+
+        return bullets.add(bulletX, bulletY, dir, owner);
+    }
+
+    private int nextInt(int t, int bound) {
+        return GameRandom.nextInt(rngSeed, rngGamma, t, bound);
+    }
+
+    private boolean nextBoolean(int t) {
+        return GameRandom.nextBoolean(rngSeed, rngGamma, t);
+    }
+
+    // 保存/恢复全部坦克（回放关键帧用）：玩家、敌人数、各敌人，字节格式与原来的对象逐个写入相同
+    // 尺寸由构造参数决定，不写入
+    public void writeState(DataOutput out) throws IOException {
+        writeTank(PLAYER, out);
+        out.writeInt(health[PLAYER]);
+        out.writeInt(size - FIRST_ENEMY);
+        for (int t = FIRST_ENEMY; t < size; t++) {
+            writeTank(t, out);
+            out.writeByte(strategy[t]);
+            out.writeInt(strategyTimer[t]);
+            out.writeByte(patrolIndex[t]);
+            out.writeInt(ambushTimer[t]);
+            out.writeBoolean(ambushing[t]);
+            out.writeInt(retreatTimer[t]);
+            out.writeBoolean(retreating[t]);
+            out.writeInt(retreatX[t]);
+            out.writeInt(retreatY[t]);
+            out.writeInt(fireTimer[t]);
+            out.writeLong(rngSeed[t]);
+            out.writeLong(rngGamma[t]);
+        }
+    }
+
+    private void writeTank(int t, DataOutput out) throws IOException {
+        out.writeInt(x[t]);
+        out.writeInt(y[t]);
+        out.writeByte(direction[t]);
+        out.writeInt(speed[t]);
+        out.writeByte(input[t]);
+    }
+
+    // 玩家槽位已存在；敌人按enemySize重建
+    public void readState(DataInput in, int enemySize) throws IOException {
+        readTank(PLAYER, in);
+        health[PLAYER] = in.readInt();
+        int enemyCount = in.readInt();
+        for (int t = FIRST_ENEMY; t < size; t++) {
+            retreatField[t] = null;
+        }
+        size = FIRST_ENEMY;
+        for (int i = 0; i < enemyCount; i++) {
+            int t = add(0, 0, Direction.DOWN, enemySpeed, enemySize, enemySize, SPRITE_ENEMY);
+            readTank(t, in);
+            strategy[t] = in.readByte();
+            strategyTimer[t] = in.readInt();
+            patrolIndex[t] = in.readByte();
+            ambushTimer[t] = in.readInt();
+            ambushing[t] = in.readBoolean();
+            retreatTimer[t] = in.readInt();
+            retreating[t] = in.readBoolean();
+            retreatX[t] = in.readInt();
+            retreatY[t] = in.readInt();
+            fireTimer[t] = in.readInt();
+            rngSeed[t] = in.readLong();
+            rngGamma[t] = in.readLong();
+        }
+    }
+
+    private void readTank(int t, DataInput in) throws IOException {
+        x[t] = in.readInt();
+        y[t] = in.readInt();
+        prevX[t] = x[t]; // 载入的状态不插值
+        prevY[t] = y[t];
+        direction[t] = in.readByte();
+        speed[t] = (byte) in.readInt();
+        input[t] = in.readByte();
+    }
+
+    // 每个tick开始时记下所有坦克的位置，渲染时在它和当前位置之间插值
+    public void savePositions() {
+        System.arraycopy(x, 0, prevX, 0, size);
+        System.arraycopy(y, 0, prevY, 0, size);
+    }
+
+    public void setMap(TileMap map) {
+        this.map = map;
+    }
+
+    public void setNavigation(Navigation navigation) {
+        this.navigation = navigation;
+    }
+
+    // 敌人开火间隔和策略变更间隔（默认长度的tick，按tick长度换算），只供批量对局调参
+    public void setEnemyTuning(int fireInterval, int strategyChangeInterval) {
+        this.baseFireInterval = fireInterval;
+        this.baseStrategyChangeInterval = strategyChangeInterval;
+        applyTickMillis();
+    }
+
+    // 每个tick代表的游戏时间（见GameWorld.setTickMillis）：换算坦克速度和以tick计的间隔，游戏时间下的速度和间隔不变
+    // 已有坦克的速度一并换算，须在第一个tick之前调用
+    public void setTickMillis(int tickMillis) {
+        this.tickMillis = tickMillis;
+        applyTickMillis();
+        for (int t = 0; t < size; t++) {
+            speed[t] = (byte) (sprite[t] == SPRITE_PLAYER ? playerSpeed : enemySpeed);
+        }
+    }
+
+    private void applyTickMillis() {
+        playerSpeed = GameWorld.scaleSpeed(PLAYER_SPEED, tickMillis);
+        enemySpeed = GameWorld.scaleSpeed(ENEMY_SPEED, tickMillis);
+        ambushTicks = GameWorld.scaleTicks(AMBUSH_TICKS, tickMillis);
+        ambushReloadTicks = GameWorld.scaleTicks(AMBUSH_RELOAD_TICKS, tickMillis);
+        fireInterval = GameWorld.scaleTicks(baseFireInterval, tickMillis);
+        strategyChangeInterval = GameWorld.scaleTicks(baseStrategyChangeInterval, tickMillis);
+    }
+
+    // 玩家中弹不掉血，压测和基准测试用来保证测量期间不会结束；不属于世界状态，不写入快照、回放和存档
+    public void setPlayerInvulnerable(boolean playerInvulnerable) {
+        this.playerInvulnerable = playerInvulnerable;
+    }
+
+    // 伏击时按视线瞄准射击；关闭时伏击只原地等待、照常按间隔开火（旧回放按关闭重放）
+    public void setAmbushAim(boolean ambushAim) {
+        this.ambushAim = ambushAim;
+    }
+
+    public boolean isAmbushAim() {
+        return ambushAim;
+    }
+
+    public int getFireInterval() {
+        return fireInterval;
+    }
+
+    public int getStrategyChangeInterval() {
+        return strategyChangeInterval;
+    }
+
+    public void setInput(int t, int keys) {
+        input[t] = (byte) keys;
+    }
+
+    // 槽位总数（含玩家）
+    public int size() {
+        return size;
+    }
+
+    public int getEnemyCount() {
+        return size - FIRST_ENEMY;
+    }
+
+    public int getX(int t) {
+        return x[t];
+    }
+
+    public int getY(int t) {
+        return y[t];
+    }
+
+    // 本tick开始时的位置（本tick新生成的坦克为生成位置）
+    public int getPrevX(int t) {
+        return prevX[t];
+    }
+
+    public int getPrevY(int t) {
+        return prevY[t];
+    }
+
+    // 渲染位置：alpha为0时是本tick开始时的位置，为1时是当前位置
+    public int getRenderX(int t, double alpha) {
+        return prevX[t] + (int) Math.round((x[t] - prevX[t]) * alpha);
+    }
+
+    public int getRenderY(int t, double alpha) {
+        return prevY[t] + (int) Math.round((y[t] - prevY[t]) * alpha);
+    }
+
+    public int getWidth(int t) {
+        return width[t];
+    }
+
+    public int getHeight(int t) {
+        return height[t];
+    }
+
+    public Direction getDirection(int t) {
+        return DIRECTIONS[direction[t]];
+    }
+
+    public byte getSprite(int t) {
+        return sprite[t];
+    }
+
+    // 决策相位，取自坦克随机数源的步长（生成后不变，随状态一起保存），AiScheduler用来错开各坦克的决策tick
+    int getAiPhase(int t) {
+        return (int) (rngGamma[t] >>> 32);
+    }
+
+    public MoveStrategy getStrategy(int t) {
+        return STRATEGIES[strategy[t]];
+    }
+
+    public int getHealth(int t) {
+        return health[t];
+    }
+
+    public void reduceHealth(int t) {
+        if (t == PLAYER && playerInvulnerable) return;
+        health[t]--;
+    }
+
+    public void increaseHealth(int t) {
+        health[t]++;
+    }
+
+    public boolean isAlive(int t) {
+        return health[t] > 0;
+    }
+}
@@ -0,0 +1,54 @@
+package tank;
+
+// 单个tick的玩家输入：方向键位掩码 + 本tick内的射击次数
+class TickInput {
+    static final int UP = 1;
+    static final int DOWN = 2;
+    static final int LEFT = 4;
+    static final int RIGHT = 8;
+
+    private int keys; // 当前按下的方向键
+    private int fireCount; // 上一tick之后按下空格的次数
+
+    public TickInput() {
+    }
+
+    public TickInput(int keys, int fireCount) {
+        this.keys = keys;
+        this.fireCount = fireCount;
+    }
+
+    public void press(int key) {
+        keys |= key;
+    }
+
+    public void release(int key) {
+        keys &= ~key;
+    }
+
+    public void fire() {
+        fireCount++;
+    }
+
+    public int getKeys() {
+        return keys;
+    }
+
+    public int getFireCount() {
+        return fireCount;
+    }
+
+    public void set(int keys, int fireCount) {
+        this.keys = keys;
+        this.fireCount = fireCount;
+    }
+
+    public void clearFire() {
+        fireCount = 0;
+    }
+
+    public void clear() {
+        keys = 0;
+        fireCount = 0;
+    }
+}
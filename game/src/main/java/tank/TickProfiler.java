@@ -0,0 +1,304 @@
+package tank;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// 每个tick一条JFR事件，记录各阶段耗时；未开启录制时只有一次isEnabled()判断
+@Name("tank.Tick")
+@Label("Game Tick")
+@Category("Tank")
+@Description("Per-phase timing of one game tick")
+class TickEvent extends Event {
+    @Label("Spawn") @Timespan long spawn;
+    @Label("Player") @Timespan long player;
+    @Label("Enemy AI") @Timespan long ai;
+    @Label("Enemy AI Near") @Timespan long aiNear;
+    @Label("Enemy AI Mid") @Timespan long aiMid;
+    @Label("Enemy AI Far") @Timespan long aiFar;
+    @Label("Bullets") @Timespan long bullets;
+    @Label("Collision") @Timespan long collision;
+    @Label("Audio") @Timespan long audio;
+    @Label("Render") @Timespan long render;
+    @Label("Enemy Count") int enemyCount;
+    @Label("Bullet Count") int bulletCount;
+}
+
+// 分阶段tick剖析器：游戏线程只做nanoTime和原子计数，窗口汇总由后台线程完成
+// 用法：beginTick() -> 每个阶段结束调用endPhase() -> endTick()；嵌套或tick之外的区段用start()/record()
+class TickProfiler implements TickProfilerMBean {
+    static final int SPAWN = 0; // 玩家开火和敌人生成
+    static final int PLAYER = 1;
+    static final int AI = 2; // 敌人移动和开火
+    static final int AI_NEAR = 3; // AI中近、中、远三级各自的耗时（嵌套在AI内，只在开启细节层次时记录）
+    static final int AI_MID = 4;
+    static final int AI_FAR = 5;
+    static final int BULLETS = 6;
+    static final int COLLISION = 7; // 含其中触发的音效回调
+    static final int AUDIO = 8;
+    static final int RENDER = 9; // 增量合成或主动渲染
+    static final int PAINT = 10; // paintComponent，不在tick内
+    static final int INPUT = 11; // 按键事件到被tick消费的延迟（见InputRing），不是耗时
+    static final int PHOTON = 12; // 按键事件到包含其结果的画面上屏的延迟
+    static final int TICK = 13; // 整个tick；桌面游戏中是一整帧（本帧追赶的所有tick加渲染）
+    static final int PHASE_COUNT = 14;
+    static final String[] PHASE_NAMES = {"spawn", "player", "ai", "ai.near", "ai.mid", "ai.far", "bullets",
+            "collision", "audio", "render", "paint", "input", "photon", "tick"};
+
+    // 无界面运行时的默认值，所有调用直接返回
+    static final TickProfiler DISABLED = new TickProfiler(false);
+
+    private final boolean enabled;
+    private final PhaseHistogram[] histograms = new PhaseHistogram[PHASE_COUNT];
+    private final long[] tickPhaseNanos = new long[PHASE_COUNT]; // 当前tick各阶段耗时，供JFR事件使用
+    private final AtomicInteger enemies = new AtomicInteger();
+    private final AtomicInteger bullets = new AtomicInteger();
+    private final AtomicInteger maxEnemies = new AtomicInteger();
+    private final AtomicInteger maxBullets = new AtomicInteger();
+    private final AtomicIntegerArray tierTanks = new AtomicIntegerArray(AiScheduler.TIER_COUNT);
+    private final AtomicIntegerArray tierDecisions = new AtomicIntegerArray(AiScheduler.TIER_COUNT);
+    private long tickStart;
+    private long phaseStart;
+    private long windowStart = System.nanoTime();
+    private volatile ProfileReport latest = ProfileReport.EMPTY;
+    private ScheduledExecutorService reporter;
+
+    public TickProfiler() {
+        this(true);
+    }
+
+    private TickProfiler(boolean enabled) {
+        this.enabled = enabled;
+        for (int p = 0; p < PHASE_COUNT; p++) {
+            histograms[p] = new PhaseHistogram();
+        }
+    }
+
+    public void beginTick() {
+        if (!enabled) return;
+        tickStart = phaseStart = System.nanoTime();
+        Arrays.fill(tickPhaseNanos, 0);
+    }
+
+    // 结束当前阶段，下一阶段从此刻开始计时
+    public void endPhase(int phase) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        long elapsed = now - phaseStart;
+        histograms[phase].record(elapsed);
+        tickPhaseNanos[phase] += elapsed;
+        phaseStart = now;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // 记录从start()开始的一段嵌套或独立区段，不影响当前阶段的计时
+    public void record(int phase, long startNanos) {
+        if (!enabled) return;
+        long elapsed = System.nanoTime() - startNanos;
+        histograms[phase].record(elapsed);
+        tickPhaseNanos[phase] += elapsed;
+    }
+
+    // 本tick各级AI的坦克数和完整决策数
+    public void recordAiTiers(int[] tanks, int[] decisions) {
+        if (!enabled) return;
+        for (int tier = 0; tier < AiScheduler.TIER_COUNT; tier++) {
+            tierTanks.set(tier, tanks[tier]);
+            tierDecisions.set(tier, decisions[tier]);
+        }
+    }
+
+    public void endTick(int enemyCount, int bulletCount) {
+        if (!enabled) return;
+        long elapsed = System.nanoTime() - tickStart;
+        histograms[TICK].record(elapsed);
+        enemies.set(enemyCount);
+        bullets.set(bulletCount);
+        if (enemyCount > maxEnemies.get()) maxEnemies.accumulateAndGet(enemyCount, Math::max);
+        if (bulletCount > maxBullets.get()) maxBullets.accumulateAndGet(bulletCount, Math::max);
+
+        TickEvent event = new TickEvent();
+        if (event.isEnabled()) {
+            event.spawn = tickPhaseNanos[SPAWN];
+            event.player = tickPhaseNanos[PLAYER];
+            event.ai = tickPhaseNanos[AI];
+            event.aiNear = tickPhaseNanos[AI_NEAR];
+            event.aiMid = tickPhaseNanos[AI_MID];
+            event.aiFar = tickPhaseNanos[AI_FAR];
+            event.bullets = tickPhaseNanos[BULLETS];
+            event.collision = tickPhaseNanos[COLLISION];
+            event.audio = tickPhaseNanos[AUDIO];
+            event.render = tickPhaseNanos[RENDER];
+            event.enemyCount = enemyCount;
+            event.bulletCount = bulletCount;
+            event.commit();
+        }
+    }
+
+    // 汇总并清空当前窗口，可在任意线程调用
+    public synchronized ProfileReport snapshot() {
+        long now = System.nanoTime();
+        long[] counts = new long[PHASE_COUNT], mean = new long[PHASE_COUNT], p50 = new long[PHASE_COUNT],
+                p99 = new long[PHASE_COUNT], max = new long[PHASE_COUNT];
+        long[] buckets = new long[PhaseHistogram.BUCKET_COUNT];
+        for (int p = 0; p < PHASE_COUNT; p++) {
+            long[] totals = histograms[p].drainTo(buckets);
+            counts[p] = totals[0];
+            mean[p] = totals[0] > 0 ? totals[1] / totals[0] : 0;
+            // 桶上界可能超过实测最大值，百分位以最大值封顶
+            max[p] = totals[2];
+            p50[p] = Math.min(PhaseHistogram.percentile(buckets, totals[0], 0.50), max[p]);
+            p99[p] = Math.min(PhaseHistogram.percentile(buckets, totals[0], 0.99), max[p]);
+        }
+        int enemyCount = enemies.get();
+        int bulletCount = bullets.get();
+        int[] tanks = new int[AiScheduler.TIER_COUNT], decisions = new int[AiScheduler.TIER_COUNT];
+        for (int tier = 0; tier < AiScheduler.TIER_COUNT; tier++) {
+            tanks[tier] = tierTanks.get(tier);
+            decisions[tier] = tierDecisions.get(tier);
+        }
+        latest = new ProfileReport(now - windowStart, counts, mean, p50, p99, max, enemyCount, bulletCount,
+                maxEnemies.getAndSet(enemyCount), maxBullets.getAndSet(bulletCount), tanks, decisions);
+        windowStart = now;
+        return latest;
+    }
+
+    // 最近一个完整窗口的结果
+    public ProfileReport getLatest() {
+        return latest;
+    }
+
+    // 启动后台汇总线程并注册JMX；file不为null时每个窗口追加一段文本报告
+    public void startReporting(long periodMillis, Path file) {
+        if (!enabled || reporter != null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("tank:type=TickProfiler"));
+        } catch (Exception e) {
+            System.err.println("Error registering profiler MBean: " + e.getMessage());
+        }
+
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tick-profiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            ProfileReport report = snapshot();
+            if (file != null) {
+                dump(file, report);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 按系统属性 tank.profile.period（毫秒，默认1000）和 tank.profile.file 启动汇总
+    public void startReportingFromProperties() {
+        long period = Long.getLong("tank.profile.period", 1000L);
+        String file = System.getProperty("tank.profile.file");
+        startReporting(period, file != null ? Paths.get(file) : null);
+    }
+
+    private static void dump(Path file, ProfileReport report) {
+        String text = "# " + LocalDateTime.now() + System.lineSeparator() + report + System.lineSeparator();
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error writing profile: " + e.getMessage());
+        }
+    }
+
+    public void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    @Override
+    public String getReport() {
+        return latest.toString();
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        return PHASE_NAMES.clone();
+    }
+
+    @Override
+    public double[] getPhaseP50Micros() {
+        return toMicros(latest.p50Nanos);
+    }
+
+    @Override
+    public double[] getPhaseP99Micros() {
+        return toMicros(latest.p99Nanos);
+    }
+
+    @Override
+    public double[] getPhaseMaxMicros() {
+        return toMicros(latest.maxNanos);
+    }
+
+    @Override
+    public double getTickP50Micros() {
+        return latest.p50Nanos[TICK] / 1000.0;
+    }
+
+    @Override
+    public double getTickP99Micros() {
+        return latest.p99Nanos[TICK] / 1000.0;
+    }
+
+    @Override
+    public double getTickMaxMicros() {
+        return latest.maxNanos[TICK] / 1000.0;
+    }
+
+    @Override
+    public int getEnemyCount() {
+        return latest.enemies;
+    }
+
+    @Override
+    public int getBulletCount() {
+        return latest.bullets;
+    }
+
+    @Override
+    public int[] getAiTierTanks() {
+        return latest.tierTanks.clone();
+    }
+
+    @Override
+    public int[] getAiTierDecisions() {
+        return latest.tierDecisions.clone();
+    }
+
+    private static double[] toMicros(long[] nanos) {
+        double[] micros = new double[nanos.length];
+        for (int i = 0; i < nanos.length; i++) {
+            micros[i] = nanos[i] / 1000.0;
+        }
+        return micros;
+    }
+}
@@ -0,0 +1,29 @@
+package tank;
+
+// TickProfiler的JMX接口（标准MBean要求接口为public），数值为最近一个窗口的统计，单位微秒
+public interface TickProfilerMBean {
+    String getReport();
+
+    String[] getPhaseNames();
+
+    double[] getPhaseP50Micros();
+
+    double[] getPhaseP99Micros();
+
+    double[] getPhaseMaxMicros();
+
+    double getTickP50Micros();
+
+    double getTickP99Micros();
+
+    double getTickMaxMicros();
+
+    int getEnemyCount();
+
+    int getBulletCount();
+
+    // 近、中、远三级AI的坦克数和完整决策数（窗口最后一个tick）
+    int[] getAiTierTanks();
+
+    int[] getAiTierDecisions();
+}
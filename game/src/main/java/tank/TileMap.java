@@ -0,0 +1,301 @@
+package tank;
+
+import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// 瓦片地图：每个瓦片为空地、钢墙（不可摧毁）或砖墙（被子弹击中后摧毁）
+// 阻挡信息另存一份按行打包的long[]位图，坦克和子弹的碰撞查询只读位图，与实体数量无关、不分配内存
+//
+// 文件格式（文本，每行可用游程编码）：
+//   ; 注释行
+//   tkmap <列数> <行数>
+//   每行一个地图行，由"[次数]字符"组成，字符 . 空地  # 钢墙  + 砖墙，例如 "8.4#8." 表示8格空地、4格钢墙、8格空地
+class TileMap {
+    static final int TILE_SIZE = 40;
+    static final byte EMPTY = 0;
+    static final byte STEEL = 1;
+    static final byte BRICK = 2;
+    private static final char[] TILE_CHARS = {'.', '#', '+'};
+    private static final String HEADER = "tkmap";
+
+    // 与窗口同大的空地图；没有砖墙，子弹不会改变它，可以在坦克和子弹池之间共享（GameWorld使用自己的地图）
+    static final TileMap DEFAULT = new TileMap(GameWorld.MAP_WIDTH / TILE_SIZE, GameWorld.MAP_HEIGHT / TILE_SIZE);
+
+    private final int cols, rows;
+    private final int wordsPerRow;
+    private final byte[] tiles;
+    private final long[] solid; // 钢墙和砖墙都置位
+    private int solidCount;
+    private int[] changed = new int[16]; // 本tick被摧毁的瓦片编号，由GameWorld取走
+    private int changedCount;
+
+    public TileMap(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.tiles = new byte[cols * rows];
+        this.solid = new long[wordsPerRow * rows];
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getWidth() {
+        return cols * TILE_SIZE;
+    }
+
+    public int getHeight() {
+        return rows * TILE_SIZE;
+    }
+
+    public byte getTile(int col, int row) {
+        return tiles[row * cols + col];
+    }
+
+    public void setTile(int col, int row, byte tile) {
+        int index = row * cols + col;
+        boolean wasSolid = tiles[index] != EMPTY;
+        boolean isSolid = tile != EMPTY;
+        tiles[index] = tile;
+        long bit = 1L << (col & 63);
+        int word = row * wordsPerRow + (col >>> 6);
+        if (isSolid) {
+            solid[word] |= bit;
+        } else {
+            solid[word] &= ~bit;
+        }
+        if (wasSolid != isSolid) {
+            solidCount += isSolid ? 1 : -1;
+        }
+    }
+
+    public boolean isSolidTile(int col, int row) {
+        return (solid[row * wordsPerRow + (col >>> 6)] & (1L << (col & 63))) != 0;
+    }
+
+    // 按瓦片编号（row * cols + col）查询，流场BFS使用
+    public boolean isSolidCell(int index) {
+        return tiles[index] != EMPTY;
+    }
+
+    // 没有任何墙时所有查询都可以跳过
+    public boolean isOpen() {
+        return solidCount == 0;
+    }
+
+    // 像素矩形[x, x+w) x [y, y+h)是否与墙重叠，地图外的部分不算阻挡（边界由调用方夹紧）
+    public boolean isBlocked(int x, int y, int w, int h) {
+        if (solidCount == 0) return false;
+        int c0 = Math.max(0, x / TILE_SIZE), c1 = Math.min(cols - 1, (x + w - 1) / TILE_SIZE);
+        int r0 = Math.max(0, y / TILE_SIZE), r1 = Math.min(rows - 1, (y + h - 1) / TILE_SIZE);
+        if (c0 > c1 || r0 > r1 || x + w <= 0 || y + h <= 0) return false;
+        int w0 = c0 >>> 6, w1 = c1 >>> 6;
+        long firstMask = -1L << (c0 & 63);
+        long lastMask = -1L >>> (63 - (c1 & 63));
+        for (int r = r0; r <= r1; r++) {
+            int base = r * wordsPerRow;
+            for (int wi = w0; wi <= w1; wi++) {
+                long mask = -1L;
+                if (wi == w0) mask &= firstMask;
+                if (wi == w1) mask &= lastMask;
+                if ((solid[base + wi] & mask) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    // 边长size的子弹从(x, y)沿dir移动distance像素：按移动方向逐行（或逐列）检查扫过的瓦片，
+    // 返回碰到第一块墙之前能移动的距离（起点已与墙重叠时为0），一路无墙时返回-1
+    public int sweepBullet(int x, int y, int size, Direction dir, int distance) {
+        if (solidCount == 0) return -1;
+        switch (dir) {
+            case UP:
+                for (int r = Math.floorDiv(y + size - 1, TILE_SIZE); r >= Math.floorDiv(y - distance, TILE_SIZE); r--) {
+                    if (isBlocked(x, r * TILE_SIZE, size, TILE_SIZE)) return Math.max(0, y - (r + 1) * TILE_SIZE);
+                }
+                return -1;
+            case DOWN:
+                for (int r = Math.floorDiv(y, TILE_SIZE); r <= Math.floorDiv(y + size - 1 + distance, TILE_SIZE); r++) {
+                    if (isBlocked(x, r * TILE_SIZE, size, TILE_SIZE)) return Math.max(0, r * TILE_SIZE - (y + size));
+                }
+                return -1;
+            case LEFT:
+                for (int c = Math.floorDiv(x + size - 1, TILE_SIZE); c >= Math.floorDiv(x - distance, TILE_SIZE); c--) {
+                    if (isBlocked(c * TILE_SIZE, y, TILE_SIZE, size)) return Math.max(0, x - (c + 1) * TILE_SIZE);
+                }
+                return -1;
+            default:
+                for (int c = Math.floorDiv(x, TILE_SIZE); c <= Math.floorDiv(x + size - 1 + distance, TILE_SIZE); c++) {
+                    if (isBlocked(c * TILE_SIZE, y, TILE_SIZE, size)) return Math.max(0, c * TILE_SIZE - (x + size));
+                }
+                return -1;
+        }
+    }
+
+    // 子弹与墙相交：摧毁覆盖到的砖墙，返回是否命中任何墙
+    public boolean hitBullet(int x, int y, int size) {
+        if (!isBlocked(x, y, size, size)) return false;
+        int c0 = Math.max(0, x / TILE_SIZE), c1 = Math.min(cols - 1, (x + size - 1) / TILE_SIZE);
+        int r0 = Math.max(0, y / TILE_SIZE), r1 = Math.min(rows - 1, (y + size - 1) / TILE_SIZE);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                if (tiles[r * cols + c] == BRICK) {
+                    setTile(c, r, EMPTY);
+                    if (changedCount == changed.length) {
+                        changed = Arrays.copyOf(changed, changedCount * 2);
+                    }
+                    changed[changedCount++] = r * cols + c;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    // 本tick第i个被摧毁的瓦片编号（row * cols + col）
+    public int getChanged(int i) {
+        return changed[i];
+    }
+
+    public void clearChanged() {
+        changedCount = 0;
+    }
+
+    // 保存/恢复全部瓦片（回放关键帧用），尺寸由构造参数决定，不写入
+    public void writeState(DataOutput out) throws IOException {
+        out.write(tiles);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        byte[] state = new byte[tiles.length];
+        in.readFully(state);
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] < 0 || state[i] >= TILE_CHARS.length) throw new IOException("Unknown tile " + state[i]);
+            if (state[i] != tiles[i]) {
+                setTile(i % cols, i / cols, state[i]);
+            }
+        }
+        changedCount = 0;
+    }
+
+    public TileMap copy() {
+        TileMap copy = new TileMap(cols, rows);
+        System.arraycopy(tiles, 0, copy.tiles, 0, tiles.length);
+        System.arraycopy(solid, 0, copy.solid, 0, solid.length);
+        copy.solidCount = solidCount;
+        return copy;
+    }
+
+    // 读取地图文件
+    public static TileMap read(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        TileMap map = null;
+        int row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(";")) continue;
+            if (map == null) {
+                String[] header = line.split("\\s+");
+                if (header.length != 3 || !header[0].equals(HEADER)) {
+                    throw new IOException("Missing map header");
+                }
+                map = new TileMap(Integer.parseInt(header[1]), Integer.parseInt(header[2]));
+                continue;
+            }
+            if (row >= map.rows) throw new IOException("Too many rows in map");
+            map.parseRow(line, row++);
+        }
+        if (map == null || row != map.rows) throw new IOException("Incomplete map");
+        return map;
+    }
+
+    private void parseRow(String line, int row) throws IOException {
+        int col = 0;
+        int i = 0;
+        while (i < line.length()) {
+            int count = 0;
+            while (i < line.length() && Character.isDigit(line.charAt(i))) {
+                count = count * 10 + (line.charAt(i++) - '0');
+            }
+            if (i == line.length()) throw new IOException("Run without tile at row " + row);
+            byte tile = tileOf(line.charAt(i++), row);
+            count = Math.max(count, 1);
+            if (col + count > cols) throw new IOException("Row " + row + " is too long");
+            for (int k = 0; k < count; k++) {
+                setTile(col++, row, tile);
+            }
+        }
+        if (col != cols) throw new IOException("Row " + row + " is too short");
+    }
+
+    private static byte tileOf(char c, int row) throws IOException {
+        for (byte t = 0; t < TILE_CHARS.length; t++) {
+            if (TILE_CHARS[t] == c) return t;
+        }
+        throw new IOException("Unknown tile '" + c + "' at row " + row);
+    }
+
+    // 写成游程编码的文本，read()可以读回
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(HEADER).append(' ').append(cols).append(' ').append(rows).append('\n');
+        for (int r = 0; r < rows; r++) {
+            int c = 0;
+            while (c < cols) {
+                byte tile = tiles[r * cols + c];
+                int start = c;
+                while (c < cols && tiles[r * cols + c] == tile) c++;
+                if (c - start > 1) text.append(c - start);
+                text.append(TILE_CHARS[tile]);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    // 关卡地图放在资源 /maps/level<n>.tkm，缺失时使用与窗口同大的空地图；每次返回新实例
+    public static TileMap forLevel(int level) {
+        String path = "/maps/level" + level + ".tkm";
+        try (InputStream in = TileMap.class.getResourceAsStream(path)) {
+            if (in != null) {
+                return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading map " + path + ": " + e.getMessage());
+        }
+        return DEFAULT.copy();
+    }
+
+    // 生成任意大小的地图用于压测：顶部两行（敌人出生处）和底部五行（玩家出生处）留空，其余按种子散布钢墙和砖墙块
+    public static TileMap generate(int cols, int rows, long seed) {
+        TileMap map = new TileMap(cols, rows);
+        GameRandom rand = new GameRandom(seed);
+        for (int i = 0; i < cols * rows / 40; i++) {
+            int col = rand.nextInt(cols), row = rand.nextInt(rows);
+            int blockCols = 1 + rand.nextInt(4), blockRows = 1 + rand.nextInt(4);
+            byte tile = rand.nextInt(3) == 0 ? STEEL : BRICK;
+            for (int r = Math.max(row, 2); r < Math.min(rows - 5, row + blockRows); r++) {
+                for (int c = Math.max(col, 1); c < Math.min(cols - 1, col + blockCols); c++) {
+                    map.setTile(c, r, tile);
+                }
+            }
+        }
+        return map;
+    }
+}
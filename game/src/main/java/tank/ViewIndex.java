@@ -0,0 +1,71 @@
+package tank;
+
+// 视口查询：按(世界, tick)惰性重建敌人和子弹的网格索引，之后每次查询只访问视口覆盖的格子
+// 实体较少时不建索引，直接返回全部下标；敌人结果是TankStore槽位，子弹结果是子弹池下标，均按升序排列，绘制顺序与逐个遍历相同
+class ViewIndex {
+    private static final int CELL_SIZE = 128;
+    private static final int MIN_INDEXED = 256; // 少于此数时线性扫描更快
+
+    private GameWorld world;
+    private long tick = -1;
+    private int enemyCount, bulletCount;
+    private SpatialGrid enemyGrid, bulletGrid;
+    private boolean enemiesIndexed, bulletsIndexed;
+    private int[] allEnemies = new int[0]; // 线性扫描时的结果，allEnemies[i] == FIRST_ENEMY + i
+    private int[] allBullets = new int[0]; // allBullets[i] == i
+
+    private void refresh(GameWorld world) {
+        if (world == this.world && world.getTickCount() == tick
+                && world.getEnemyCount() == enemyCount && world.getBullets().size() == bulletCount) return;
+        if (world != this.world || enemyGrid == null) {
+            TileMap map = world.getMap();
+            enemyGrid = new SpatialGrid(map.getWidth(), map.getHeight(), CELL_SIZE);
+            bulletGrid = new SpatialGrid(map.getWidth(), map.getHeight(), CELL_SIZE);
+        }
+        this.world = world;
+        tick = world.getTickCount();
+        enemyCount = world.getEnemyCount();
+        bulletCount = world.getBullets().size();
+        enemiesIndexed = enemyCount >= MIN_INDEXED;
+        if (enemiesIndexed) {
+            enemyGrid.build(world.getTanks());
+        }
+        bulletsIndexed = world.getBullets().size() >= MIN_INDEXED;
+        if (bulletsIndexed) {
+            bulletGrid.build(world.getBullets());
+        }
+    }
+
+    // 可能与[x0, x1) x [y0, y1)相交的敌人槽位，返回个数，结果在getEnemyResult()中，下一次查询前有效
+    public int queryEnemies(GameWorld world, int x0, int y0, int x1, int y1) {
+        refresh(world);
+        if (enemiesIndexed) return enemyGrid.query(x0, y0, x1, y1);
+        allEnemies = fillAll(allEnemies, enemyCount, TankStore.FIRST_ENEMY);
+        return enemyCount;
+    }
+
+    public int[] getEnemyResult() {
+        return enemiesIndexed ? enemyGrid.getQueryResult() : allEnemies;
+    }
+
+    public int queryBullets(GameWorld world, int x0, int y0, int x1, int y1) {
+        refresh(world);
+        if (bulletsIndexed) return bulletGrid.query(x0, y0, x1, y1);
+        allBullets = fillAll(allBullets, bulletCount, 0);
+        return bulletCount;
+    }
+
+    public int[] getBulletResult() {
+        return bulletsIndexed ? bulletGrid.getQueryResult() : allBullets;
+    }
+
+    private static int[] fillAll(int[] all, int n, int first) {
+        if (all.length < n) {
+            all = new int[Math.max(n, 64)];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = first + i;
+            }
+        }
+        return all;
+    }
+}
@@ -0,0 +1,26 @@
+package tank;
+
+// 世界事件回调，视图层用来播放音效和粒子特效等；回调在step()中串行发生
+interface WorldListener {
+    WorldListener NONE = new WorldListener() {
+    };
+
+    // tank是被击毁敌人在TankStore中的槽位，回调返回前仍然有效
+    default void enemyDestroyed(int tank) {
+    }
+
+    default void playerHit() {
+    }
+
+    // 砖墙被子弹摧毁，视图层据此局部重画缓存的背景
+    default void tileDestroyed(int col, int row) {
+    }
+
+    // 坦克开火，(x, y)为新子弹的中心（世界坐标）
+    default void bulletFired(int x, int y, Direction direction) {
+    }
+
+    // 子弹撞墙（钢墙或砖墙）消失，(x, y)为子弹停下时的中心
+    default void bulletHitWall(int x, int y) {
+    }
+}
@@ -0,0 +1,88 @@
+package tank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 增量修补：随机逐块打掉砖墙，每块之后修补出的流场必须与在同一地图上重新BFS构建的逐格相同（距离和方向）
+class FlowFieldTest {
+    private static final int CELL = TileMap.TILE_SIZE;
+
+    private static List<Integer> bricks(TileMap map) {
+        List<Integer> cells = new ArrayList<>();
+        for (int row = 0; row < map.getRows(); row++) {
+            for (int col = 0; col < map.getCols(); col++) {
+                if (map.getTile(col, row) == TileMap.BRICK) cells.add(row * map.getCols() + col);
+            }
+        }
+        return cells;
+    }
+
+    private static void assertSameAsRebuilt(FlowField repaired, TileMap map, int target, String context) {
+        int cols = map.getCols(), rows = map.getRows();
+        FlowField fresh = new FlowField(cols, rows, CELL);
+        fresh.build(target, map, new int[cols * rows]);
+        for (int cell = 0; cell < cols * rows; cell++) {
+            int x = cell % cols * CELL + CELL / 2, y = cell / cols * CELL + CELL / 2;
+            assertEquals(fresh.distanceAt(cell), repaired.distanceAt(cell), context + " distance at cell " + cell);
+            assertEquals(fresh.directionAt(x, y), repaired.directionAt(x, y), context + " direction at cell " + cell);
+        }
+    }
+
+    // 打掉全部砖墙（随机顺序），每块之后都与重建结果比对
+    private static void clearBricksAndCompare(TileMap map, int target, long seed) {
+        int cols = map.getCols(), rows = map.getRows();
+        int[] queue = new int[cols * rows];
+        FlowField field = new FlowField(cols, rows, CELL);
+        field.build(target, map, queue);
+        List<Integer> bricks = bricks(map);
+        assertTrue(bricks.size() > 0, "map has no bricks");
+        Collections.shuffle(bricks, new Random(seed));
+        for (int i = 0; i < bricks.size(); i++) {
+            int cell = bricks.get(i);
+            map.setTile(cell % cols, cell / cols, TileMap.EMPTY);
+            field.tileCleared(cell, map, queue);
+            assertSameAsRebuilt(field, map, target, "seed " + seed + " after " + (i + 1) + " bricks");
+        }
+    }
+
+    private static int randomOpenCell(TileMap map, long seed) {
+        Random rand = new Random(seed);
+        int cell;
+        do {
+            cell = rand.nextInt(map.getCols() * map.getRows());
+        } while (map.isSolidCell(cell));
+        return cell;
+    }
+
+    @Test
+    void repairMatchesRebuildOnGeneratedMaps() {
+        for (long seed = 1; seed <= 8; seed++) {
+            TileMap map = TileMap.generate(30, 22, seed);
+            clearBricksAndCompare(map, randomOpenCell(map, seed), seed);
+        }
+    }
+
+    @Test
+    void repairMatchesRebuildOnLevelMaps() {
+        for (int level = 1; level <= 3; level++) {
+            TileMap map = TileMap.forLevel(level);
+            if (bricks(map).isEmpty()) continue;
+            clearBricksAndCompare(map, randomOpenCell(map, level), level);
+        }
+    }
+
+    // 目标在砖墙里时整个流场不可达，打掉目标那块后要与重建相同
+    @Test
+    void targetInsideBrick() {
+        TileMap map = TileMap.generate(30, 22, 3);
+        int target = bricks(map).get(0);
+        clearBricksAndCompare(map, target, 3);
+    }
+}
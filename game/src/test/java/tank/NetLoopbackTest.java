@@ -0,0 +1,90 @@
+package tank;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 本机回环联机：服务器在独立线程上按tick速率运行，一个驾驶者（随机输入）和一个旁观者按同样速率收发
+// 快照不能有CRC错误，除第一份外都应是差分；停止输入后驾驶者预测的世界必须与服务器的权威世界逐字节一致
+class NetLoopbackTest {
+    private static final int INPUT_TICKS = 300;
+    private static final int IDLE_TICKS = 100; // 停止输入后再跑一段，服务器用完所有输入、客户端收到之后的快照
+    private static final int CONNECT_TICKS = 500;
+    private static final int MAX_FULL_SNAPSHOTS = 2; // 每个客户端第一份，再留一份给中途重开的一局
+
+    // 以服务器的tick速率调用一次客户端的tick，连接断开时失败
+    private static void tick(NetClient client, TickInput input) throws IOException {
+        assertTrue(client.tick(input, WorldListener.NONE), "disconnected");
+    }
+
+    // 停止输入后两边都只是用空输入推进，把落后的一方推到同一tick再比较
+    private static void catchUp(GameWorld behind, GameWorld ahead) {
+        TickInput idle = new TickInput();
+        while (behind.getTickCount() < ahead.getTickCount() && !behind.isGameOver()) {
+            behind.step(idle);
+        }
+    }
+
+    @Test
+    void pilotPredictionMatchesServer() throws IOException, InterruptedException {
+        NetServer server = new NetServer(0, 3, 7, 0, 4);
+        server.setPrintStats(false);
+        Thread serverThread = new Thread(server, "net-server");
+        serverThread.start();
+        try (NetClient pilot = new NetClient("127.0.0.1", server.getPort())) {
+            PlayerController controller = new RandomPlayerController(7);
+            TickInput input = new TickInput();
+            TickInput idle = new TickInput();
+            // 驾驶者先连上并收到第一份快照，旁观者才连接，保证加入顺序
+            long nextTick = System.nanoTime();
+            for (int i = 0; !pilot.isPilot(); i++) {
+                assertTrue(i < CONNECT_TICKS, "no snapshot from server");
+                tick(pilot, idle);
+                nextTick += NetProtocol.TICK_NANOS;
+                LockSupport.parkNanos(nextTick - System.nanoTime());
+            }
+            try (NetClient spectator = new NetClient("127.0.0.1", server.getPort())) {
+                for (int i = 0; i < INPUT_TICKS + IDLE_TICKS; i++) {
+                    if (i < INPUT_TICKS) {
+                        controller.update(pilot.getWorld(), input);
+                    } else {
+                        input.set(0, 0);
+                    }
+                    tick(pilot, input);
+                    tick(spectator, idle);
+                    nextTick += NetProtocol.TICK_NANOS;
+                    LockSupport.parkNanos(nextTick - System.nanoTime());
+                }
+
+                GameWorld serverWorld = server.getMatchWorld(0);
+                server.close();
+                serverThread.join();
+
+                for (NetClient client : new NetClient[]{pilot, spectator}) {
+                    assertEquals(0, client.getCrcErrors(), "crc errors");
+                    assertTrue(client.getSnapshotCount() > IDLE_TICKS, "snapshots " + client.getSnapshotCount());
+                    assertTrue(client.getFullSnapshotCount() <= MAX_FULL_SNAPSHOTS, "full snapshots " + client.getFullSnapshotCount());
+                }
+                assertTrue(pilot.isPilot());
+                assertFalse(spectator.isPilot());
+
+                GameWorld predicted = pilot.getWorld();
+                assertNotNull(predicted);
+                catchUp(predicted, serverWorld);
+                catchUp(serverWorld, predicted);
+                assertEquals(serverWorld.getTickCount(), predicted.getTickCount(), "tick count");
+                assertArrayEquals(ReplayWriter.stateOf(serverWorld), ReplayWriter.stateOf(predicted), "predicted state");
+            }
+        } finally {
+            server.close();
+            serverThread.join();
+        }
+    }
+}
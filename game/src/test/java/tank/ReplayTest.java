@@ -0,0 +1,109 @@
+package tank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 确定性回归：录制机器人对局后逐tick回放，每个关键帧和最终状态都必须逐字节一致
+// 敌人多于并行阈值的对局在录制前加入敌人，只能经seek(0)从第0个关键帧恢复，串行和并行AI都要回放一致
+class ReplayTest {
+    private static final int KEYFRAME_INTERVAL = 100;
+    private static final int CROWD = 300; // 超过GameWorld的并行AI阈值
+    private static final long FROM_START = -1; // 不seek，按文件头新建世界
+
+    @TempDir
+    Path dir;
+
+    // 录制一局，返回录到的tick数
+    private long record(Path file, int level, long seed, int extraEnemies, long maxTicks, boolean parallelAi) throws IOException {
+        GameWorld world = new GameWorld(level, seed);
+        world.setParallelAi(parallelAi);
+        for (int i = 0; i < extraEnemies; i++) {
+            world.spawnEnemy();
+        }
+        return record(file, world, seed, maxTicks);
+    }
+
+    private long record(Path file, GameWorld world, long seed, long maxTicks) throws IOException {
+        PlayerController controller = new RandomPlayerController(seed);
+        TickInput input = new TickInput();
+        try (ReplayWriter writer = new ReplayWriter(file, world, KEYFRAME_INTERVAL)) {
+            while (world.getTickCount() < maxTicks && !world.isGameOver()) {
+                controller.update(world, input);
+                writer.record(input);
+                world.step(input);
+            }
+        }
+        return world.getTickCount();
+    }
+
+    // 从seekTick（FROM_START表示按文件头新建世界）回放到结尾并校验
+    private void assertReplays(Path file, long seekTick, boolean parallelAi) throws IOException {
+        try (ReplayReader reader = new ReplayReader(file)) {
+            GameWorld world = seekTick == FROM_START ? reader.newWorld() : reader.seek(seekTick);
+            world.setParallelAi(parallelAi);
+            new Simulation(world, reader, 0).run(reader.getTotalTicks() - world.getTickCount());
+            assertEquals(-1, reader.getDesyncTick(), "desync tick");
+            assertEquals(reader.getTotalTicks(), world.getTickCount());
+            assertTrue(reader.matchesFinalState(world), "final state");
+        }
+    }
+
+    @Test
+    void levelMatchReplaysBitExact() throws IOException {
+        Path file = dir.resolve("level.tkr");
+        long ticks = record(file, 3, 7, 0, 3000, false);
+        assertTrue(ticks > KEYFRAME_INTERVAL);
+        assertReplays(file, FROM_START, false);
+        assertReplays(file, FROM_START, true);
+    }
+
+    @Test
+    void seekResumesFromKeyframe() throws IOException {
+        Path file = dir.resolve("seek.tkr");
+        long ticks = record(file, 2, 11, 0, 3000, false);
+        assertReplays(file, ticks / 2, false);
+        assertReplays(file, ticks / 2 + KEYFRAME_INTERVAL / 3, true);
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertEquals(ticks / 2, reader.seek(ticks / 2).getTickCount());
+        }
+    }
+
+    @Test
+    void tickLengthIsRecorded() throws IOException {
+        Path file = dir.resolve("tick33.tkr");
+        GameWorld world = new GameWorld(3, 9);
+        world.setTickMillis(33);
+        assertTrue(record(file, world, 9, 1000) > KEYFRAME_INTERVAL);
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertEquals(33, reader.newWorld().getTickMillis());
+        }
+        assertReplays(file, FROM_START, false);
+        assertReplays(file, KEYFRAME_INTERVAL, false);
+    }
+
+    @Test
+    void crowdReplaysWithSerialAndParallelAi() throws IOException {
+        Path serial = dir.resolve("crowd-serial.tkr");
+        Path parallel = dir.resolve("crowd-parallel.tkr");
+        long ticks = record(serial, 3, 5, CROWD, 1000, false);
+        assertTrue(ticks > KEYFRAME_INTERVAL);
+        assertEquals(ticks, record(parallel, 3, 5, CROWD, 1000, true));
+        assertEquals(-1, Files.mismatch(serial, parallel), "serial and parallel recordings differ");
+        for (Path file : new Path[]{serial, parallel}) {
+            // 额外的敌人不在文件头里，seek(0)从第0个关键帧恢复
+            try (ReplayReader reader = new ReplayReader(file)) {
+                GameWorld world = reader.seek(0);
+                assertTrue(world.getEnemyCount() > CROWD);
+            }
+            assertReplays(file, 0, false);
+            assertReplays(file, 0, true);
+        }
+    }
+}
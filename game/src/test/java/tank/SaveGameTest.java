@@ -0,0 +1,95 @@
+package tank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// 存档往返，以及BufferDataOutput/BufferDataInput与DataOutputStream/DataInputStream逐字节兼容
+class SaveGameTest {
+    @TempDir
+    Path dir;
+
+    private static GameWorld play(long seed, int ticks) {
+        GameWorld world = new GameWorld(3, seed);
+        PlayerController controller = new RandomPlayerController(seed);
+        TickInput input = new TickInput();
+        for (int i = 0; i < ticks && !world.isGameOver(); i++) {
+            controller.update(world, input);
+            world.step(input);
+        }
+        return world;
+    }
+
+    @Test
+    void saveOverExistingSaveRoundTrips() throws IOException {
+        SaveGame save = new SaveGame(dir.resolve("quick.sav"));
+        save.save(play(1, 300));
+        GameWorld first = save.load(); // 读档后直接覆盖同一个存档（读档不保留对文件的映射）
+        GameWorld second = play(2, 600);
+        save.save(second);
+        assertArrayEquals(ReplayWriter.stateOf(second), ReplayWriter.stateOf(save.load()));
+        assertEquals(300, first.getTickCount());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count(), "temporary file left behind");
+        }
+    }
+
+    // tick长度记录在存档头部，读档后按同样的长度继续推进
+    @Test
+    void tickLengthRoundTrips() throws IOException {
+        SaveGame save = new SaveGame(dir.resolve("tick33.sav"));
+        GameWorld world = new GameWorld(3, 4);
+        world.setTickMillis(33);
+        save.save(world);
+        GameWorld loaded = save.load();
+        assertEquals(33, loaded.getTickMillis());
+        TickInput idle = new TickInput();
+        for (int i = 0; i < 200; i++) {
+            world.step(idle);
+            loaded.step(idle);
+        }
+        assertArrayEquals(ReplayWriter.stateOf(world), ReplayWriter.stateOf(loaded));
+    }
+
+    @Test
+    void stringsMatchDataStreams() throws IOException {
+        String[] strings = {"", "tank", "坦克大战", "\u0000\u007F\u0080߿ࠀ￿"};
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(expected);
+        BufferDataOutput out = new BufferDataOutput(ByteBuffer.allocate(1024));
+        for (String s : strings) {
+            stream.writeUTF(s);
+            out.writeUTF(s);
+        }
+        stream.writeBytes("line one\r\nline two\rthree\n");
+        out.writeBytes("line one\r\nline two\rthree\n");
+        stream.writeChars("字符");
+        out.writeChars("字符");
+
+        ByteBuffer written = out.getBuffer().flip();
+        byte[] actual = new byte[written.remaining()];
+        written.duplicate().get(actual);
+        assertArrayEquals(expected.toByteArray(), actual);
+
+        BufferDataInput in = new BufferDataInput(written);
+        for (String s : strings) {
+            assertEquals(s, in.readUTF());
+        }
+        assertEquals("line one", in.readLine());
+        assertEquals("line two", in.readLine());
+        assertEquals("three", in.readLine());
+        assertEquals('字', in.readChar());
+        assertEquals('符', in.readChar());
+        assertNull(in.readLine());
+    }
+}
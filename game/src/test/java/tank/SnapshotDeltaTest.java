@@ -0,0 +1,113 @@
+package tank;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 快照差分的往返：编码进恰好maxEncodedSize大小的缓冲区（超出即抛BufferOverflowException），解码后与目标逐字节相同
+class SnapshotDeltaTest {
+
+    private static ByteBuffer encode(byte[] base, byte[] target) {
+        ByteBuffer out = ByteBuffer.allocate(SnapshotDelta.maxEncodedSize(target.length));
+        SnapshotDelta.encode(base, base != null ? base.length : 0, target, target.length, out);
+        out.flip();
+        return out;
+    }
+
+    private static int roundTrip(byte[] base, byte[] target) throws IOException {
+        ByteBuffer encoded = encode(base, target);
+        int size = encoded.remaining();
+        assertArrayEquals(target, SnapshotDelta.decode(base, encoded));
+        assertEquals(0, encoded.remaining(), "decoder left trailing bytes");
+        return size;
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void identicalBase() throws IOException {
+        byte[] state = random(10_000, 1);
+        int size = roundTrip(state, state.clone());
+        assertTrue(size <= 8, "identical snapshot encoded to " + size + " bytes");
+    }
+
+    @Test
+    void fullyDifferentBase() throws IOException {
+        byte[] base = random(10_000, 2);
+        byte[] target = base.clone();
+        for (int i = 0; i < target.length; i++) {
+            target[i] ^= (byte) (1 + i % 255);
+        }
+        roundTrip(base, target);
+    }
+
+    @Test
+    void lengthChange() throws IOException {
+        byte[] base = random(5_000, 3);
+        byte[] longer = Arrays.copyOf(base, 6_000);
+        System.arraycopy(random(1_000, 4), 0, longer, 5_000, 1_000);
+        roundTrip(base, longer);
+        roundTrip(longer, base);
+        roundTrip(base, new byte[0]);
+        roundTrip(new byte[0], base);
+    }
+
+    @Test
+    void noBase() throws IOException {
+        roundTrip(null, random(10_000, 5));
+        roundTrip(null, new byte[10_000]);
+        roundTrip(null, new byte[0]);
+    }
+
+    // 不同字节和相同字节交替，段长在MIN_GAP附近时varint开销最大，编码仍不能超出maxEncodedSize
+    @Test
+    void alternatingRunsStayWithinMaxEncodedSize() throws IOException {
+        byte[] base = new byte[4_096];
+        for (int gap = 1; gap <= 8; gap++) {
+            for (int literal = 1; literal <= 3; literal++) {
+                byte[] target = base.clone();
+                for (int i = 0; i < target.length; i += gap + literal) {
+                    for (int j = i; j < Math.min(target.length, i + literal); j++) target[j] = 1;
+                }
+                roundTrip(base, target);
+            }
+        }
+    }
+
+    // 真实世界相邻tick的状态
+    @Test
+    void consecutiveWorldStates() throws IOException {
+        GameWorld world = new GameWorld(3, 1);
+        PlayerController controller = new RandomPlayerController(1);
+        TickInput input = new TickInput();
+        byte[] base = null;
+        for (int tick = 0; tick < 500 && !world.isGameOver(); tick++) {
+            controller.update(world, input);
+            world.step(input);
+            byte[] state = ReplayWriter.stateOf(world);
+            roundTrip(base, state);
+            base = state;
+        }
+    }
+
+    @Test
+    void truncatedInputIsRejected() {
+        byte[] base = random(1_000, 6);
+        byte[] target = random(1_000, 7);
+        ByteBuffer encoded = encode(base, target);
+        encoded.limit(encoded.limit() / 2);
+        assertThrows(IOException.class, () -> SnapshotDelta.decode(base, encoded));
+    }
+}
@@ -0,0 +1,150 @@
+package tank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// tick长度与连续碰撞：每tick位移大于坦克的子弹照样命中；同一脚本在10毫秒和33毫秒的tick下命中相同；
+// 恰好在地图边缘的子弹按出界（STOP_BOUNDS）回收，不当作撞墙
+class TickLengthTest {
+    private static final int TANK = GameWorld.DEFAULT_TANK_SIZE;
+    private static final int BULLET = GameWorld.DEFAULT_BULLET_SIZE;
+
+    private static BulletPool pool(TileMap map, int tickMillis, boolean swept) {
+        BulletPool bullets = new BulletPool(BULLET, 16);
+        bullets.setMap(map);
+        bullets.setTickMillis(tickMillis);
+        bullets.setSwept(swept);
+        return bullets;
+    }
+
+    private static TankStore tanks(TileMap map, int tickMillis, int playerX, int playerY) {
+        TankStore tanks = new TankStore(8);
+        tanks.setMap(map);
+        tanks.setTickMillis(tickMillis);
+        tanks.addPlayer(playerX, playerY, Direction.UP, 1, TANK, TANK);
+        return tanks;
+    }
+
+    // 一颗向上的子弹飞向静止的坦克，返回是否命中；起点使逐tick采样的位置恰好跨过坦克（只接触边缘）
+    private static boolean fastBulletHits(boolean swept) {
+        TileMap map = new TileMap(20, 15);
+        TankStore tanks = tanks(map, GameWorld.MAX_TICK_MILLIS, 0, map.getHeight() - TANK);
+        int target = tanks.addEnemy(400, 440, Direction.DOWN, TANK, TANK, new GameRandom(1));
+        BulletPool bullets = pool(map, GameWorld.MAX_TICK_MILLIS, swept);
+        bullets.add(415, 440 + TANK + bullets.getSpeed(), Direction.UP, BulletPool.OWNER_PLAYER);
+        while (bullets.size() > 0) {
+            tanks.savePositions();
+            bullets.savePositions();
+            bullets.update();
+            if (bullets.size() == 0) break;
+            boolean hit = swept ? bullets.timeOfImpact(0, tanks, target) >= 0 : bullets.checkCollision(0, tanks, target);
+            if (hit) return true;
+            if (swept) bullets.resolveStops();
+        }
+        return false;
+    }
+
+    @Test
+    void bulletFasterThanTankSizeHits() {
+        assertTrue(GameWorld.scaleSpeed(BulletPool.BULLET_SPEED, GameWorld.MAX_TICK_MILLIS) > TANK);
+        assertFalse(fastBulletHits(false), "overlap test should tunnel");
+        assertTrue(fastBulletHits(true), "swept test should hit");
+    }
+
+    private static final int SHOT_MILLIS = 330; // 10和33的公倍数，两种tick长度下开火时刻相同
+    private static final int SHOTS = 5;
+    private static final int SCRIPT_MILLIS = 2310;
+
+    // 脚本场景：玩家停在底部中间，每SHOT_MILLIS向上开一枪；一辆敌人静止在正上方，两辆分别向右、向左横穿弹道
+    // 按GameWorld.step的顺序推进，返回按命中先后排列的敌人槽位
+    private static List<Integer> scriptedHits(int tickMillis) {
+        TileMap map = new TileMap(30, 20);
+        TankStore tanks = tanks(map, tickMillis, 580, 740);
+        GameRandom rand = new GameRandom(1);
+        int[] keys = new int[4];
+        tanks.addEnemy(580, 100, Direction.DOWN, TANK, TANK, rand);
+        keys[tanks.addEnemy(300, 400, Direction.RIGHT, TANK, TANK, rand)] = TickInput.RIGHT;
+        keys[tanks.addEnemy(1000, 250, Direction.LEFT, TANK, TANK, rand)] = TickInput.LEFT;
+        boolean[] destroyed = new boolean[tanks.size()];
+        BulletPool bullets = pool(map, tickMillis, true);
+        List<Integer> hits = new ArrayList<>();
+        for (int elapsed = 0; elapsed < SCRIPT_MILLIS; elapsed += tickMillis) {
+            tanks.savePositions();
+            bullets.savePositions();
+            if (elapsed % SHOT_MILLIS == 0 && elapsed / SHOT_MILLIS < SHOTS) {
+                tanks.fire(TankStore.PLAYER, bullets, BulletPool.OWNER_PLAYER);
+            }
+            for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+                tanks.setInput(t, keys[t]);
+                tanks.movePlayer(t);
+            }
+            bullets.update();
+            for (int i = 0; i < bullets.size(); i++) {
+                int best = -1;
+                double bestTime = Double.POSITIVE_INFINITY;
+                for (int t = TankStore.FIRST_ENEMY; t < tanks.size(); t++) {
+                    double time = destroyed[t] ? -1 : bullets.timeOfImpact(i, tanks, t);
+                    if (time >= 0 && time < bestTime) {
+                        best = t;
+                        bestTime = time;
+                    }
+                }
+                if (best >= 0) {
+                    bullets.setActive(i, false);
+                    destroyed[best] = true;
+                    hits.add(best);
+                }
+            }
+            bullets.resolveStops();
+        }
+        assertEquals(0, bullets.size(), "bullets still flying at " + tickMillis + " ms");
+        return hits;
+    }
+
+    @Test
+    void scriptedHitsMatchAcrossTickLengths() {
+        List<Integer> reference = scriptedHits(GameWorld.TICK_MILLIS);
+        assertEquals(List.of(1, 2, 3), reference); // 第1、3、4枪命中，第2、5枪落空后出界
+        assertEquals(reference, scriptedHits(33));
+    }
+
+    @Test
+    void bulletAtMapEdgeIsCulledByBounds() {
+        TileMap map = new TileMap(20, 15);
+        int[] wallHits = new int[1];
+        WorldListener listener = new WorldListener() {
+            @Override
+            public void bulletHitWall(int x, int y) {
+                wallHits[0]++;
+            }
+        };
+        int midX = map.getWidth() / 2, midY = map.getHeight() / 2;
+        int[][] edges = {{midX, 0}, {midX, map.getHeight()}, {0, midY}, {map.getWidth(), midY}};
+        Direction[] directions = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+        for (int tickMillis : new int[]{GameWorld.TICK_MILLIS, 33}) {
+            for (int k = 0; k < directions.length; k++) {
+                BulletPool bullets = pool(map, tickMillis, true);
+                bullets.setListener(listener);
+                bullets.add(edges[k][0], edges[k][1], directions[k], BulletPool.OWNER_PLAYER);
+                bullets.savePositions();
+                bullets.update();
+                String context = directions[k] + " at " + tickMillis + " ms";
+                // 停在原地，命中判定之后才失效
+                assertTrue(bullets.isActive(0), context);
+                assertEquals(edges[k][0], bullets.getX(0), context);
+                assertEquals(edges[k][1], bullets.getY(0), context);
+                bullets.resolveStops();
+                assertFalse(bullets.isActive(0), context);
+                bullets.update();
+                assertEquals(0, bullets.size(), context);
+            }
+        }
+        assertEquals(0, wallHits[0], "bounds stop reported as wall hit");
+    }
+}